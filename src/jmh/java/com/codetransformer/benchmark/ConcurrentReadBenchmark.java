@@ -0,0 +1,80 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures streaming throughput, in files per second, against a filesystem with injected read latency
+ * for a range of outstanding reads.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConcurrentRead"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentReadBenchmark {
+    private static final int MODULES = 10;
+    private static final int FILES_PER_MODULE = 50;
+
+    @Param({"1", "8", "64", "256"})
+    public int outstandingReads;
+
+    @Param({"2000"})
+    public long latencyMicros;
+
+    private Path workDir;
+    private Path corpus;
+    private DirectoryProcessorService processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("read-bench");
+        corpus = workDir.resolve("corpus");
+        for (int m = 0; m < MODULES; m++) {
+            Path module = Files.createDirectories(corpus.resolve("module" + m));
+            for (int f = 0; f < FILES_PER_MODULE; f++) {
+                Files.writeString(module.resolve("Source" + f + ".java"), ("// generated line " + f + "\n").repeat(50 + f));
+            }
+        }
+        processor = new DirectoryProcessorServiceImpl(new LatencyInjectingFileService(latencyMicros),
+            new ProcessingOptions.Builder().withStreaming(true).withOutstandingReads(outstandingReads).build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MODULES * FILES_PER_MODULE)
+    public boolean streamCorpus() {
+        return processor.processDirectory(corpus).isSuccess();
+    }
+}
@@ -0,0 +1,75 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.util.BoundedFileReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a file whole and truncating it afterwards with the bounded heap and mapped reads.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FileRead"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileReadBenchmark {
+    private static final int MAX_CHARS = FileProcessingConfig.DEFAULT_MAX_FILE_SIZE;
+
+    @Param({"4096", "65536", "1048576", "16777216"})
+    public int fileSize;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("read-bench", ".java");
+        StringBuilder content = new StringBuilder(fileSize);
+        int line = 0;
+        while (content.length() < fileSize) {
+            content.append("    int value").append(line++).append(" = 42; // é\n");
+        }
+        content.setLength(fileSize);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int readWholeThenTruncate() throws IOException {
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        return content.length() > MAX_CHARS ? content.substring(0, MAX_CHARS).length() : content.length();
+    }
+
+    @Benchmark
+    public int boundedHeap() throws IOException {
+        return BoundedFileReader.read(file, MAX_CHARS, false).getText().length();
+    }
+
+    @Benchmark
+    public int boundedMapped() throws IOException {
+        return BoundedFileReader.read(file, MAX_CHARS, true).getText().length();
+    }
+}
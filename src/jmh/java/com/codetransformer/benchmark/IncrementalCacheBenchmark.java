@@ -0,0 +1,99 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import com.codetransformer.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a re-run of the transformation after 1% of the files were touched,
+ * with and without the incremental cache.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="IncrementalCache"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalCacheBenchmark {
+    private static final int MODULES = 20;
+    private static final int FILES_PER_MODULE = 100;
+    private static final double TOUCHED_FRACTION = 0.01;
+
+    @Param({"false", "true"})
+    public boolean incrementalCache;
+
+    private Path workDir;
+    private Path corpus;
+    private final List<Path> files = new ArrayList<>();
+    private int nextTouched;
+    private DirectoryProcessorService processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("cache-bench");
+        corpus = workDir.resolve("corpus");
+        FileTime old = FileTime.from(Instant.now().minusSeconds(3600));
+        for (int m = 0; m < MODULES; m++) {
+            Path module = Files.createDirectories(corpus.resolve("module" + m));
+            for (int f = 0; f < FILES_PER_MODULE; f++) {
+                Path file = module.resolve("Source" + f + ".java");
+                Files.writeString(file, ("// generated line " + f + "\n").repeat(50 + f));
+                Files.setLastModifiedTime(file, old);
+                files.add(file);
+            }
+        }
+        processor = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).withIncrementalCache(incrementalCache).build());
+        // Prime the manifest and the previous output
+        processor.processDirectory(corpus);
+    }
+
+    @Setup(Level.Invocation)
+    public void touchFiles() throws IOException {
+        int touched = (int) Math.max(1, files.size() * TOUCHED_FRACTION);
+        FileTime now = FileTime.from(Instant.now().minusSeconds(1));
+        for (int i = 0; i < touched; i++) {
+            Files.setLastModifiedTime(files.get(nextTouched), now);
+            nextTouched = (nextTouched + 97) % files.size();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int rerunAfterTouchingOnePercent() {
+        return processor.processDirectory(corpus).getCacheMisses();
+    }
+}
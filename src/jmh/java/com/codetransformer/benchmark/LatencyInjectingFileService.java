@@ -0,0 +1,97 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.util.ChannelOutputWriter;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.FileService;
+import com.codetransformer.util.FileUtils;
+import com.codetransformer.util.TokenEstimator;
+import com.codetransformer.util.ValidatedFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File service that adds a fixed delay to every file read, simulating a network filesystem.
+ */
+public final class LatencyInjectingFileService implements FileService {
+    private final FileService delegate = FileUtils.getInstance();
+    private final long latencyMicros;
+
+    /**
+     * Creates a service that delays each read by the given latency.
+     * @param latencyMicros Delay per read in microseconds
+     */
+    public LatencyInjectingFileService(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+
+    @Override
+    public boolean shouldProcessDirectory(Path path) {
+        return delegate.shouldProcessDirectory(path);
+    }
+
+    @Override
+    public String readFileContent(Path path) throws IOException {
+        delay(path);
+        return delegate.readFileContent(path);
+    }
+
+    @Override
+    public String readFileContent(Path path, int maxSize) throws IOException {
+        delay(path);
+        return delegate.readFileContent(path, maxSize);
+    }
+
+    @Override
+    public boolean transferFileContent(Path path, ChannelOutputWriter out, ContentHash.Accumulator hash,
+                                       TokenEstimator.Counter tokens) throws IOException {
+        delay(path);
+        return delegate.transferFileContent(path, out, hash, tokens);
+    }
+
+    @Override
+    public ValidatedFile openValidatedFile(Path path, ContentHash.Accumulator hash,
+                                           TokenEstimator.Counter tokens) throws IOException {
+        delay(path);
+        return delegate.openValidatedFile(path, hash, tokens);
+    }
+
+    @Override
+    public void writeFileContent(Path path, String content) throws IOException {
+        delegate.writeFileContent(path, content);
+    }
+
+    @Override
+    public void writeFileContent(Path path, String content, boolean compressed, Executor executor, int parallelism)
+            throws IOException {
+        delegate.writeFileContent(path, content, compressed, executor, parallelism);
+    }
+
+    @Override
+    public ChannelOutputWriter openOutputWriter(Path path) throws IOException {
+        return delegate.openOutputWriter(path);
+    }
+
+    @Override
+    public ChannelOutputWriter openOutputWriter(Path path, boolean compressed, Executor executor, int parallelism)
+            throws IOException {
+        return delegate.openOutputWriter(path, compressed, executor, parallelism);
+    }
+
+    @Override
+    public boolean isCodeFile(Path path) {
+        return delegate.isCodeFile(path);
+    }
+
+    private void delay(Path path) throws IOException {
+        try {
+            TimeUnit.MICROSECONDS.sleep(latencyMicros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + path);
+        }
+    }
+}
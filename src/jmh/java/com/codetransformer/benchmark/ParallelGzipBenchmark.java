@@ -0,0 +1,105 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.util.ParallelGzipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures how block-parallel gzip compression of a rendered output scales with the number of cores,
+ * against the single-threaded {@link GZIPOutputStream} as the baseline.
+ * Each operation compresses 32 MB of generated source text; multiply the throughput by 32 for MB/s.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ParallelGzip"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelGzipBenchmark {
+    private static final int OUTPUT_SIZE = 32 * 1024 * 1024;
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private byte[] output;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder text = new StringBuilder(OUTPUT_SIZE + 1024);
+        for (int i = 0; text.length() < OUTPUT_SIZE; i++) {
+            text.append("    private static final int FIELD_").append(i)
+                .append(" = computeValue(").append(i % 97).append(", \"name").append(i % 13).append("\");\n");
+        }
+        output = text.substring(0, OUTPUT_SIZE).getBytes(StandardCharsets.UTF_8);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long parallelGzip() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(sink, executor, threads)) {
+            write(gzip);
+        }
+        return sink.count;
+    }
+
+    @Benchmark
+    public long gzipOutputStream() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sink, WRITE_SIZE)) {
+            write(gzip);
+        }
+        return sink.count;
+    }
+
+    // Writes in the chunks a ChannelOutputWriter drains
+    private void write(OutputStream out) throws IOException {
+        for (int offset = 0; offset < output.length; offset += WRITE_SIZE) {
+            out.write(output, offset, Math.min(WRITE_SIZE, output.length - offset));
+        }
+    }
+
+    /**
+     * Discards the compressed bytes and only counts them.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
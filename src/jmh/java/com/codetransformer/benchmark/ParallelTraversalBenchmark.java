@@ -0,0 +1,84 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import com.codetransformer.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how the fork/join directory traversal scales with the number of worker threads.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ParallelTraversal"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelTraversalBenchmark {
+    private static final int FAN_OUT = 6;
+    private static final int DEPTH = 3;
+    private static final int FILES_PER_DIRECTORY = 12;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private Path workDir;
+    private Path corpus;
+    private DirectoryProcessorService processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("traversal-bench");
+        corpus = workDir.resolve("corpus");
+        createTree(corpus, 0);
+        processor = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withParallelism(parallelism).build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int processDirectory() {
+        return processor.processDirectory(corpus).getContent().length();
+    }
+
+    private static void createTree(Path dir, int depth) throws IOException {
+        Files.createDirectories(dir);
+        for (int i = 0; i < FILES_PER_DIRECTORY; i++) {
+            String body = ("// line of generated source " + i + "\n").repeat(40 + 20 * i);
+            Files.writeString(dir.resolve("Source" + i + ".java"), body);
+        }
+        if (depth < DEPTH) {
+            for (int i = 0; i < FAN_OUT; i++) {
+                createTree(dir.resolve("module" + i), depth + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.codetransformer.benchmark;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import com.codetransformer.util.FileUtils;
+import com.codetransformer.util.TreeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the hot paths of a transformation on a generated source tree.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProcessingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessingBenchmark {
+    private static final int FAN_OUT = 4;
+    private static final int DEPTH = 3;
+    private static final int FILES_PER_DIRECTORY = 8;
+    private static final String[] FILE_NAMES = {
+        "Main.java", "README.md", "app.py", "index.html", "notes.txt", "build.gradle",
+        "component.tsx", "image.png", "Makefile", "schema.sql", "data.json", "archive.tar.gz"
+    };
+
+    private final FileUtils fileUtils = FileUtils.getInstance();
+    private Path workDir;
+    private Path corpus;
+    private Path sampleFile;
+    private Path[] namedPaths;
+    private DirectoryProcessorService processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("processing-bench");
+        corpus = workDir.resolve("corpus");
+        createTree(corpus, 0);
+        sampleFile = corpus.resolve("Source" + (FILES_PER_DIRECTORY - 1) + ".java");
+        namedPaths = new Path[FILE_NAMES.length];
+        for (int i = 0; i < FILE_NAMES.length; i++) {
+            namedPaths[i] = corpus.resolve(FILE_NAMES[i]);
+        }
+        processor = new DirectoryProcessorServiceImpl();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int processDirectory() {
+        return processor.processDirectory(corpus).getContent().length();
+    }
+
+    @Benchmark
+    public int countCodeFiles() throws IOException {
+        return processor.countCodeFiles(corpus, FileProcessingConfig.MAX_TOTAL_FILES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public int isCodeFile() {
+        int codeFiles = 0;
+        for (Path path : namedPaths) {
+            if (fileUtils.isCodeFile(path)) {
+                codeFiles++;
+            }
+        }
+        return codeFiles;
+    }
+
+    @Benchmark
+    public int readFileContent() throws IOException {
+        return fileUtils.readFileContent(sampleFile).length();
+    }
+
+    @Benchmark
+    public int buildDirectoryTree() throws IOException {
+        return TreeBuilder.buildDirectoryTree(corpus).length();
+    }
+
+    private static void createTree(Path dir, int depth) throws IOException {
+        Files.createDirectories(dir);
+        for (int i = 0; i < FILES_PER_DIRECTORY; i++) {
+            String body = ("// line of generated source " + i + "\n").repeat(40 + 20 * i);
+            Files.writeString(dir.resolve("Source" + i + ".java"), body);
+        }
+        Files.writeString(dir.resolve("README.md"), "# Not code");
+        if (depth < DEPTH) {
+            for (int i = 0; i < FAN_OUT; i++) {
+                createTree(dir.resolve("module" + i), depth + 1);
+            }
+        }
+    }
+}
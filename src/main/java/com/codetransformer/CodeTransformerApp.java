@@ -1,10 +1,16 @@
 package com.codetransformer;
 
+import com.codetransformer.cli.CommandLineOptions;
+import com.codetransformer.cli.HeadlessRunner;
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.config.ProcessingOptions;
 import com.codetransformer.service.DirectoryProcessorService;
 import com.codetransformer.service.DirectoryProcessorServiceImpl;
 import com.codetransformer.ui.MainWindow;
+import com.codetransformer.util.FileUtils;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,11 +21,28 @@ import java.util.logging.Logger;
 public class CodeTransformerApp {
     private static final Logger LOGGER = Logger.getLogger(CodeTransformerApp.class.getName());
 
+    /**
+     * System property naming a {@code .jfr} file; when set, every transformation is recorded to it.
+     */
+    public static final String FLIGHT_RECORDING_PROPERTY = "codetransformer.jfr";
+
     /**
      * Application entry point.
-     * @param args Command line arguments (not used)
+     * Without arguments the window is opened; with arguments the transformation runs headless
+     * and the process exits with its status. The headless path never loads Swing or AWT.
+     * @param args Command line arguments, see {@link CommandLineOptions#USAGE}
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(new HeadlessRunner(System.out, System.err).run(args));
+        }
+        launchWindow();
+    }
+
+    /**
+     * Opens the main window on the event dispatch thread.
+     */
+    private static void launchWindow() {
         SwingUtilities.invokeLater(() -> {
             try {
                 // Set system look and feel for better integration
@@ -32,10 +55,29 @@ public class CodeTransformerApp {
             }
 
             // Initialize the directory processor service
-            DirectoryProcessorService processor = new DirectoryProcessorServiceImpl();
+            ProcessingOptions options = createOptions();
+            DirectoryProcessorService processor = new DirectoryProcessorServiceImpl(
+                FileUtils.getInstance(), options);
             
             // Pass the processor to the MainWindow
-            new MainWindow(processor).setVisible(true);
+            new MainWindow(processor, options).setVisible(true);
         });
     }
+
+    /**
+     * Builds the processing options from system properties.
+     * An output above the token budget is split into parts of the budget, which the window steps through.
+     * The output is streamed, since the window pages and copies it from the file.
+     * @return Processing options for the application
+     */
+    private static ProcessingOptions createOptions() {
+        ProcessingOptions.Builder options = new ProcessingOptions.Builder()
+            .withStreaming(true)
+            .withPartTokens(FileProcessingConfig.DEFAULT_TOKEN_BUDGET);
+        String flightRecording = System.getProperty(FLIGHT_RECORDING_PROPERTY);
+        if (flightRecording != null && !flightRecording.isBlank()) {
+            options.withFlightRecording(Path.of(flightRecording));
+        }
+        return options.build();
+    }
 }
@@ -0,0 +1,315 @@
+package com.codetransformer.cli;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.config.ProcessingOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options of a headless run, parsed from the command line.
+ * Instances are created through {@link #parse(String[])}.
+ */
+public final class CommandLineOptions {
+    /**
+     * Output argument that writes the output to standard output.
+     */
+    public static final String STDOUT = "-";
+
+    /**
+     * Usage text printed for {@code --help} and after a usage error.
+     */
+    public static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java -jar code-transformer.jar [options] <directory>",
+        "       java -jar code-transformer.jar [options] <directory> <directory>... | --roots-file <file>",
+        "",
+        "With several directories, each is written to <directory>_code_only.txt next to it.",
+        "",
+        "Options:",
+        "  -o, --output <file|->       Output file, or - for standard output; single directory only",
+        "                              (default: <directory>_code_only.txt next to the directory)",
+        "      --roots-file <file>     File listing directories, one per line; # starts a comment",
+        "      --concurrent-roots <n>  Number of directories of a batch transformed at a time",
+        "  -p, --parallelism <n>       Number of worker threads",
+        "      --in-memory             Build the output in memory instead of streaming it to disk",
+        "      --incremental           Reuse unchanged files from the previous output",
+        "      --outstanding-reads <n> Maximum number of file reads in flight while streaming",
+        "      --read-budget <bytes>   Maximum number of bytes read ahead while streaming",
+        "      --max-files <n>         Fail a directory that contains more code files",
+        "      --token-budget <n>      Leave out the files that do not fit into n estimated tokens",
+        "      --dedup                 Write files identical to an earlier file as a reference to it",
+        "      --minify                Strip comments and redundant whitespace from code files",
+        "      --gzip                  Compress the output with gzip on all cores",
+        "                              (default output: <directory>_code_only.txt.gz)",
+        "      --part-tokens <n>       Also split the output into parts of at most n estimated tokens",
+        "      --part-bytes <bytes>    Also split the output into parts of at most the given size",
+        "      --watch                 Keep the output up to date until interrupted; single directory only",
+        "      --jfr <file>            Write a Java Flight Recorder recording of the run",
+        "  -h, --help                  Print this help",
+        "",
+        "A one-line JSON timing summary per directory, and one for the whole batch,",
+        "is printed to standard error.");
+
+    private final List<Path> roots;
+    private final Path rootsFile;
+    private final Path output;
+    private final boolean stdout;
+    private final int maxFiles;
+    private final int concurrentRoots;
+    private final boolean watch;
+    private final boolean help;
+    private final ProcessingOptions.Builder processing;
+
+    private CommandLineOptions(List<Path> roots, Path rootsFile, Path output, boolean stdout, int maxFiles,
+                               int concurrentRoots, boolean watch, boolean help, ProcessingOptions.Builder processing) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.rootsFile = rootsFile;
+        this.output = output;
+        this.stdout = stdout;
+        this.maxFiles = maxFiles;
+        this.concurrentRoots = concurrentRoots;
+        this.watch = watch;
+        this.help = help;
+        this.processing = processing;
+    }
+
+    /**
+     * Parses command line arguments.
+     * @param args Arguments as passed to {@code main}
+     * @return The parsed options
+     * @throws IllegalArgumentException if an option is unknown, lacks its value or has an invalid value
+     */
+    public static CommandLineOptions parse(String[] args) {
+        ProcessingOptions.Builder processing = new ProcessingOptions.Builder().withStreaming(true);
+        List<Path> roots = new ArrayList<>();
+        Path rootsFile = null;
+        Path output = null;
+        boolean stdout = false;
+        int maxFiles = Integer.MAX_VALUE;
+        int concurrentRoots = FileProcessingConfig.DEFAULT_CONCURRENT_ROOTS;
+        boolean incremental = false;
+        boolean watch = false;
+        String splitOption = null;
+        boolean gzip = false;
+        boolean dedup = false;
+        boolean minify = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return new CommandLineOptions(roots, null, null, false, maxFiles, concurrentRoots, false, true,
+                        processing);
+                case "-o":
+                case "--output":
+                    String target = value(args, ++i, arg);
+                    stdout = STDOUT.equals(target);
+                    output = stdout ? null : Path.of(target).toAbsolutePath().normalize();
+                    break;
+                case "--roots-file":
+                    rootsFile = Path.of(value(args, ++i, arg));
+                    break;
+                case "--concurrent-roots":
+                    concurrentRoots = intValue(args, ++i, arg);
+                    break;
+                case "-p":
+                case "--parallelism":
+                    processing.withParallelism(intValue(args, ++i, arg));
+                    break;
+                case "--in-memory":
+                    processing.withStreaming(false);
+                    break;
+                case "--incremental":
+                    incremental = true;
+                    processing.withIncrementalCache(true);
+                    break;
+                case "--outstanding-reads":
+                    processing.withOutstandingReads(intValue(args, ++i, arg));
+                    break;
+                case "--read-budget":
+                    processing.withReadBudget(longValue(args, ++i, arg));
+                    break;
+                case "--max-files":
+                    maxFiles = intValue(args, ++i, arg);
+                    break;
+                case "--token-budget":
+                    processing.withTokenBudget(longValue(args, ++i, arg)).withPacking(true);
+                    break;
+                case "--minify":
+                    minify = true;
+                    processing.withMinification(true);
+                    break;
+                case "--dedup":
+                    dedup = true;
+                    processing.withDeduplication(true);
+                    break;
+                case "--gzip":
+                    gzip = true;
+                    processing.withCompression(true);
+                    break;
+                case "--part-tokens":
+                    splitOption = arg;
+                    processing.withPartTokens(longValue(args, ++i, arg));
+                    break;
+                case "--part-bytes":
+                    splitOption = arg;
+                    processing.withPartBytes(longValue(args, ++i, arg));
+                    break;
+                case "--watch":
+                    watch = true;
+                    break;
+                case "--jfr":
+                    processing.withFlightRecording(Path.of(value(args, ++i, arg)));
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    roots.add(Path.of(arg).toAbsolutePath().normalize());
+            }
+        }
+        if (roots.isEmpty() && rootsFile == null) {
+            throw new IllegalArgumentException("No directory given");
+        }
+        boolean batch = roots.size() > 1 || rootsFile != null;
+        if (batch && (output != null || stdout)) {
+            throw new IllegalArgumentException("--output cannot be used with several directories");
+        }
+        if ((incremental || watch || splitOption != null) && stdout) {
+            throw new IllegalArgumentException((watch ? "--watch" : incremental ? "--incremental" : splitOption)
+                + " needs an output file, not standard output");
+        }
+        if (gzip && (incremental || watch || splitOption != null)) {
+            throw new IllegalArgumentException("--gzip cannot be used with "
+                + (watch ? "--watch" : incremental ? "--incremental" : splitOption));
+        }
+        if (minify && (incremental || watch)) {
+            throw new IllegalArgumentException("--minify cannot be used with " + (watch ? "--watch" : "--incremental"));
+        }
+        if (dedup && (incremental || watch)) {
+            throw new IllegalArgumentException("--dedup cannot be used with " + (watch ? "--watch" : "--incremental"));
+        }
+        if (watch && batch) {
+            throw new IllegalArgumentException("--watch cannot be used with several directories");
+        }
+        for (Path root : roots) {
+            if (root.getParent() == null && output == null && !stdout) {
+                throw new IllegalArgumentException("An output file is required for " + root);
+            }
+        }
+        return new CommandLineOptions(roots, rootsFile, output, stdout, maxFiles, concurrentRoots, watch, false,
+            processing);
+    }
+
+    /**
+     * Reads the directories to transform: those given as arguments followed by those in the roots file.
+     * Blank lines and lines starting with {@code #} in the roots file are ignored; relative paths are
+     * resolved against the working directory.
+     * @return Directories to transform
+     * @throws IOException if the roots file cannot be read
+     */
+    public List<Path> readRoots() throws IOException {
+        if (rootsFile == null) {
+            return roots;
+        }
+        List<Path> all = new ArrayList<>(roots);
+        for (String line : Files.readAllLines(rootsFile, StandardCharsets.UTF_8)) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                all.add(Path.of(trimmed).toAbsolutePath().normalize());
+            }
+        }
+        return all;
+    }
+
+    /**
+     * @return true if several directories are transformed, each into its own output
+     */
+    public boolean isBatch() {
+        return roots.size() > 1 || rootsFile != null;
+    }
+
+    /**
+     * @return Output file, or null for the default location or standard output
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * @return true if the output is written to standard output
+     */
+    public boolean isStdout() {
+        return stdout;
+    }
+
+    /**
+     * @return Maximum number of code files a directory may contain
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * @return Number of directories of a batch transformed at a time
+     */
+    public int getConcurrentRoots() {
+        return concurrentRoots;
+    }
+
+    /**
+     * @return true if the output is kept up to date until the process is interrupted
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * @return true if only the usage should be printed
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * Builds the processing options of the run.
+     * @param outputPath File the service writes the output to, or null for the default location
+     * @return Processing options
+     */
+    public ProcessingOptions toProcessingOptions(Path outputPath) {
+        return processing.withOutputPath(outputPath).build();
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int intValue(String[] args, int index, String option) {
+        long value = longValue(args, index, option);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value of " + option + " is too large: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long longValue(String[] args, int index, String option) {
+        String value = value(args, index, option);
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException("Value of " + option + " must be positive: " + value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value of " + option + " is not a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.codetransformer.cli;
+
+import com.codetransformer.metrics.MetricsSummary;
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.model.BatchResult;
+import com.codetransformer.model.ScanResult;
+import com.codetransformer.model.TransformationResult;
+import com.codetransformer.service.BatchProcessor;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import com.codetransformer.service.DirectoryWatcher;
+import com.codetransformer.util.FileUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a transformation from the command line without starting the user interface.
+ * The service is called directly, and nothing on this path touches Swing or AWT, so the
+ * run pays neither the toolkit startup nor needs a display.
+ * A one-line JSON summary of the run is printed to standard error; the output itself can
+ * go to standard output. Several directories are transformed as one batch.
+ */
+public final class HeadlessRunner {
+    /** Exit status of a successful run. */
+    public static final int EXIT_OK = 0;
+    /** Exit status of a run that failed while scanning or transforming. */
+    public static final int EXIT_FAILURE = 1;
+    /** Exit status of a run with invalid arguments. */
+    public static final int EXIT_USAGE = 2;
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * Creates a runner printing to the given streams.
+     * @param out Stream receiving the output when it is written to standard output
+     * @param err Stream receiving errors and the timing summary
+     */
+    public HeadlessRunner(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Parses the arguments and runs the transformation they describe.
+     * @param args Command line arguments
+     * @return Exit status of the run
+     */
+    public int run(String[] args) {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(CommandLineOptions.USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.isHelp()) {
+            out.println(CommandLineOptions.USAGE);
+            return EXIT_OK;
+        }
+        try {
+            if (options.isWatch()) {
+                return runWatch(options);
+            }
+            return options.isBatch() ? runBatch(options) : run(options);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Error: interrupted");
+            return EXIT_FAILURE;
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int run(CommandLineOptions options) throws IOException {
+        long start = System.nanoTime();
+        Path root = options.readRoots().get(0);
+        Path output = options.isStdout() ? Files.createTempFile("code-transformer", ".txt") : options.getOutput();
+        try (DirectoryProcessorService service = new DirectoryProcessorServiceImpl(
+                FileUtils.getInstance(), options.toProcessingOptions(output))) {
+            ScanResult scan = service.scanDirectory(root);
+            if (scan.getFileCount() > options.getMaxFiles()) {
+                err.println("Error: " + scan.getFileCount() + " code files exceed the limit of "
+                    + options.getMaxFiles());
+                return EXIT_FAILURE;
+            }
+            TransformationResult result = service.processDirectory(scan);
+            if (!result.isSuccess()) {
+                err.println("Error: " + result.getErrorMessage());
+                return EXIT_FAILURE;
+            }
+            if (options.isStdout()) {
+                Files.copy(output, out);
+                out.flush();
+            }
+            err.println(summarize(root, options.isStdout() ? CommandLineOptions.STDOUT
+                : result.getOutputPath(), result, System.nanoTime() - start));
+            return EXIT_OK;
+        } finally {
+            if (options.isStdout()) {
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+
+    /**
+     * Keeps the output of one root up to date until the process is stopped.
+     * Prints a summary line after the first transformation and after every regeneration.
+     * @param options Parsed options
+     * @return Exit status, once the watch ends
+     */
+    private int runWatch(CommandLineOptions options) throws IOException {
+        Path root = options.readRoots().get(0);
+        try (DirectoryWatcher watcher = new DirectoryWatcher(FileUtils.getInstance(),
+                options.toProcessingOptions(options.getOutput()))) {
+            watcher.watch(root, (result, elapsedNanos) -> {
+                if (result.isSuccess()) {
+                    err.println(summarize(root, result.getOutputPath(), result, elapsedNanos));
+                } else {
+                    err.println("Error: " + result.getErrorMessage());
+                }
+            });
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Transforms several roots through one {@link BatchProcessor}, each into the file next to it.
+     * Prints one summary line per root, in the given order, followed by the aggregate report.
+     * @param options Parsed options
+     * @return Exit status, a failure if any root failed
+     */
+    private int runBatch(CommandLineOptions options) throws IOException, InterruptedException {
+        List<Path> roots = options.readRoots();
+        if (roots.isEmpty()) {
+            err.println("Error: no directory given");
+            return EXIT_USAGE;
+        }
+        BatchResult result;
+        try (BatchProcessor batch = new BatchProcessor(FileUtils.getInstance(), options.toProcessingOptions(null),
+                options.getConcurrentRoots(), options.getMaxFiles())) {
+            result = batch.process(roots);
+        }
+        for (BatchResult.RootResult root : result.getRoots()) {
+            if (root.getResult().isSuccess()) {
+                err.println(summarize(root.getRoot(), root.getResult().getOutputPath(), root.getResult(),
+                    root.getWallNanos()));
+            } else {
+                err.println("{\"root\":" + quote(root.getRoot().toString())
+                    + ",\"error\":" + quote(String.valueOf(root.getResult().getErrorMessage())) + "}");
+            }
+        }
+        err.println(summarizeBatch(result));
+        return result.getFailureCount() == 0 ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    /**
+     * Formats the aggregate throughput of a batch as a single JSON object.
+     * @param result Result of the batch
+     * @return The report
+     */
+    static String summarizeBatch(BatchResult result) {
+        return "{\"roots\":" + result.getRoots().size()
+            + ",\"failed\":" + result.getFailureCount()
+            + ",\"files\":" + result.getTotalFiles()
+            + ",\"bytes\":" + result.getTotalBytes()
+            + ",\"wallMillis\":" + result.getWallNanos() / 1_000_000
+            + ",\"filesPerSecond\":" + Math.round(result.getFilesPerSecond())
+            + ",\"bytesPerSecond\":" + Math.round(result.getBytesPerSecond())
+            + ",\"peakHeapBytes\":" + result.getRoots().stream()
+                .mapToLong(root -> root.getResult().getMetrics().getPeakHeapBytes()).max().orElse(0)
+            + "}";
+    }
+
+    /**
+     * Formats the timing summary of a successful run as a single JSON object.
+     * Phase times are summed over all worker threads, so they can exceed the wall time.
+     * @param root Transformed directory
+     * @param output Output file, or {@code -} for standard output
+     * @param result Result of the run
+     * @param wallNanos Wall time of the scan and transformation
+     * @return The summary
+     */
+    static String summarize(Path root, String output, TransformationResult result, long wallNanos) {
+        MetricsSummary metrics = result.getMetrics();
+        StringBuilder summary = new StringBuilder("{");
+        summary.append("\"root\":").append(quote(root.toString()))
+            .append(",\"output\":").append(quote(output))
+            .append(",\"files\":").append(metrics.getFiles())
+            .append(",\"bytes\":").append(metrics.getBytes())
+            .append(",\"skipped\":").append(metrics.getSkipped())
+            .append(",\"tokens\":").append(result.getEstimatedTokens())
+            .append(",\"parts\":").append(result.getParts().size())
+            .append(",\"duplicates\":").append(result.getDuplicateFiles())
+            .append(",\"deduplicatedBytes\":").append(result.getDeduplicatedBytes());
+        if (!result.getMinification().isEmpty()) {
+            // Share of the characters removed per language
+            String separator = ",\"minified\":{";
+            for (TransformationResult.LanguageReduction reduction : result.getMinification()) {
+                summary.append(separator).append(quote(reduction.getLanguage())).append(':')
+                    .append(String.format(Locale.ROOT, "%.3f", reduction.getRatio()));
+                separator = ",";
+            }
+            summary.append('}');
+        }
+        for (Phase phase : Phase.values()) {
+            summary.append(",\"").append(phase.name().toLowerCase(Locale.ROOT)).append("Millis\":")
+                .append(metrics.getPhaseNanos(phase) / 1_000_000);
+        }
+        return summary.append(",\"wallMillis\":").append(wallNanos / 1_000_000)
+            .append(",\"peakHeapBytes\":").append(metrics.getPeakHeapBytes())
+            .append(",\"cacheHits\":").append(result.getCacheHits())
+            .append(",\"cacheMisses\":").append(result.getCacheMisses())
+            .append('}')
+            .toString();
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -26,9 +26,21 @@ public final class FileProcessingConfig {
     public static final int MAX_TOTAL_FILES = 500;
 
     /**
-     * Maximum number of files to process before showing the "too large" warning
+     * Default token budget of an output. Larger outputs trigger the "too large" warning, or are
+     * packed into the budget when packing is enabled.
      */
-    public static final int MAX_FILES_THRESHOLD = 300;
+    public static final long DEFAULT_TOKEN_BUDGET = 200_000;
+
+    /**
+     * Files smaller than this many bytes are never replaced by a reference to an identical file,
+     * since the reference would save little or nothing.
+     */
+    public static final long MIN_DEDUPLICATED_BYTES = 256;
+
+    /**
+     * Number of largest files reported by a directory pre-scan
+     */
+    public static final int LARGEST_FILES_REPORTED = 10;
 
     /**
      * Default maximum file size in characters to prevent memory issues.
@@ -36,6 +48,47 @@ public final class FileProcessingConfig {
      */
     public static final int DEFAULT_MAX_FILE_SIZE = 1_000_000; // 1MB in characters
 
+    /**
+     * Files larger than this many bytes are memory-mapped instead of being read into a heap buffer.
+     */
+    public static final long MAPPED_READ_THRESHOLD = 4L * 1024 * 1024;
+
+    /**
+     * Default number of worker threads used to traverse a directory tree.
+     * One subdirectory is handled per fork/join subtask.
+     */
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default number of file reads kept in flight when streaming.
+     * A value of 1 reads files one after another on the calling thread.
+     */
+    public static final int DEFAULT_OUTSTANDING_READS = 1;
+
+    /**
+     * Default cap, in bytes, on file content that has been requested but not yet written.
+     * Decoded content counts two bytes per character, content that is copied its size on disk.
+     * A file larger than the budget is still read, but only while nothing else is in flight.
+     */
+    public static final long DEFAULT_READ_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Default number of source directories of a batch that are transformed at the same time.
+     * Each root is written by its own thread while sharing the traversal pool with the others.
+     */
+    public static final int DEFAULT_CONCURRENT_ROOTS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Minimum time, in milliseconds, between two progress events of a transformation.
+     */
+    public static final long PROGRESS_INTERVAL_MILLIS = 100;
+
+    /**
+     * Quiet period, in milliseconds, that ends a burst of file system events in watch mode.
+     * The output is regenerated once per burst rather than once per event.
+     */
+    public static final long WATCH_DEBOUNCE_MILLIS = 250;
+
     /**
      * Directories that should be excluded from processing.
      * These typically contain non-code files, build artifacts, or third-party dependencies.
@@ -0,0 +1,328 @@
+package com.codetransformer.config;
+
+import com.codetransformer.metrics.ProcessingMetrics;
+
+import java.nio.file.Path;
+
+/**
+ * Tunable options for a directory transformation.
+ * Immutable; instances are created through the {@link Builder}.
+ */
+public final class ProcessingOptions {
+    private final int parallelism;
+    private final boolean streaming;
+    private final boolean incrementalCache;
+    private final int outstandingReads;
+    private final long readBudget;
+    private final ProcessingMetrics metrics;
+    private final Path flightRecording;
+    private final Path outputPath;
+    private final long tokenBudget;
+    private final boolean packing;
+    private final long partTokens;
+    private final long partBytes;
+    private final boolean compressed;
+    private final boolean deduplicating;
+    private final boolean minifying;
+
+    private ProcessingOptions(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.streaming = builder.streaming;
+        this.incrementalCache = builder.incrementalCache;
+        this.outstandingReads = builder.outstandingReads;
+        this.readBudget = builder.readBudget;
+        this.metrics = builder.metrics;
+        this.flightRecording = builder.flightRecording;
+        this.outputPath = builder.outputPath;
+        this.tokenBudget = builder.tokenBudget;
+        this.packing = builder.packing;
+        this.partTokens = builder.partTokens;
+        this.partBytes = builder.partBytes;
+        this.compressed = builder.compressed;
+        this.deduplicating = builder.deduplicating;
+        this.minifying = builder.minifying;
+    }
+
+    /**
+     * Returns the options used when none are given explicitly.
+     * @return Default processing options
+     */
+    public static ProcessingOptions defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @return Number of worker threads used for directory traversal
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return true if output is written to disk while files are read instead of being built in memory
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * @return true if unchanged files are copied from the previous output using the on-disk manifest
+     */
+    public boolean isIncrementalCache() {
+        return incrementalCache;
+    }
+
+    /**
+     * @return Maximum number of file reads in flight while streaming
+     */
+    public int getOutstandingReads() {
+        return outstandingReads;
+    }
+
+    /**
+     * @return Maximum number of bytes requested but not yet written while streaming
+     */
+    public long getReadBudget() {
+        return readBudget;
+    }
+
+    /**
+     * @return Additional sink receiving the metrics of every transformation
+     */
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return File that a Java Flight Recorder recording is written to after every transformation, or null
+     */
+    public Path getFlightRecording() {
+        return flightRecording;
+    }
+
+    /**
+     * @return File the output is written to, or null to write it next to the source directory
+     */
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * @return Estimated tokens above which an output no longer fits the context of an AI platform
+     */
+    public long getTokenBudget() {
+        return tokenBudget;
+    }
+
+    /**
+     * @return true if files that do not fit the token budget are left out of the output
+     */
+    public boolean isPacking() {
+        return packing;
+    }
+
+    /**
+     * @return Estimated tokens a part of the output may hold, or 0 if parts are not limited by tokens
+     */
+    public long getPartTokens() {
+        return partTokens;
+    }
+
+    /**
+     * @return Bytes a part of the output may hold, or 0 if parts are not limited by size
+     */
+    public long getPartBytes() {
+        return partBytes;
+    }
+
+    /**
+     * @return true if the output is also split into parts that fit a token or byte limit
+     */
+    public boolean isSplitting() {
+        return partTokens > 0 || partBytes > 0;
+    }
+
+    /**
+     * @return true if the output is written as a gzip stream compressed on several cores
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return true if files repeating the content of an earlier file are written as a reference to it
+     */
+    public boolean isDeduplicating() {
+        return deduplicating;
+    }
+
+    /**
+     * @return true if comments and redundant whitespace are stripped from the files of known languages
+     */
+    public boolean isMinifying() {
+        return minifying;
+    }
+
+    /**
+     * Builder pattern implementation for clean and flexible object creation.
+     */
+    public static class Builder {
+        private int parallelism = FileProcessingConfig.DEFAULT_PARALLELISM;
+        private boolean streaming = false;
+        private boolean incrementalCache = false;
+        private int outstandingReads = FileProcessingConfig.DEFAULT_OUTSTANDING_READS;
+        private long readBudget = FileProcessingConfig.DEFAULT_READ_BUDGET;
+        private ProcessingMetrics metrics = ProcessingMetrics.NONE;
+        private Path flightRecording;
+        private Path outputPath;
+        private long tokenBudget = FileProcessingConfig.DEFAULT_TOKEN_BUDGET;
+        private boolean packing = false;
+        private long partTokens = 0;
+        private long partBytes = 0;
+        private boolean compressed = false;
+        private boolean deduplicating = false;
+        private boolean minifying = false;
+
+        public Builder() {
+        }
+
+        /**
+         * Creates a builder starting from the values of existing options.
+         * @param options Options to copy
+         */
+        public Builder(ProcessingOptions options) {
+            this.parallelism = options.parallelism;
+            this.streaming = options.streaming;
+            this.incrementalCache = options.incrementalCache;
+            this.outstandingReads = options.outstandingReads;
+            this.readBudget = options.readBudget;
+            this.metrics = options.metrics;
+            this.flightRecording = options.flightRecording;
+            this.outputPath = options.outputPath;
+            this.tokenBudget = options.tokenBudget;
+            this.packing = options.packing;
+            this.partTokens = options.partTokens;
+            this.partBytes = options.partBytes;
+            this.compressed = options.compressed;
+            this.deduplicating = options.deduplicating;
+            this.minifying = options.minifying;
+        }
+
+        public Builder withParallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
+        public Builder withIncrementalCache(boolean incrementalCache) {
+            this.incrementalCache = incrementalCache;
+            return this;
+        }
+
+        public Builder withOutstandingReads(int outstandingReads) {
+            if (outstandingReads <= 0) {
+                throw new IllegalArgumentException("Outstanding reads must be positive");
+            }
+            this.outstandingReads = outstandingReads;
+            return this;
+        }
+
+        public Builder withReadBudget(long readBudget) {
+            if (readBudget <= 0) {
+                throw new IllegalArgumentException("Read budget must be positive");
+            }
+            this.readBudget = readBudget;
+            return this;
+        }
+
+        public Builder withMetrics(ProcessingMetrics metrics) {
+            if (metrics == null) {
+                throw new NullPointerException("Metrics cannot be null");
+            }
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder withFlightRecording(Path flightRecording) {
+            this.flightRecording = flightRecording;
+            return this;
+        }
+
+        public Builder withOutputPath(Path outputPath) {
+            this.outputPath = outputPath;
+            return this;
+        }
+
+        public Builder withTokenBudget(long tokenBudget) {
+            if (tokenBudget <= 0) {
+                throw new IllegalArgumentException("Token budget must be positive");
+            }
+            this.tokenBudget = tokenBudget;
+            return this;
+        }
+
+        public Builder withPacking(boolean packing) {
+            this.packing = packing;
+            return this;
+        }
+
+        public Builder withPartTokens(long partTokens) {
+            if (partTokens < 0) {
+                throw new IllegalArgumentException("Part tokens cannot be negative");
+            }
+            this.partTokens = partTokens;
+            return this;
+        }
+
+        public Builder withPartBytes(long partBytes) {
+            if (partBytes < 0) {
+                throw new IllegalArgumentException("Part bytes cannot be negative");
+            }
+            this.partBytes = partBytes;
+            return this;
+        }
+
+        public Builder withCompression(boolean compressed) {
+            this.compressed = compressed;
+            return this;
+        }
+
+        public Builder withDeduplication(boolean deduplicating) {
+            this.deduplicating = deduplicating;
+            return this;
+        }
+
+        public Builder withMinification(boolean minifying) {
+            this.minifying = minifying;
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         * @return The options
+         * @throws IllegalArgumentException if compression is combined with the incremental cache or parts,
+         *         which both reread the uncompressed output, or deduplication or minification with the
+         *         incremental cache, whose reused blocks could refer to changed content or be unminified
+         */
+        public ProcessingOptions build() {
+            if (compressed && (incrementalCache || partTokens > 0 || partBytes > 0)) {
+                throw new IllegalArgumentException(
+                    "Compressed output cannot be combined with the incremental cache or parts");
+            }
+            if (deduplicating && incrementalCache) {
+                throw new IllegalArgumentException("Deduplication cannot be combined with the incremental cache");
+            }
+            if (minifying && incrementalCache) {
+                throw new IllegalArgumentException("Minification cannot be combined with the incremental cache");
+            }
+            return new ProcessingOptions(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.codetransformer.metrics;
+
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one directory listed and filtered during a scan.
+ * The duration covers listing the entries, reading their attributes and filtering them.
+ */
+@Name("com.codetransformer.DirectoryList")
+@Label("Directory List")
+@Category("Code Transformer")
+@Description("A directory listed and filtered while scanning the source tree")
+@StackTrace(false)
+public final class DirectoryListEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Entries")
+    int entries;
+
+    @Label("Code Files")
+    int codeFiles;
+
+    @Label("Skipped Entries")
+    int skipped;
+
+    /**
+     * Ends the event and commits it if it is being recorded.
+     * @param dir The directory
+     * @param entryCount Number of entries listed
+     * @param codeFileCount Number of code files kept
+     * @param skippedCount Number of entries left out
+     */
+    public void finish(Path dir, int entryCount, int codeFileCount, int skippedCount) {
+        end();
+        if (shouldCommit()) {
+            path = dir.toString();
+            entries = entryCount;
+            codeFiles = codeFileCount;
+            skipped = skippedCount;
+            commit();
+        }
+    }
+}
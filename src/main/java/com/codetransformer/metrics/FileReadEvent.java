@@ -0,0 +1,69 @@
+package com.codetransformer.metrics;
+
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one file read, copied or skipped during a transformation.
+ * Usage: create the event, call {@link #begin()} before the read and {@link #finish} after it.
+ * Fields are only filled in when the event is being recorded.
+ */
+@Name("com.codetransformer.FileRead")
+@Label("File Read")
+@Category("Code Transformer")
+@Description("A source file read or copied into the output, or skipped by the filter")
+@StackTrace(false)
+public final class FileReadEvent extends Event {
+    /** The whole file was read. */
+    public static final String READ = "read";
+    /** Only a prefix of the file fit within the size limit. */
+    public static final String TRUNCATED = "truncated";
+    /** The file was left out by the filter and not read. */
+    public static final String SKIPPED = "skipped";
+    /** The read failed, for example because the file is not valid UTF-8. */
+    public static final String FAILED = "failed";
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it if it is being recorded.
+     * @param file The file
+     * @param byteCount Number of bytes read or copied
+     * @param result One of {@link #READ}, {@link #TRUNCATED}, {@link #SKIPPED} or {@link #FAILED}
+     */
+    public void finish(Path file, long byteCount, String result) {
+        end();
+        if (shouldCommit()) {
+            path = file.toString();
+            bytes = byteCount;
+            outcome = result;
+            commit();
+        }
+    }
+
+    /**
+     * Records a file that the filter left out.
+     * @param file The file
+     * @param size Size of the file in bytes
+     */
+    public static void recordSkipped(Path file, long size) {
+        FileReadEvent event = new FileReadEvent();
+        if (event.isEnabled()) {
+            event.finish(file, size, SKIPPED);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.codetransformer.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Java Flight Recorder recording of the transformations run by one service.
+ * It uses the JDK's low-overhead "default" settings plus the {@link FileReadEvent} and
+ * {@link DirectoryListEvent} events, and is written to a {@code .jfr} file for JDK Mission Control.
+ * It keeps running until it is closed together with its service.
+ */
+public final class FlightRecording implements Closeable {
+    private final Recording recording;
+    private final Path destination;
+
+    private FlightRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    /**
+     * Starts a recording.
+     * @param destination File the recording is written to
+     * @return The running recording
+     * @throws IOException if the JDK settings cannot be loaded
+     */
+    public static FlightRecording start(Path destination) throws IOException {
+        Configuration settings;
+        try {
+            settings = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IOException("Could not load the default JFR settings", e);
+        }
+        Recording recording = new Recording(settings);
+        recording.setName("code-transformer");
+        recording.enable(FileReadEvent.class).withoutStackTrace();
+        recording.enable(DirectoryListEvent.class).withoutStackTrace();
+        recording.start();
+        return new FlightRecording(recording, destination);
+    }
+
+    /**
+     * Writes everything recorded so far to the destination file, replacing its content.
+     * The recording keeps running.
+     * @throws IOException if the file cannot be written
+     */
+    public void dump() throws IOException {
+        recording.dump(destination);
+    }
+
+    /**
+     * Stops the recording, writes it to the destination file a last time and releases its buffers.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+                recording.dump(destination);
+            }
+        } finally {
+            recording.close();
+        }
+    }
+
+    /**
+     * @return File the recording is written to
+     */
+    public Path getDestination() {
+        return destination;
+    }
+}
@@ -0,0 +1,132 @@
+package com.codetransformer.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the recorder of the running transformation through the platform MBean server,
+ * so that it can be watched with standard tools such as JConsole or VisualVM.
+ * A single instance is registered on first use.
+ */
+public final class JmxProcessingMetrics implements ProcessingMetricsMXBean {
+    /**
+     * Object name under which the MBean is registered.
+     */
+    public static final String OBJECT_NAME = "com.codetransformer:type=ProcessingMetrics";
+
+    private static final Logger LOGGER = Logger.getLogger(JmxProcessingMetrics.class.getName());
+    private static final JmxProcessingMetrics INSTANCE = register(new JmxProcessingMetrics());
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private volatile MetricsRecorder current = new MetricsRecorder(ProcessingMetrics.NONE);
+
+    private JmxProcessingMetrics() {
+    }
+
+    /**
+     * Gets the registered instance.
+     * @return The MBean
+     */
+    public static JmxProcessingMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Makes the given recorder the one shown through JMX.
+     * @param recorder Recorder of a scan, or of a transformation that is about to render
+     * @param newTransformation true if a transformation starts rendering, which is always followed by
+     *                          {@link #finished()}; false for a scan, which may never be transformed
+     */
+    public void track(MetricsRecorder recorder, boolean newTransformation) {
+        current = recorder;
+        if (newTransformation) {
+            started.increment();
+        }
+    }
+
+    /**
+     * Counts a finished transformation.
+     */
+    public void finished() {
+        finished.increment();
+    }
+
+    @Override
+    public long getListMillis() {
+        return millis(Phase.LIST);
+    }
+
+    @Override
+    public long getFilterMillis() {
+        return millis(Phase.FILTER);
+    }
+
+    @Override
+    public long getReadMillis() {
+        return millis(Phase.READ);
+    }
+
+    @Override
+    public long getRenderMillis() {
+        return millis(Phase.RENDER);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return millis(Phase.WRITE);
+    }
+
+    @Override
+    public long getFiles() {
+        return current.snapshot().getFiles();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return current.snapshot().getBytes();
+    }
+
+    @Override
+    public long getSkippedEntries() {
+        return current.snapshot().getSkipped();
+    }
+
+    @Override
+    public long getPeakHeapBytes() {
+        return current.snapshot().getPeakHeapBytes();
+    }
+
+    @Override
+    public long getTransformationsStarted() {
+        return started.sum();
+    }
+
+    @Override
+    public long getTransformationsFinished() {
+        return finished.sum();
+    }
+
+    @Override
+    public String getSummary() {
+        return current.snapshot().toString();
+    }
+
+    private long millis(Phase phase) {
+        return current.snapshot().getPhaseNanos(phase) / 1_000_000;
+    }
+
+    private static JmxProcessingMetrics register(JmxProcessingMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            // Metrics are still collected and returned with each result
+            LOGGER.log(Level.WARNING, "Could not register processing metrics MBean", e);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,99 @@
+package com.codetransformer.metrics;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free collector for the metrics of one transformation.
+ * Counters are {@link LongAdder}s, so worker threads never contend on a shared lock.
+ * Every event is also forwarded to an optional delegate supplied through the SPI.
+ */
+public final class MetricsRecorder implements ProcessingMetrics {
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAccumulator peakHeapBytes = new LongAccumulator(Math::max, 0L);
+    private final ProcessingMetrics delegate;
+
+    /**
+     * Creates a recorder that forwards every event to the given delegate.
+     * @param delegate Additional sink, or {@link ProcessingMetrics#NONE}
+     */
+    public MetricsRecorder(ProcessingMetrics delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+        sampleHeap();
+    }
+
+    /**
+     * Creates a recorder that continues from an earlier summary, such as the metrics of the scan
+     * that produced the work plan. The earlier values are not forwarded to the delegate again.
+     * @param start Values to start from
+     * @param delegate Additional sink, or {@link ProcessingMetrics#NONE}
+     * @return A new recorder
+     */
+    public static MetricsRecorder continuing(MetricsSummary start, ProcessingMetrics delegate) {
+        MetricsRecorder recorder = new MetricsRecorder(delegate);
+        for (Phase phase : Phase.values()) {
+            recorder.phaseNanos[phase.ordinal()].add(start.getPhaseNanos(phase));
+        }
+        recorder.files.add(start.getFiles());
+        recorder.bytes.add(start.getBytes());
+        recorder.skipped.add(start.getSkipped());
+        recorder.peakHeapBytes.accumulate(start.getPeakHeapBytes());
+        return recorder;
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+        delegate.recordPhase(phase, nanos);
+    }
+
+    @Override
+    public void fileStarted(Path path) {
+        delegate.fileStarted(path);
+    }
+
+    @Override
+    public void addFiles(long count) {
+        files.add(count);
+        sampleHeap();
+        delegate.addFiles(count);
+    }
+
+    @Override
+    public void addBytes(long count) {
+        bytes.add(count);
+        delegate.addBytes(count);
+    }
+
+    @Override
+    public void addSkipped(long count) {
+        skipped.add(count);
+        delegate.addSkipped(count);
+    }
+
+    /**
+     * Takes a consistent-enough snapshot while the transformation may still be running.
+     * @return Current values
+     */
+    public MetricsSummary snapshot() {
+        sampleHeap();
+        long[] nanos = new long[phaseNanos.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = phaseNanos[i].sum();
+        }
+        return new MetricsSummary(nanos, files.sum(), bytes.sum(), skipped.sum(), peakHeapBytes.get());
+    }
+
+    // Cheap sample of the used heap; called once per written file
+    private void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peakHeapBytes.accumulate(runtime.totalMemory() - runtime.freeMemory());
+    }
+}
@@ -0,0 +1,88 @@
+package com.codetransformer.metrics;
+
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of the metrics of one transformation.
+ */
+public final class MetricsSummary {
+    /**
+     * Summary without any recorded values.
+     */
+    public static final MetricsSummary EMPTY = new MetricsSummary(new long[Phase.values().length], 0, 0, 0, 0);
+
+    private final long[] phaseNanos;
+    private final long files;
+    private final long bytes;
+    private final long skipped;
+    private final long peakHeapBytes;
+
+    /**
+     * Creates a summary.
+     * @param phaseNanos Time per phase in nanoseconds, indexed by {@link Phase#ordinal()}
+     * @param files Number of files written to the output
+     * @param bytes Number of bytes read from source files
+     * @param skipped Number of skipped directory entries
+     * @param peakHeapBytes Highest heap usage observed
+     */
+    public MetricsSummary(long[] phaseNanos, long files, long bytes, long skipped, long peakHeapBytes) {
+        if (phaseNanos.length != Phase.values().length) {
+            throw new IllegalArgumentException("Expected one value per phase");
+        }
+        this.phaseNanos = phaseNanos.clone();
+        this.files = files;
+        this.bytes = bytes;
+        this.skipped = skipped;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /**
+     * @param phase A phase
+     * @return Time spent in the phase, in nanoseconds, summed over all threads
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return Number of files written to the output
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * @return Number of bytes read from source files
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Number of skipped directory entries
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return Highest heap usage observed during the transformation, in bytes
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            summary.append(phase.name().toLowerCase(Locale.ROOT)).append(' ')
+                .append(getPhaseNanos(phase) / 1_000_000).append(" ms, ");
+        }
+        return summary.append(files).append(" files, ")
+            .append(bytes / 1024).append(" KB read, ")
+            .append(skipped).append(" skipped, peak heap ")
+            .append(peakHeapBytes / (1024 * 1024)).append(" MB")
+            .toString();
+    }
+}
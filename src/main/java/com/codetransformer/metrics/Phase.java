@@ -0,0 +1,17 @@
+package com.codetransformer.metrics;
+
+/**
+ * Phases of a transformation that are timed separately.
+ */
+public enum Phase {
+    /** Listing directories and reading file attributes. */
+    LIST,
+    /** Deciding which directories and files to include. */
+    FILTER,
+    /** Reading file contents, including validated byte copies of file bodies. */
+    READ,
+    /** Minifying files, formatting headers and assembling the output in memory. */
+    RENDER,
+    /** Encoding and writing the output, including blocks copied from a previous output. */
+    WRITE
+}
@@ -0,0 +1,65 @@
+package com.codetransformer.metrics;
+
+import java.nio.file.Path;
+
+/**
+ * Service provider interface for observing a transformation.
+ * Implementations may be called from several threads at once and must not block.
+ * A custom implementation can be plugged in through
+ * {@link com.codetransformer.config.ProcessingOptions.Builder#withMetrics(ProcessingMetrics)},
+ * for example to forward the values to a monitoring system.
+ */
+public interface ProcessingMetrics {
+    /**
+     * Metrics sink that ignores everything.
+     */
+    ProcessingMetrics NONE = new ProcessingMetrics() {
+        @Override
+        public void recordPhase(Phase phase, long nanos) {
+        }
+
+        @Override
+        public void addFiles(long count) {
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+        }
+
+        @Override
+        public void addSkipped(long count) {
+        }
+    };
+
+    /**
+     * Adds time spent in a phase.
+     * @param phase The phase
+     * @param nanos Elapsed time in nanoseconds
+     */
+    void recordPhase(Phase phase, long nanos);
+
+    /**
+     * Notes the file that is about to be read; the default implementation ignores it.
+     * @param path The file
+     */
+    default void fileStarted(Path path) {
+    }
+
+    /**
+     * Counts files written to the output.
+     * @param count Number of files
+     */
+    void addFiles(long count);
+
+    /**
+     * Counts bytes read from source files.
+     * @param bytes Number of bytes
+     */
+    void addBytes(long bytes);
+
+    /**
+     * Counts directory entries that were left out, such as excluded directories and non-code files.
+     * @param count Number of entries
+     */
+    void addSkipped(long count);
+}
@@ -0,0 +1,40 @@
+package com.codetransformer.metrics;
+
+/**
+ * JMX view of the transformation metrics, registered as {@value JmxProcessingMetrics#OBJECT_NAME}.
+ * Values describe the most recently started transformation and are live while it runs.
+ */
+public interface ProcessingMetricsMXBean {
+    long getListMillis();
+
+    long getFilterMillis();
+
+    long getReadMillis();
+
+    long getRenderMillis();
+
+    long getWriteMillis();
+
+    long getFiles();
+
+    long getBytesRead();
+
+    long getSkippedEntries();
+
+    long getPeakHeapBytes();
+
+    /**
+     * @return Number of transformations started since the application was launched
+     */
+    long getTransformationsStarted();
+
+    /**
+     * @return Number of transformations that finished, successfully or not
+     */
+    long getTransformationsFinished();
+
+    /**
+     * @return One-line summary of the current values
+     */
+    String getSummary();
+}
@@ -0,0 +1,116 @@
+package com.codetransformer.model;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of transforming several source directories in one batch.
+ * Holds the result of every root, in the order the roots were given, and the
+ * aggregate throughput of the batch.
+ */
+public final class BatchResult {
+    private final List<RootResult> roots;
+    private final long wallNanos;
+
+    /**
+     * Result of one root of a batch.
+     */
+    public static final class RootResult {
+        private final Path root;
+        private final TransformationResult result;
+        private final long wallNanos;
+
+        /**
+         * Creates the result of one root.
+         * @param root Source directory
+         * @param result Result of its transformation
+         * @param wallNanos Wall time of its scan and transformation
+         */
+        public RootResult(Path root, TransformationResult result, long wallNanos) {
+            this.root = root;
+            this.result = result;
+            this.wallNanos = wallNanos;
+        }
+
+        /**
+         * @return Source directory
+         */
+        public Path getRoot() {
+            return root;
+        }
+
+        /**
+         * @return Result of the transformation
+         */
+        public TransformationResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return Wall time of the scan and transformation, in nanoseconds
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+    }
+
+    /**
+     * Creates a batch result.
+     * @param roots Results of the roots, in the order the roots were given
+     * @param wallNanos Wall time of the whole batch
+     */
+    public BatchResult(List<RootResult> roots, long wallNanos) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * @return Results of the roots, in the order the roots were given
+     */
+    public List<RootResult> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @return Wall time of the whole batch, in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return Number of roots whose transformation did not succeed
+     */
+    public int getFailureCount() {
+        return (int) roots.stream().filter(root -> !root.getResult().isSuccess()).count();
+    }
+
+    /**
+     * @return Number of files written to the outputs of all successful roots
+     */
+    public long getTotalFiles() {
+        return roots.stream().mapToLong(root -> root.getResult().getMetrics().getFiles()).sum();
+    }
+
+    /**
+     * @return Number of bytes read from the source files of all successful roots
+     */
+    public long getTotalBytes() {
+        return roots.stream().mapToLong(root -> root.getResult().getMetrics().getBytes()).sum();
+    }
+
+    /**
+     * @return Files written per second of batch wall time
+     */
+    public double getFilesPerSecond() {
+        return wallNanos > 0 ? getTotalFiles() * 1e9 / wallNanos : 0.0;
+    }
+
+    /**
+     * @return Source bytes read per second of batch wall time
+     */
+    public double getBytesPerSecond() {
+        return wallNanos > 0 ? getTotalBytes() * 1e9 / wallNanos : 0.0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.codetransformer.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Handle to the content of a transformation.
+ * The content is either held in memory or read lazily from the output file,
+ * so results of streamed transformations do not keep the whole text on the heap.
+ */
+public final class ContentHandle {
+    private static final ContentHandle EMPTY = new ContentHandle("", null, false);
+
+    private final String content;
+    private final Path path;
+    private final boolean compressed;
+
+    private ContentHandle(String content, Path path, boolean compressed) {
+        this.content = content;
+        this.path = path;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Creates a handle for content that is already in memory.
+     * @param content The content
+     * @return A handle wrapping the string
+     */
+    public static ContentHandle ofString(String content) {
+        if (content == null) {
+            throw new NullPointerException("Content cannot be null");
+        }
+        return content.isEmpty() ? EMPTY : new ContentHandle(content, null, false);
+    }
+
+    /**
+     * Creates a handle that reads the content from a UTF-8 file on demand.
+     * @param path File holding the content
+     * @return A lazy handle for the file
+     */
+    public static ContentHandle ofFile(Path path) {
+        if (path == null) {
+            throw new NullPointerException("File path cannot be null");
+        }
+        return new ContentHandle(null, path, false);
+    }
+
+    /**
+     * Creates a handle that decompresses the content from a gzip file on demand.
+     * @param path Gzip file holding the UTF-8 content
+     * @return A lazy handle for the file
+     */
+    public static ContentHandle ofGzipFile(Path path) {
+        if (path == null) {
+            throw new NullPointerException("File path cannot be null");
+        }
+        return new ContentHandle(null, path, true);
+    }
+
+    /**
+     * @return true if the content is held in memory
+     */
+    public boolean isInMemory() {
+        return path == null;
+    }
+
+    /**
+     * Opens a reader over the content without loading it all at once.
+     * @return A reader positioned at the start of the content
+     * @throws IOException if the backing file cannot be opened
+     */
+    public Reader openReader() throws IOException {
+        if (isInMemory()) {
+            return new StringReader(content);
+        }
+        if (compressed) {
+            return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedReader(path);
+    }
+
+    /**
+     * Loads the whole content into a string.
+     * @return The content
+     * @throws IOException if the backing file cannot be read
+     */
+    public String load() throws IOException {
+        if (isInMemory()) {
+            return content;
+        }
+        if (compressed) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        return Files.readString(path);
+    }
+}
@@ -0,0 +1,19 @@
+package com.codetransformer.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads the content of a code file on demand.
+ * Lets {@link FileNode}s defer reading until a renderer needs the text.
+ */
+@FunctionalInterface
+public interface ContentLoader {
+    /**
+     * Loads the content of a file.
+     * @param path Path of the file
+     * @return The file content, truncated if the file is too large
+     * @throws IOException if the file cannot be read
+     */
+    String load(Path path) throws IOException;
+}
@@ -0,0 +1,79 @@
+package com.codetransformer.model;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A directory found while scanning a directory tree.
+ * Holds its children in output order together with the totals of its subtree.
+ * Subdirectories without code files are kept but flagged as pruned; they are left out
+ * of {@link #getChildren()} and therefore out of the transformation output.
+ */
+public final class DirectoryNode extends TreeNode {
+    private final List<TreeNode> children;
+    private final List<TreeNode> allChildren;
+    private final int fileCount;
+    private final long totalBytes;
+
+    /**
+     * Creates a directory node and computes its subtree totals.
+     * @param path Path of the directory
+     * @param depth Depth below the scanned root
+     * @param children Children in output order, including pruned directories
+     */
+    public DirectoryNode(Path path, int depth, List<TreeNode> children) {
+        super(path, depth);
+        this.allChildren = List.copyOf(children);
+        List<TreeNode> kept = new ArrayList<>(allChildren.size());
+        int files = 0;
+        long bytes = 0;
+        for (TreeNode child : allChildren) {
+            files += child.getFileCount();
+            bytes += child.getTotalBytes();
+            if (child.getFileCount() > 0) {
+                kept.add(child);
+            }
+        }
+        this.children = kept.size() == allChildren.size() ? allChildren : List.copyOf(kept);
+        this.fileCount = files;
+        this.totalBytes = bytes;
+    }
+
+    /**
+     * @return Immutable list of the children that appear in the output, in output order
+     */
+    public List<TreeNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return Immutable list of all children, including pruned directories, in output order
+     */
+    public List<TreeNode> getAllChildren() {
+        return allChildren;
+    }
+
+    /**
+     * @return true if this directory holds no code files and is therefore left out of the output;
+     *         the scanned root is never pruned
+     */
+    public boolean isPruned() {
+        return fileCount == 0 && getDepth() > 0;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return true;
+    }
+
+    @Override
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,117 @@
+package com.codetransformer.model;
+
+import com.codetransformer.util.TokenEstimator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.OptionalLong;
+
+/**
+ * A code file found while scanning a directory tree.
+ * The content is not held by the node; it is loaded on demand and its hash and token count
+ * are remembered once a renderer has computed them.
+ */
+public final class FileNode extends TreeNode {
+    private final long size;
+    private final long lastModified;
+    private final ContentLoader contentLoader;
+    private volatile long contentHash;
+    private volatile boolean hashed;
+    private volatile long tokenCount = -1L;
+
+    /**
+     * Creates a file node.
+     * @param path Path of the file
+     * @param depth Depth below the scanned root
+     * @param size Size of the file in bytes
+     * @param lastModified Last modification time in milliseconds since the epoch
+     * @param contentLoader Loader used to read the content on demand
+     */
+    public FileNode(Path path, int depth, long size, long lastModified, ContentLoader contentLoader) {
+        super(path, depth);
+        if (contentLoader == null) {
+            throw new NullPointerException("Content loader cannot be null");
+        }
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentLoader = contentLoader;
+    }
+
+    /**
+     * @return Size of the file in bytes, as seen during the scan
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return Last modification time in milliseconds since the epoch, as seen during the scan
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Reads the content of the file. Nothing is cached, so every call reads the file again.
+     * @return The file content
+     * @throws IOException if the file cannot be read
+     */
+    public String loadContent() throws IOException {
+        return contentLoader.load(getPath());
+    }
+
+    /**
+     * @return Hash of the file content, if a renderer has computed or reused it during this run
+     */
+    public OptionalLong getContentHash() {
+        return hashed ? OptionalLong.of(contentHash) : OptionalLong.empty();
+    }
+
+    /**
+     * Remembers the hash of the file content.
+     * @param contentHash Hash as computed by {@link com.codetransformer.util.ContentHash}
+     */
+    public void recordContentHash(long contentHash) {
+        this.contentHash = contentHash;
+        this.hashed = true;
+    }
+
+    /**
+     * @return Estimated tokens of the file content, if they were counted during this run or an earlier one
+     */
+    public OptionalLong getTokenCount() {
+        long count = tokenCount;
+        return count >= 0 ? OptionalLong.of(count) : OptionalLong.empty();
+    }
+
+    /**
+     * Remembers the estimated tokens of the file content.
+     * @param tokenCount Tokens as estimated by {@link TokenEstimator}
+     */
+    public void recordTokenCount(long tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * @return The counted tokens of the content, or an estimate from the file size if they were never counted
+     */
+    public long getEstimatedTokens() {
+        long count = tokenCount;
+        return count >= 0 ? count : TokenEstimator.estimateFromSize(size);
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return false;
+    }
+
+    @Override
+    public int getFileCount() {
+        return 1;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return size;
+    }
+}
@@ -0,0 +1,80 @@
+package com.codetransformer.model;
+
+import java.nio.file.Path;
+
+/**
+ * Snapshot of the progress of a running transformation.
+ * Events are coalesced, so consecutive events may skip any number of files.
+ */
+public final class ProgressEvent {
+    private final long filesDone;
+    private final long totalFiles;
+    private final long bytesDone;
+    private final long elapsedNanos;
+    private final Path currentPath;
+
+    /**
+     * Creates a progress event.
+     * @param filesDone Number of files written so far
+     * @param totalFiles Number of files in the work plan
+     * @param bytesDone Number of bytes read so far
+     * @param elapsedNanos Time since the transformation started
+     * @param currentPath File being processed, or null before the first file
+     */
+    public ProgressEvent(long filesDone, long totalFiles, long bytesDone, long elapsedNanos, Path currentPath) {
+        this.filesDone = filesDone;
+        this.totalFiles = totalFiles;
+        this.bytesDone = bytesDone;
+        this.elapsedNanos = elapsedNanos;
+        this.currentPath = currentPath;
+    }
+
+    public long getFilesDone() {
+        return filesDone;
+    }
+
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return File being processed, or null before the first file
+     */
+    public Path getCurrentPath() {
+        return currentPath;
+    }
+
+    /**
+     * @return true once every file of the work plan has been written
+     */
+    public boolean isComplete() {
+        return filesDone >= totalFiles;
+    }
+
+    /**
+     * @return Average read throughput since the start, in bytes per second
+     */
+    public long getBytesPerSecond() {
+        return elapsedNanos > 0 ? (long) (bytesDone * 1e9 / elapsedNanos) : 0L;
+    }
+
+    /**
+     * Estimates the remaining time from the average time per file so far.
+     * @return Estimated remaining milliseconds, or -1 before the first file is done
+     */
+    public long getEstimatedRemainingMillis() {
+        if (filesDone == 0) {
+            return -1L;
+        }
+        long remainingFiles = Math.max(0L, totalFiles - filesDone);
+        return (long) (elapsedNanos / 1e6 * remainingFiles / filesDone);
+    }
+}
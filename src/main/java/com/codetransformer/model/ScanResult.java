@@ -0,0 +1,175 @@
+package com.codetransformer.model;
+
+import com.codetransformer.metrics.MetricsSummary;
+import com.codetransformer.util.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Result of a size pre-scan of a directory tree.
+ * Besides the totals, it holds the pruned tree of code files, which serves as the
+ * work plan for the transformation so that the tree is only listed once.
+ * The token estimate uses the counts of files read in earlier runs and the file size for the rest.
+ */
+public final class ScanResult {
+    private final DirectoryNode root;
+    private final List<FileNode> largestFiles;
+    private final List<DirectoryNode> directories;
+    private final MetricsSummary scanMetrics;
+    private final int largestFileLimit;
+    private final long estimatedTokens;
+
+    /**
+     * Creates a scan result for the given tree.
+     * @param root Root of the scanned tree
+     * @param largestFileLimit Number of largest files to keep
+     */
+    public ScanResult(DirectoryNode root, int largestFileLimit) {
+        this(root, largestFileLimit, MetricsSummary.EMPTY);
+    }
+
+    /**
+     * Creates a scan result for the given tree together with the metrics of the scan.
+     * @param root Root of the scanned tree
+     * @param largestFileLimit Number of largest files to keep
+     * @param scanMetrics Metrics recorded while scanning
+     */
+    public ScanResult(DirectoryNode root, int largestFileLimit, MetricsSummary scanMetrics) {
+        this.root = root;
+        this.scanMetrics = scanMetrics;
+        this.largestFileLimit = largestFileLimit;
+        List<DirectoryNode> allDirectories = new ArrayList<>();
+        PriorityQueue<FileNode> largest = new PriorityQueue<>(Comparator.comparingLong(FileNode::getSize));
+        collect(root, allDirectories, largest, largestFileLimit);
+
+        List<FileNode> sortedLargest = new ArrayList<>(largest);
+        sortedLargest.sort(Comparator.comparingLong(FileNode::getSize).reversed());
+        this.largestFiles = Collections.unmodifiableList(sortedLargest);
+        this.directories = Collections.unmodifiableList(allDirectories);
+        this.estimatedTokens = estimateTokens(root);
+    }
+
+    /**
+     * @return Root of the pruned code tree
+     */
+    public DirectoryNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return Listing and filtering metrics of the scan
+     */
+    public MetricsSummary getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * @return Number of code files that will be transformed
+     */
+    public int getFileCount() {
+        return root.getFileCount();
+    }
+
+    /**
+     * @return Total size, in bytes, of the code files that will be transformed
+     */
+    public long getTotalBytes() {
+        return root.getTotalBytes();
+    }
+
+    /**
+     * @return The largest code files, biggest first
+     */
+    public List<FileNode> getLargestFiles() {
+        return largestFiles;
+    }
+
+    /**
+     * @return Estimated tokens of the output, including the headers that frame files and directories
+     */
+    public long getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    /**
+     * Packs the code files into a token budget. Files are taken in output order, and every file
+     * that still fits is kept, so smaller files later in the tree fill the room a large one left.
+     * @param tokenBudget Maximum estimated tokens of the output
+     * @return This result if everything fits, otherwise the result for the packed tree
+     */
+    public ScanResult packInto(long tokenBudget) {
+        if (estimatedTokens <= tokenBudget) {
+            return this;
+        }
+        // Directory headers are paid up front, so a directory that loses all its files only frees room
+        Packer packer = new Packer(tokenBudget - (long) directories.size() * TokenEstimator.DIRECTORY_HEADER_TOKENS);
+        return new ScanResult(packer.pack(root), largestFileLimit, scanMetrics);
+    }
+
+    /**
+     * @return Every directory of the pruned tree in output order, each carrying its subtree totals
+     */
+    public List<DirectoryNode> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Estimates the tokens of the output of a tree from the counts currently recorded on its files.
+     * @param dir Root of the tree
+     * @return Estimated tokens, including the headers that frame files and directories
+     */
+    public static long estimateTokens(DirectoryNode dir) {
+        long tokens = TokenEstimator.DIRECTORY_HEADER_TOKENS;
+        for (TreeNode child : dir.getChildren()) {
+            tokens += child.isDirectory() ? estimateTokens((DirectoryNode) child)
+                : TokenEstimator.FILE_BLOCK_TOKENS + ((FileNode) child).getEstimatedTokens();
+        }
+        return tokens;
+    }
+
+    /**
+     * First-fit packing of files into the tokens left in a budget.
+     */
+    private static final class Packer {
+        private long remaining;
+
+        Packer(long remaining) {
+            this.remaining = remaining;
+        }
+
+        DirectoryNode pack(DirectoryNode dir) {
+            List<TreeNode> kept = new ArrayList<>(dir.getAllChildren().size());
+            for (TreeNode child : dir.getAllChildren()) {
+                if (child.isDirectory()) {
+                    kept.add(pack((DirectoryNode) child));
+                } else {
+                    long cost = TokenEstimator.FILE_BLOCK_TOKENS + ((FileNode) child).getEstimatedTokens();
+                    if (cost <= remaining) {
+                        remaining -= cost;
+                        kept.add(child);
+                    }
+                }
+            }
+            return new DirectoryNode(dir.getPath(), dir.getDepth(), kept);
+        }
+    }
+
+    private static void collect(DirectoryNode dir, List<DirectoryNode> directories,
+                                PriorityQueue<FileNode> largest, int limit) {
+        directories.add(dir);
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                collect((DirectoryNode) child, directories, largest, limit);
+            } else if (limit > 0) {
+                largest.add((FileNode) child);
+                if (largest.size() > limit) {
+                    largest.poll();
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,63 @@
 package com.codetransformer.model;
 
+import com.codetransformer.metrics.MetricsSummary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
 /**
  * Represents the result of a code transformation operation.
  * Immutable data class following Clean Code principles.
  */
 public class TransformationResult {
-    private final String content;
+    private final ContentHandle content;
     private final String outputPath;
     private final boolean success;
     private final String errorMessage;
+    private final int cacheHits;
+    private final int cacheMisses;
+    private final MetricsSummary metrics;
+    private final boolean cancelled;
+    private final long estimatedTokens;
+    private final List<String> parts;
+    private final int duplicateFiles;
+    private final long deduplicatedBytes;
+    private final List<LanguageReduction> minification;
 
     private TransformationResult(Builder builder) {
         this.content = builder.content;
         this.outputPath = builder.outputPath;
         this.success = builder.success;
         this.errorMessage = builder.errorMessage;
+        this.cacheHits = builder.cacheHits;
+        this.cacheMisses = builder.cacheMisses;
+        this.metrics = builder.metrics;
+        this.cancelled = builder.cancelled;
+        this.estimatedTokens = builder.estimatedTokens;
+        this.parts = builder.parts;
+        this.duplicateFiles = builder.duplicateFiles;
+        this.deduplicatedBytes = builder.deduplicatedBytes;
+        this.minification = builder.minification;
     }
 
+    /**
+     * Returns the transformed content, reading it from the output file if it was streamed.
+     * @return The transformed content
+     * @throws UncheckedIOException if the streamed output cannot be read
+     */
     public String getContent() {
+        try {
+            return content.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return Handle to the transformed content, which may be backed by the output file
+     */
+    public ContentHandle getContentHandle() {
         return content;
     }
 
@@ -33,16 +73,152 @@ public class TransformationResult {
         return errorMessage;
     }
 
+    /**
+     * @return true if the transformation was stopped through its cancellation token
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return Number of files copied unchanged from the previous output by the incremental cache
+     */
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return Number of files read from disk while the incremental cache was enabled
+     */
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return Per-phase timings and counters of the transformation, including its scan
+     */
+    public MetricsSummary getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return Estimated tokens of the output, counted while its files were read
+     */
+    public long getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    /**
+     * @return Paths of the parts the output was split into, in order; empty when it was not split
+     */
+    public List<String> getParts() {
+        return parts;
+    }
+
+    /**
+     * @return Number of files written as a reference to an identical earlier file
+     */
+    public int getDuplicateFiles() {
+        return duplicateFiles;
+    }
+
+    /**
+     * @return Output bytes saved by writing duplicates as references
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    /**
+     * @return Reduction of every minified language, ordered by language; empty when nothing was minified
+     */
+    public List<LanguageReduction> getMinification() {
+        return minification;
+    }
+
+    /**
+     * How much minification shrank the files of one language.
+     */
+    public static final class LanguageReduction {
+        private final String language;
+        private final int files;
+        private final long originalChars;
+        private final long minifiedChars;
+
+        /**
+         * Creates the reduction of one language.
+         * @param language File extension naming the language
+         * @param files Number of minified files
+         * @param originalChars Characters of the files before minification
+         * @param minifiedChars Characters of the files after minification
+         */
+        public LanguageReduction(String language, int files, long originalChars, long minifiedChars) {
+            this.language = language;
+            this.files = files;
+            this.originalChars = originalChars;
+            this.minifiedChars = minifiedChars;
+        }
+
+        /**
+         * @return File extension naming the language
+         */
+        public String getLanguage() {
+            return language;
+        }
+
+        /**
+         * @return Number of minified files
+         */
+        public int getFiles() {
+            return files;
+        }
+
+        /**
+         * @return Characters of the files before minification
+         */
+        public long getOriginalChars() {
+            return originalChars;
+        }
+
+        /**
+         * @return Characters of the files after minification
+         */
+        public long getMinifiedChars() {
+            return minifiedChars;
+        }
+
+        /**
+         * @return Share of the characters that minification removed, from 0 to 1
+         */
+        public double getRatio() {
+            return originalChars == 0 ? 0 : 1 - (double) minifiedChars / originalChars;
+        }
+    }
+
     /**
      * Builder pattern implementation for clean and flexible object creation.
      */
     public static class Builder {
-        private String content = "";
+        private ContentHandle content = ContentHandle.ofString("");
         private String outputPath = "";
         private boolean success = false;
         private String errorMessage = "";
+        private int cacheHits = 0;
+        private int cacheMisses = 0;
+        private MetricsSummary metrics = MetricsSummary.EMPTY;
+        private boolean cancelled = false;
+        private long estimatedTokens = 0;
+        private List<String> parts = List.of();
+        private int duplicateFiles = 0;
+        private long deduplicatedBytes = 0;
+        private List<LanguageReduction> minification = List.of();
 
         public Builder withContent(String content) {
+            this.content = ContentHandle.ofString(content);
+            return this;
+        }
+
+        public Builder withContentHandle(ContentHandle content) {
             this.content = content;
             return this;
         }
@@ -62,6 +238,43 @@ public class TransformationResult {
             return this;
         }
 
+        public Builder withCacheStatistics(int cacheHits, int cacheMisses) {
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsSummary metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder withCancelled(boolean cancelled) {
+            this.cancelled = cancelled;
+            return this;
+        }
+
+        public Builder withEstimatedTokens(long estimatedTokens) {
+            this.estimatedTokens = estimatedTokens;
+            return this;
+        }
+
+        public Builder withParts(List<String> parts) {
+            this.parts = List.copyOf(parts);
+            return this;
+        }
+
+        public Builder withDeduplication(int duplicateFiles, long deduplicatedBytes) {
+            this.duplicateFiles = duplicateFiles;
+            this.deduplicatedBytes = deduplicatedBytes;
+            return this;
+        }
+
+        public Builder withMinification(List<LanguageReduction> minification) {
+            this.minification = List.copyOf(minification);
+            return this;
+        }
+
         public TransformationResult build() {
             return new TransformationResult(this);
         }
@@ -0,0 +1,47 @@
+package com.codetransformer.model;
+
+import java.nio.file.Path;
+
+/**
+ * Node of a scanned code tree: either a directory or a code file.
+ * The tree is the document model of a run: built once by the scan, then consumed by every
+ * renderer. Its structure is immutable and ordered exactly as it appears in the transformation output.
+ */
+public abstract class TreeNode {
+    private final Path path;
+    private final int depth;
+
+    protected TreeNode(Path path, int depth) {
+        if (path == null) {
+            throw new NullPointerException("Path cannot be null");
+        }
+        this.path = path;
+        this.depth = depth;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return Depth below the scanned root, which itself has depth 0
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return true if this node is a {@link DirectoryNode}
+     */
+    public abstract boolean isDirectory();
+
+    /**
+     * @return Number of code files in this node's subtree
+     */
+    public abstract int getFileCount();
+
+    /**
+     * @return Size on disk, in bytes, of all code files in this node's subtree
+     */
+    public abstract long getTotalBytes();
+}
@@ -0,0 +1,155 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.BatchResult;
+import com.codetransformer.model.ContentHandle;
+import com.codetransformer.model.ScanResult;
+import com.codetransformer.model.TransformationResult;
+import com.codetransformer.util.FileService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transforms many source directories in one process, each into its own {@code _code_only.txt}.
+ * All roots run through a single service, so they share its worker pool, its reader threads and
+ * its extension decisions, and startup and JIT warm-up are paid once for the whole batch.
+ * A fixed number of roots run at a time; each gets the same number of outstanding reads and an
+ * equal slice of the read budget, so one large root cannot starve the others of I/O.
+ */
+public final class BatchProcessor implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(BatchProcessor.class.getName());
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final DirectoryProcessorService service;
+    private final int concurrentRoots;
+    private final int maxFilesPerRoot;
+    private final boolean compressed;
+
+    /**
+     * Creates a batch processor.
+     * @param fileService The file service to use
+     * @param options Processing options of every root; the read budget is divided among the concurrent
+     *                roots and any output path is ignored, each root's output is placed next to it
+     * @param concurrentRoots Number of roots transformed at the same time
+     * @param maxFilesPerRoot Number of code files above which a root fails instead of being transformed
+     */
+    public BatchProcessor(FileService fileService, ProcessingOptions options, int concurrentRoots,
+                          int maxFilesPerRoot) {
+        if (concurrentRoots <= 0) {
+            throw new IllegalArgumentException("Concurrent roots must be positive");
+        }
+        if (maxFilesPerRoot <= 0) {
+            throw new IllegalArgumentException("Max files per root must be positive");
+        }
+        ProcessingOptions shared = new ProcessingOptions.Builder(options)
+            .withReadBudget(Math.max(1, options.getReadBudget() / concurrentRoots))
+            .withOutputPath(null)
+            .build();
+        this.service = new DirectoryProcessorServiceImpl(fileService, shared);
+        this.concurrentRoots = concurrentRoots;
+        this.compressed = options.isCompressed();
+        this.maxFilesPerRoot = maxFilesPerRoot;
+    }
+
+    /**
+     * Transforms the given roots. A root that fails does not stop the others.
+     * Each root's result refers to its output file, so no content is held in memory.
+     * @param roots Source directories
+     * @return Results of the roots in the given order, with the aggregate throughput
+     * @throws InterruptedException if the calling thread is interrupted; running roots are interrupted too
+     */
+    public BatchResult process(List<Path> roots) throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrentRoots, roots.size())),
+            task -> {
+                Thread thread = new Thread(task, "batch-root-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        try {
+            List<Future<BatchResult.RootResult>> pending = new ArrayList<>(roots.size());
+            for (Path root : roots) {
+                pending.add(executor.submit(() -> processRoot(root)));
+            }
+            List<BatchResult.RootResult> results = new ArrayList<>(roots.size());
+            for (Future<BatchResult.RootResult> result : pending) {
+                results.add(result.get());
+            }
+            return new BatchResult(results, System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch root failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shuts down the worker threads shared by the roots.
+     */
+    @Override
+    public void close() {
+        service.close();
+    }
+
+    /**
+     * Scans and transforms one root, turning every failure into a failed result.
+     * @param root Source directory
+     * @return Result of the root
+     */
+    private BatchResult.RootResult processRoot(Path root) {
+        long start = System.nanoTime();
+        Path dir = root.toAbsolutePath().normalize();
+        TransformationResult result;
+        try {
+            ScanResult scan = service.scanDirectory(dir);
+            if (scan.getFileCount() > maxFilesPerRoot) {
+                result = failure(scan.getFileCount() + " code files exceed the limit of " + maxFilesPerRoot);
+            } else {
+                result = release(service.processDirectory(scan));
+            }
+        } catch (IOException e) {
+            result = failure("Error processing directory: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unexpected failure processing " + dir, e);
+            result = failure("Error processing directory: " + e);
+        }
+        return new BatchResult.RootResult(dir, result, System.nanoTime() - start);
+    }
+
+    // Replaces in-memory content with a handle to the output file
+    private TransformationResult release(TransformationResult result) {
+        if (!result.isSuccess()) {
+            return result;
+        }
+        return new TransformationResult.Builder()
+            .withContentHandle(compressed ? ContentHandle.ofGzipFile(Path.of(result.getOutputPath()))
+                : ContentHandle.ofFile(Path.of(result.getOutputPath())))
+            .withOutputPath(result.getOutputPath())
+            .withCacheStatistics(result.getCacheHits(), result.getCacheMisses())
+            .withMetrics(result.getMetrics())
+            .withEstimatedTokens(result.getEstimatedTokens())
+            .withParts(result.getParts())
+            .withDeduplication(result.getDuplicateFiles(), result.getDeduplicatedBytes())
+            .withMinification(result.getMinification())
+            .withSuccess(true)
+            .build();
+    }
+
+    private static TransformationResult failure(String message) {
+        return new TransformationResult.Builder()
+            .withErrorMessage(message)
+            .withSuccess(false)
+            .build();
+    }
+}
@@ -0,0 +1,256 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.util.ContentHash;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On-disk manifest describing a previously written output file.
+ * For every file it records size, modification time, content hash, estimated tokens and the
+ * byte range of the file's block in the output; for every directory it records a Merkle-style hash over
+ * its children and the byte range of its whole subtree.
+ *
+ * <p>The manifest is a tab-separated text file stored next to the output. It is only trusted
+ * if the output still has the size and modification time recorded when it was written.</p>
+ */
+final class CacheManifest {
+    private static final Logger LOGGER = Logger.getLogger(CacheManifest.class.getName());
+    private static final String HEADER = "# code-transformer manifest v3";
+    private static final String FILE_TAG = "F";
+    private static final String DIRECTORY_TAG = "D";
+
+    /**
+     * A manifest entry for a file or a directory.
+     */
+    static final class Entry {
+        final boolean directory;
+        final long size;
+        final long lastModified;
+        final long hash;
+        final long tokens;
+        final long offset;
+        final long length;
+
+        private Entry(boolean directory, long size, long lastModified, long hash, long tokens, long offset,
+                      long length) {
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.tokens = tokens;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Creates a file entry.
+         * @param size File size in bytes
+         * @param lastModified Modification time in milliseconds
+         * @param hash Content hash
+         * @param tokens Estimated tokens of the content, or -1 if they were not counted
+         * @param offset Start of the file block in the output
+         * @param length Length of the file block in bytes
+         * @return The entry
+         */
+        static Entry file(long size, long lastModified, long hash, long tokens, long offset, long length) {
+            return new Entry(false, size, lastModified, hash, tokens, offset, length);
+        }
+
+        /**
+         * Creates a directory entry.
+         * @param fileCount Number of files in the subtree
+         * @param hash Merkle hash of the subtree
+         * @param offset Start of the subtree in the output
+         * @param length Length of the subtree in bytes
+         * @return The entry
+         */
+        static Entry directory(long fileCount, long hash, long offset, long length) {
+            return new Entry(true, fileCount, 0L, hash, -1L, offset, length);
+        }
+
+        /**
+         * Returns a copy of this entry moved to a new offset.
+         * @param delta Distance to move the entry by
+         * @return The moved entry
+         */
+        Entry shift(long delta) {
+            return new Entry(directory, size, lastModified, hash, tokens, offset + delta, length);
+        }
+    }
+
+    private final String rootKey;
+    private final long outputModified;
+    private final Map<String, Entry> entries;
+
+    private CacheManifest(String rootKey, long outputModified, Map<String, Entry> entries) {
+        this.rootKey = rootKey;
+        this.outputModified = outputModified;
+        this.entries = entries;
+    }
+
+    /**
+     * Creates an empty manifest that can be filled while rendering.
+     * @param root Root of the transformed tree
+     * @return An empty manifest
+     */
+    static CacheManifest create(Path root) {
+        return new CacheManifest(rootKey(root), -1L, new LinkedHashMap<>());
+    }
+
+    /**
+     * Loads the manifest written for the given root and output.
+     * An empty manifest is returned if none exists, it belongs to another root or settings,
+     * or the output was changed since the manifest was written.
+     * @param manifestPath Path of the manifest file
+     * @param root Root of the tree about to be transformed
+     * @param outputPath Path of the previous output
+     * @return The loaded manifest, possibly empty
+     */
+    static CacheManifest load(Path manifestPath, Path root, Path outputPath) {
+        String expectedRoot = rootKey(root);
+        try (BufferedReader reader = Files.newBufferedReader(manifestPath)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return create(root);
+            }
+            String[] rootLine = split(reader.readLine(), 2);
+            String[] outputLine = split(reader.readLine(), 3);
+            if (rootLine == null || outputLine == null || !"root".equals(rootLine[0])
+                    || !expectedRoot.equals(rootLine[1]) || !"output".equals(outputLine[0])) {
+                return create(root);
+            }
+            long outputSize = Long.parseLong(outputLine[1]);
+            long outputModified = Long.parseLong(outputLine[2]);
+            if (Files.size(outputPath) != outputSize
+                    || Files.getLastModifiedTime(outputPath).toMillis() != outputModified) {
+                return create(root);
+            }
+
+            Map<String, Entry> entries = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 8);
+                if (fields.length != 8) {
+                    return create(root);
+                }
+                Entry entry = FILE_TAG.equals(fields[0])
+                    ? Entry.file(Long.parseLong(fields[1]), Long.parseLong(fields[2]), ContentHash.fromHex(fields[3]),
+                        Long.parseLong(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6]))
+                    : Entry.directory(Long.parseLong(fields[1]),
+                        ContentHash.fromHex(fields[3]), Long.parseLong(fields[5]), Long.parseLong(fields[6]));
+                entries.put(fields[7], entry);
+            }
+            return new CacheManifest(expectedRoot, outputModified, entries);
+        } catch (NoSuchFileException e) {
+            return create(root);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable cache manifest: " + manifestPath, e);
+            return create(root);
+        }
+    }
+
+    /**
+     * @return true if the manifest has no entries
+     */
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return Modification time of the output the manifest describes, or -1 for a new manifest
+     */
+    long getOutputModified() {
+        return outputModified;
+    }
+
+    /**
+     * Looks up an entry.
+     * @param relativePath Path relative to the root, as produced by {@link #key(Path, Path)}
+     * @return The entry, or null if there is none
+     */
+    Entry get(String relativePath) {
+        return entries.get(relativePath);
+    }
+
+    /**
+     * Adds or replaces an entry.
+     * @param relativePath Path relative to the root
+     * @param entry The entry
+     */
+    void put(String relativePath, Entry entry) {
+        entries.put(relativePath, entry);
+    }
+
+    /**
+     * Writes the manifest for a freshly written output.
+     * The file is written to a temporary sibling first and then moved into place.
+     * @param manifestPath Path of the manifest file
+     * @param outputPath Output described by this manifest
+     * @throws IOException if writing fails
+     */
+    void save(Path manifestPath, Path outputPath) throws IOException {
+        Path tempPath = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            writer.write("root\t" + rootKey + '\n');
+            writer.write("output\t" + Files.size(outputPath) + '\t'
+                + Files.getLastModifiedTime(outputPath).toMillis() + '\n');
+            for (Map.Entry<String, Entry> mapping : entries.entrySet()) {
+                Entry entry = mapping.getValue();
+                writer.write(entry.directory ? DIRECTORY_TAG : FILE_TAG);
+                writer.write('\t' + Long.toString(entry.size));
+                writer.write('\t' + Long.toString(entry.lastModified));
+                writer.write('\t' + ContentHash.toHex(entry.hash));
+                writer.write('\t' + Long.toString(entry.tokens));
+                writer.write('\t' + Long.toString(entry.offset));
+                writer.write('\t' + Long.toString(entry.length));
+                writer.write('\t' + mapping.getKey());
+                writer.write('\n');
+            }
+        }
+        Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Builds the manifest key of a path. Paths containing line breaks cannot be stored and yield null.
+     * @param root Root of the transformed tree
+     * @param path Path inside the tree
+     * @return Relative path used as key, or null if the path cannot be recorded
+     */
+    static String key(Path root, Path path) {
+        String key = root.relativize(path).toString();
+        return key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0 ? null : key;
+    }
+
+    /**
+     * Identifies the root and every setting that changes the rendered bytes of a file.
+     */
+    private static String rootKey(Path root) {
+        return root.toAbsolutePath().normalize()
+            + "|" + FileProcessingConfig.DEFAULT_MAX_FILE_SIZE
+            + "|" + System.lineSeparator().length();
+    }
+
+    /**
+     * Splits a header line into the expected number of tab-separated fields.
+     */
+    private static String[] split(String line, int fields) {
+        if (line == null) {
+            return null;
+        }
+        String[] parts = line.split("\t", fields);
+        return parts.length == fields ? parts : null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.codetransformer.service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets a caller stop a running scan or transformation.
+ * The work checks the token between directory entries and between files. Cancelling also
+ * interrupts the thread that started the work, which aborts a file read or copy in progress,
+ * because file channels close when their thread is interrupted.
+ * A token is meant for a single run and cannot be reset.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+    private Thread owner;
+
+    /**
+     * Requests cancellation; the work stops at its next check or blocking read.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (owner != null) {
+            owner.interrupt();
+        }
+    }
+
+    /**
+     * @return true once {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops the calling task if cancellation was requested.
+     * @throws CancellationException if the token was cancelled
+     */
+    void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Transformation cancelled");
+        }
+    }
+
+    /**
+     * Makes the current thread the one interrupted on cancellation.
+     */
+    synchronized void attach() {
+        owner = Thread.currentThread();
+        if (cancelled) {
+            owner.interrupt();
+        }
+    }
+
+    /**
+     * Releases the current thread, clearing an interrupt that was caused by cancellation.
+     */
+    synchronized void detach() {
+        owner = null;
+        if (cancelled) {
+            Thread.interrupted();
+        }
+    }
+}
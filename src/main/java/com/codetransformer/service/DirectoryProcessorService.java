@@ -1,23 +1,103 @@
 package com.codetransformer.service;
 
+import com.codetransformer.model.ScanResult;
 import com.codetransformer.model.TransformationResult;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 
 /**
  * Service interface for processing directories and transforming their contents.
  * Follows Interface Segregation Principle by providing focused methods.
+ * A service owns worker threads, so it has to be closed once it is no longer used.
  */
-public interface DirectoryProcessorService {
+public interface DirectoryProcessorService extends Closeable {
     /**
      * Processes a directory and transforms its contents into a single text file.
      * Only includes code files, skipping documentation and other non-code files.
+     * In streaming mode the output is written while files are read and the result
+     * only holds a lazy handle to the output file.
      * 
      * @param sourceDir Source directory to process
      * @return TransformationResult containing the processed content
      */
     TransformationResult processDirectory(Path sourceDir);
 
+    /**
+     * Transforms a directory that has already been scanned with {@link #scanDirectory(Path)}.
+     * The scan result is used as the work plan, so the tree is not listed again.
+     * 
+     * @param plan Scan result of the source directory
+     * @return TransformationResult containing the processed content
+     */
+    TransformationResult processDirectory(ScanResult plan);
+
+    /**
+     * Processes a directory like {@link #processDirectory(Path)}, reporting progress while the
+     * files are read. Progress events are coalesced, and a final event follows the last file.
+     * 
+     * @param sourceDir Source directory to process
+     * @param listener Listener receiving progress events on a worker thread
+     * @return TransformationResult containing the processed content
+     */
+    TransformationResult processDirectory(Path sourceDir, ProgressListener listener);
+
+    /**
+     * Transforms a scanned directory like {@link #processDirectory(ScanResult)}, reporting
+     * progress against the number of files in the plan.
+     * 
+     * @param plan Scan result of the source directory
+     * @param listener Listener receiving progress events on a worker thread
+     * @return TransformationResult containing the processed content
+     */
+    TransformationResult processDirectory(ScanResult plan, ProgressListener listener);
+
+    /**
+     * Processes a directory like {@link #processDirectory(Path, ProgressListener)} until the token
+     * is cancelled. A cancelled run stops between files or during a blocking read, deletes its
+     * partial streamed output and returns a result for which {@link TransformationResult#isCancelled()} is true.
+     * 
+     * @param sourceDir Source directory to process
+     * @param listener Listener receiving progress events on a worker thread
+     * @param cancellation Token that stops the run
+     * @return TransformationResult containing the processed content
+     */
+    TransformationResult processDirectory(Path sourceDir, ProgressListener listener, CancellationToken cancellation);
+
+    /**
+     * Transforms a scanned directory like {@link #processDirectory(ScanResult, ProgressListener)}
+     * until the token is cancelled.
+     * 
+     * @param plan Scan result of the source directory
+     * @param listener Listener receiving progress events on a worker thread
+     * @param cancellation Token that stops the run
+     * @return TransformationResult containing the processed content
+     */
+    TransformationResult processDirectory(ScanResult plan, ProgressListener listener,
+                                          CancellationToken cancellation);
+
+    /**
+     * Scans a directory in a single pass, gathering the number and total size of the code
+     * files that would be transformed, the largest files and per-directory totals.
+     * Excluded and too-deep directories are skipped, just as during the transformation.
+     * 
+     * @param dir Directory to scan
+     * @return ScanResult that can be passed to {@link #processDirectory(ScanResult)}
+     * @throws IOException if the path is not a directory or cannot be listed
+     */
+    ScanResult scanDirectory(Path dir) throws IOException;
+
+    /**
+     * Scans a directory like {@link #scanDirectory(Path)} until the token is cancelled.
+     * 
+     * @param dir Directory to scan
+     * @param cancellation Token that stops the scan
+     * @return ScanResult that can be passed to {@link #processDirectory(ScanResult)}
+     * @throws IOException if the path is not a directory or cannot be listed
+     * @throws java.util.concurrent.CancellationException if the scan was cancelled
+     */
+    ScanResult scanDirectory(Path dir, CancellationToken cancellation) throws IOException;
+
     /**
      * Counts the number of code files in a directory and its subdirectories.
      * This is used to check if a codebase is too large before processing.
@@ -28,4 +108,11 @@ public interface DirectoryProcessorService {
      * @throws IOException if an error occurs during directory traversal
      */
     int countCodeFiles(Path dir, int maxFiles) throws IOException;
+
+    /**
+     * Shuts down the worker threads of the service. Running transformations finish, but the
+     * service cannot be used afterwards.
+     */
+    @Override
+    void close();
 } 
\ No newline at end of file
@@ -1,15 +1,32 @@
 package com.codetransformer.service;
 
 import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.metrics.FlightRecording;
+import com.codetransformer.metrics.JmxProcessingMetrics;
+import com.codetransformer.metrics.MetricsRecorder;
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.model.ContentHandle;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.ScanResult;
 import com.codetransformer.model.TransformationResult;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ChannelOutputWriter;
 import com.codetransformer.util.FileService;
 import com.codetransformer.util.FileUtils;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Implementation of the DirectoryProcessorService interface.
@@ -17,17 +34,23 @@ import java.util.stream.Collectors;
  * This implementation follows the same successful pattern from the reference project.
  */
 public class DirectoryProcessorServiceImpl implements DirectoryProcessorService {
-    private static final String LINE_SEPARATOR = System.lineSeparator();
-    private static final String FILE_SEPARATOR = "=".repeat(80) + LINE_SEPARATOR;
-    
+    private static final Logger LOGGER = Logger.getLogger(DirectoryProcessorServiceImpl.class.getName());
+
     // Use the FileService interface for file operations
     private final FileService fileService;
+    private final ProcessingOptions options;
+    private final ForkJoinPool pool;
+    private final DirectoryScanner scanner;
+    private final ParallelDirectoryTraversal traversal;
+    private final StreamingDirectoryWriter streamingWriter;
+    private final TokenCountCache tokenCounts = new TokenCountCache();
+    private FlightRecording flightRecording;
     
     /**
      * Constructs a new DirectoryProcessorServiceImpl instance.
      */
     public DirectoryProcessorServiceImpl() {
-        this.fileService = FileUtils.getInstance();
+        this(FileUtils.getInstance());
     }
     
     /**
@@ -37,175 +60,433 @@ public class DirectoryProcessorServiceImpl implements DirectoryProcessorService
      * @param fileService The file service to use
      */
     public DirectoryProcessorServiceImpl(FileService fileService) {
+        this(fileService, ProcessingOptions.defaults());
+    }
+
+    /**
+     * Constructs a new DirectoryProcessorServiceImpl with a specified file service and options.
+     * 
+     * @param fileService The file service to use
+     * @param options Processing options, such as the traversal parallelism and streaming mode
+     */
+    public DirectoryProcessorServiceImpl(FileService fileService, ProcessingOptions options) {
         this.fileService = fileService;
+        this.options = options;
+        this.pool = new ForkJoinPool(options.getParallelism());
+        this.scanner = new DirectoryScanner(fileService, pool);
+        this.traversal = new ParallelDirectoryTraversal(pool);
+        this.streamingWriter = new StreamingDirectoryWriter(
+            fileService, options.getOutstandingReads(), options.getReadBudget());
     }
 
     @Override
     public TransformationResult processDirectory(Path sourceDir) {
-        TransformationResult.Builder resultBuilder = new TransformationResult.Builder();
-        
+        return processDirectory(sourceDir, ProgressListener.NONE);
+    }
+
+    @Override
+    public TransformationResult processDirectory(ScanResult plan) {
+        return processDirectory(plan, ProgressListener.NONE);
+    }
+
+    @Override
+    public TransformationResult processDirectory(Path sourceDir, ProgressListener listener) {
+        return processDirectory(sourceDir, listener, new CancellationToken());
+    }
+
+    @Override
+    public TransformationResult processDirectory(ScanResult plan, ProgressListener listener) {
+        return processDirectory(plan, listener, new CancellationToken());
+    }
+
+    @Override
+    public TransformationResult processDirectory(Path sourceDir, ProgressListener listener,
+                                                 CancellationToken cancellation) {
+        return run(sourceDir, null, listener, cancellation);
+    }
+
+    @Override
+    public TransformationResult processDirectory(ScanResult plan, ProgressListener listener,
+                                                 CancellationToken cancellation) {
+        return run(null, plan, listener, cancellation);
+    }
+
+    @Override
+    public ScanResult scanDirectory(Path dir) throws IOException {
+        return scanDirectory(dir, new CancellationToken());
+    }
+
+    @Override
+    public ScanResult scanDirectory(Path dir, CancellationToken cancellation) throws IOException {
+        cancellation.attach();
         try {
-            validateDirectory(sourceDir);
-            String content = processDirectoryContent(sourceDir, 0);
-            String outputPath = determineOutputPath(sourceDir);
-            
-            fileService.writeFileContent(Path.of(outputPath), content);
-            
-            return resultBuilder
-                .withContent(content)
-                .withOutputPath(outputPath)
-                .withSuccess(true)
-                .build();
-                
+            return scan(dir, cancellation);
         } catch (IOException e) {
-            return resultBuilder
-                .withErrorMessage("Error processing directory: " + e.getMessage())
-                .withSuccess(false)
-                .build();
+            // A listing aborted by the interrupt is reported as the cancellation it is
+            if (cancellation.isCancelled()) {
+                throw new CancellationException("Scan cancelled");
+            }
+            throw e;
+        } finally {
+            cancellation.detach();
         }
     }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        streamingWriter.close();
+        closeFlightRecording();
+    }
+
+    /**
+     * Runs a transformation, scanning the source directory first unless a plan is given.
+     * With packing enabled, the plan is packed into the token budget first.
+     * The calling thread is attached to the token for the whole run.
+     * @param sourceDir Directory to scan, or null if a plan is given
+     * @param plan Scan result to transform, or null to scan the directory
+     * @param listener Listener receiving progress events
+     * @param cancellation Token that stops the run
+     * @return The result, which is cancelled if the token was cancelled
+     */
+    private TransformationResult run(Path sourceDir, ScanResult plan, ProgressListener listener,
+                                     CancellationToken cancellation) {
+        cancellation.attach();
+        try {
+            ScanResult scan = plan != null ? plan : scan(sourceDir, cancellation);
+            return transform(options.isPacking() ? scan.packInto(options.getTokenBudget()) : scan,
+                listener, cancellation);
+        } catch (CancellationException e) {
+            return cancelled();
+        } catch (IOException e) {
+            // Reads aborted by the interrupt fail with ClosedByInterruptException
+            return cancellation.isCancelled() ? cancelled() : failure(e);
+        } finally {
+            cancellation.detach();
+        }
+    }
+
+    /**
+     * Scans a directory and records the metrics of the scan.
+     * Files whose tokens were counted by an earlier run of this service keep their count.
+     * @param dir Directory to scan
+     * @param cancellation Token checked before each entry
+     * @return The scan result
+     * @throws IOException if the path is not a directory or cannot be listed
+     */
+    private ScanResult scan(Path dir, CancellationToken cancellation) throws IOException {
+        validateDirectory(dir);
+        startFlightRecording();
+        MetricsRecorder metrics = new MetricsRecorder(options.getMetrics());
+        JmxProcessingMetrics.getInstance().track(metrics, false);
+        DirectoryNode root = scanner.scan(dir, metrics, cancellation);
+        tokenCounts.apply(root);
+        return new ScanResult(root, FileProcessingConfig.LARGEST_FILES_REPORTED, metrics.snapshot());
+    }
     
+    /**
+     * Brings a scanned tree up to date after some of its directories changed.
+     * Only the changed directories are listed again; their unchanged subdirectories and the rest
+     * of the tree are kept as they are. Directories that are not part of the tree are ignored.
+     * @param plan Earlier scan result
+     * @param changedDirectories Directories whose entries were created, deleted or modified
+     * @param cancellation Token checked before each entry
+     * @return Scan result of the updated tree
+     * @throws IOException if a changed directory cannot be listed
+     */
+    ScanResult rescan(ScanResult plan, Collection<Path> changedDirectories, CancellationToken cancellation)
+            throws IOException {
+        MetricsRecorder metrics = new MetricsRecorder(options.getMetrics());
+        List<Path> deepestFirst = new ArrayList<>(changedDirectories);
+        // A directory is relisted after its changed subdirectories, so it picks up their new nodes
+        deepestFirst.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        DirectoryNode root = plan.getRoot();
+        for (Path dir : deepestFirst) {
+            if (Files.isDirectory(dir)) {
+                root = replaceDirectory(root, dir, metrics, cancellation);
+            }
+        }
+        tokenCounts.apply(root);
+        return new ScanResult(root, FileProcessingConfig.LARGEST_FILES_REPORTED, metrics.snapshot());
+    }
+
+    /**
+     * Relists one directory of a tree and rebuilds the directories on the path down to it.
+     * @param node Directory to search
+     * @param dir Directory to list again
+     * @param metrics Recorder of the rescan
+     * @param cancellation Token checked before each entry
+     * @return The node itself if the directory is not below it, otherwise its updated copy
+     * @throws IOException if the directory cannot be listed
+     */
+    private DirectoryNode replaceDirectory(DirectoryNode node, Path dir, MetricsRecorder metrics,
+                                           CancellationToken cancellation) throws IOException {
+        if (node.getPath().equals(dir)) {
+            return scanner.rescan(node, metrics, cancellation);
+        }
+        List<TreeNode> children = new ArrayList<>(node.getAllChildren());
+        for (int i = 0; i < children.size(); i++) {
+            TreeNode child = children.get(i);
+            if (child.isDirectory() && dir.startsWith(child.getPath())) {
+                DirectoryNode replaced = replaceDirectory((DirectoryNode) child, dir, metrics, cancellation);
+                if (replaced == child) {
+                    return node;
+                }
+                children.set(i, replaced);
+                return new DirectoryNode(node.getPath(), node.getDepth(), children);
+            }
+        }
+        return node;
+    }
+
     @Override
     public int countCodeFiles(Path dir, int maxFiles) throws IOException {
         if (!Files.isDirectory(dir)) {
             return 0;
         }
         
-        int count = 0;
+        long count;
         try (var paths = Files.walk(dir)) {
-            List<Path> files = paths.filter(Files::isRegularFile)
-                                    .filter(fileService::isCodeFile)
-                                    .limit(maxFiles + 1)
-                                    .collect(Collectors.toList());
-            
-            count = files.size();
+            count = paths.filter(Files::isRegularFile)
+                         .filter(fileService::isCodeFile)
+                         .limit(maxFiles)
+                         .count();
         }
         
-        return Math.min(count, maxFiles);
+        return (int) count;
     }
 
     /**
-     * Validates that the provided path is a directory.
-     * @param dir Path to validate
-     * @throws IOException if the path is not a directory
+     * Renders the planned tree and writes it to the output file.
+     * The metrics of the run continue from those recorded while scanning the plan, and the token
+     * counts recorded while rendering are kept for later scans.
+     * When a flight recording is configured, it is written out once the run ends.
+     * @param plan Scan result of the source directory
+     * @param listener Listener receiving progress events
+     * @param cancellation Token checked before each file
+     * @return Successful TransformationResult
+     * @throws IOException if reading or writing fails
      */
-    private void validateDirectory(Path dir) throws IOException {
-        if (!Files.isDirectory(dir)) {
-            throw new IOException("Not a directory: " + dir);
+    private TransformationResult transform(ScanResult plan, ProgressListener listener,
+                                           CancellationToken cancellation) throws IOException {
+        TransformationResult.Builder resultBuilder = new TransformationResult.Builder();
+        Path sourceDir = plan.getRoot().getPath();
+        String outputPath = determineOutputPath(sourceDir);
+        ProgressTracker progress = new ProgressTracker(options.getMetrics(), listener, plan.getFileCount());
+        MetricsRecorder metrics = MetricsRecorder.continuing(plan.getScanMetrics(), progress);
+        LanguageMinifier minifier = options.isMinifying() ? new LanguageMinifier() : null;
+        DuplicateIndex duplicates = options.isDeduplicating()
+            ? DuplicateIndex.forTree(plan.getRoot(), minifier) : null;
+        // Only a started render counts, so every transformation counted as started is also finished
+        JmxProcessingMetrics.getInstance().track(metrics, true);
+        try {
+            render(plan, outputPath, duplicates, minifier, metrics, cancellation, resultBuilder);
+            progress.complete();
+        } finally {
+            JmxProcessingMetrics.getInstance().finished();
+            dumpFlightRecording();
+        }
+        tokenCounts.remember(plan.getRoot());
+        long estimatedTokens = ScanResult.estimateTokens(plan.getRoot());
+        if (duplicates != null) {
+            resultBuilder.withDeduplication(duplicates.getDuplicates(), duplicates.getSavedBytes());
+            estimatedTokens -= duplicates.getSavedTokens();
         }
+        if (minifier != null) {
+            resultBuilder.withMinification(minifier.getReductions());
+            estimatedTokens -= minifier.getSavedTokens();
+        }
+        
+        return resultBuilder
+            .withOutputPath(outputPath)
+            .withEstimatedTokens(estimatedTokens)
+            .withMetrics(metrics.snapshot())
+            .withSuccess(true)
+            .build();
     }
 
     /**
-     * Determines the output path for the transformed content.
-     * @param sourceDir Source directory
-     * @return String path for the output file
+     * Renders the plan in the configured mode, in memory, streamed, or through the incremental cache.
+     * An output that is split into several parts is always streamed, since the parts are cut from
+     * the output while it is being written. Output that was written to disk is handed on as a handle to
+     * the file and read back only if the content is asked for.
+     * @param plan Scan result of the source directory
+     * @param outputPath Output path
+     * @param duplicates Index replacing repeated content by references, or null
+     * @param minifier Minifier of the files of known languages, or null
+     * @param metrics Recorder of the run
+     * @param cancellation Token checked before each file
+     * @param resultBuilder Builder receiving the content and the parts
+     * @throws IOException if reading or writing fails
      */
-    private String determineOutputPath(Path sourceDir) {
-        return sourceDir.getParent().resolve(sourceDir.getFileName() + "_code_only.txt").toString();
+    private void render(ScanResult plan, String outputPath, DuplicateIndex duplicates, LanguageMinifier minifier,
+                        MetricsRecorder metrics, CancellationToken cancellation,
+                        TransformationResult.Builder resultBuilder) throws IOException {
+        if (options.isSplitting()) {
+            PartWriter.deleteParts(Path.of(outputPath));
+        }
+        if (options.isIncrementalCache()) {
+            renderIncrementally(plan, Path.of(outputPath), metrics, cancellation, resultBuilder);
+            resultBuilder.withContentHandle(ContentHandle.ofFile(Path.of(outputPath)));
+        } else if (options.isStreaming() || options.isSplitting()) {
+            Path output = Path.of(outputPath);
+            try (PartWriter partWriter = newPartWriter(plan, output, output);
+                 ChannelOutputWriter out = fileService.openOutputWriter(output, options.isCompressed(),
+                     pool, pool.getParallelism())) {
+                streamingWriter.write(plan.getRoot(), out, null, partWriter, duplicates, minifier, metrics,
+                    cancellation);
+                if (partWriter != null) {
+                    resultBuilder.withParts(partWriter.getParts());
+                }
+            } catch (IOException | CancellationException e) {
+                // The output was truncated when it was opened, so a cancelled run leaves only a fragment
+                if (cancellation.isCancelled()) {
+                    Files.deleteIfExists(output);
+                }
+                throw e;
+            }
+            resultBuilder.withContentHandle(
+                options.isCompressed() ? ContentHandle.ofGzipFile(output) : ContentHandle.ofFile(output));
+        } else {
+            String content = traversal.traverse(plan.getRoot(), duplicates, minifier, metrics, cancellation);
+            long start = System.nanoTime();
+            fileService.writeFileContent(Path.of(outputPath), content, options.isCompressed(), pool,
+                pool.getParallelism());
+            metrics.recordPhase(Phase.WRITE, System.nanoTime() - start);
+            resultBuilder.withContent(content);
+        }
     }
 
     /**
-     * Processes the content of a directory recursively.
-     * @param dir Directory to process
-     * @param depth Current depth in the directory tree
-     * @return String containing the processed content
-     * @throws IOException if an error occurs during processing
+     * Renders the plan through the incremental cache.
+     * Unchanged files and subtrees are copied from the previous output, which is why the new
+     * output is written to a temporary sibling and only moved into place once complete.
+     * The manifest is stored next to the output as {@code <output>.manifest}.
+     * @param plan Scan result of the source directory
+     * @param outputPath Final output path
+     * @param metrics Recorder of the run
+     * @param cancellation Token checked before each file
+     * @param resultBuilder Builder receiving the cache statistics and the parts
+     * @throws IOException if reading or writing fails
      */
-    private String processDirectoryContent(Path dir, int depth) throws IOException {
-        // Skip processing if we've gone too deep
-        if (depth > FileProcessingConfig.MAX_DIRECTORY_DEPTH) {
-            return "";
-        }
-        
-        StringBuilder content = new StringBuilder();
-        String indent = "  ".repeat(depth);
-
-        // Add directory name
-        appendDirectoryHeader(content, dir, indent);
-
-        // Process all files and subdirectories
-        List<Path> sortedPaths = getSortedDirectoryContents(dir);
-        
-        for (Path path : sortedPaths) {
-            if (isProcessableDirectory(path)) {
-                String subDirContent = processDirectoryContent(path, depth + 1);
-                // Only add directory if it contains code files
-                if (containsCodeFiles(subDirContent)) {
-                    content.append(subDirContent);
+    private void renderIncrementally(ScanResult plan, Path outputPath, MetricsRecorder metrics,
+                                     CancellationToken cancellation,
+                                     TransformationResult.Builder resultBuilder) throws IOException {
+        Path manifestPath = outputPath.resolveSibling(outputPath.getFileName() + ".manifest");
+        Path tempPath = outputPath.resolveSibling(outputPath.getFileName() + ".tmp");
+        try {
+            IncrementalCache cache = IncrementalCache.open(plan.getRoot(), outputPath, manifestPath);
+            // The cache holds the previous output open until it is closed with the writers
+            try (cache;
+                 PartWriter partWriter = newPartWriter(plan, outputPath, tempPath);
+                 ChannelOutputWriter out = fileService.openOutputWriter(tempPath)) {
+                streamingWriter.write(plan.getRoot(), out, cache, partWriter, null, null, metrics, cancellation);
+                if (partWriter != null) {
+                    resultBuilder.withParts(partWriter.getParts());
                 }
-            } else if (fileService.isCodeFile(path)) {
-                content.append(processFile(path, depth + 1));
             }
+            Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            cache.save(manifestPath, outputPath);
+            resultBuilder.withCacheStatistics(cache.getHits(), cache.getMisses());
+        } finally {
+            Files.deleteIfExists(tempPath);
         }
+    }
 
-        return content.toString();
+    /**
+     * Starts the flight recording on first use, if one is configured.
+     * It then covers every scan and transformation of this service.
+     * @throws IOException if the recording cannot be started
+     */
+    private synchronized void startFlightRecording() throws IOException {
+        if (flightRecording == null && options.getFlightRecording() != null) {
+            flightRecording = FlightRecording.start(options.getFlightRecording());
+        }
     }
-    
+
     /**
-     * Appends the directory header to the content.
-     * @param content StringBuilder to append to
-     * @param dir Directory path
-     * @param indent Current indentation
+     * Writes the flight recording so far to its file, if one is running.
+     * @throws IOException if the recording cannot be written
      */
-    private void appendDirectoryHeader(StringBuilder content, Path dir, String indent) {
-        content.append(indent)
-              .append("[Directory: ")
-              .append(dir.getFileName())
-              .append("]")
-              .append(LINE_SEPARATOR);
+    private synchronized void dumpFlightRecording() throws IOException {
+        if (flightRecording != null) {
+            flightRecording.dump();
+        }
     }
-    
+
+    /**
+     * Creates the writer of the parts of the output, if it is split.
+     * @param plan Scan result being rendered
+     * @param output Final output path
+     * @param rendered File the output is rendered to
+     * @return The part writer, or null if the output is not split
+     */
+    private PartWriter newPartWriter(ScanResult plan, Path output, Path rendered) {
+        return options.isSplitting()
+            ? new PartWriter(plan.getRoot(), options.getPartTokens(), options.getPartBytes(), output, rendered)
+            : null;
+    }
+
     /**
-     * Gets a sorted list of paths in the directory.
-     * @param dir Directory to list
-     * @return Sorted list of paths
-     * @throws IOException if an error occurs listing the directory
+     * Stops the flight recording, if one is running, after writing it out a last time.
      */
-    private List<Path> getSortedDirectoryContents(Path dir) throws IOException {
-        try (var stream = Files.list(dir).sorted()) {
-            return stream.collect(Collectors.toList());
+    private synchronized void closeFlightRecording() {
+        if (flightRecording != null) {
+            try {
+                flightRecording.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error writing flight recording " + flightRecording.getDestination(), e);
+            }
+            flightRecording = null;
         }
     }
-    
+
     /**
-     * Checks if a directory should be processed.
-     * @param path Path to check
-     * @return true if the directory should be processed
+     * Builds the result reported when a transformation fails.
+     * @param e The cause of the failure
+     * @return Failed TransformationResult
      */
-    private boolean isProcessableDirectory(Path path) {
-        return Files.isDirectory(path) && fileService.shouldProcessDirectory(path);
+    private TransformationResult failure(IOException e) {
+        return new TransformationResult.Builder()
+            .withErrorMessage("Error processing directory: " + e.getMessage())
+            .withSuccess(false)
+            .build();
     }
-    
+
+    /**
+     * Builds the result reported when a transformation is cancelled.
+     * @return Cancelled TransformationResult
+     */
+    private TransformationResult cancelled() {
+        return new TransformationResult.Builder()
+            .withErrorMessage("Transformation cancelled")
+            .withCancelled(true)
+            .withSuccess(false)
+            .build();
+    }
+
     /**
-     * Checks if the content contains code files.
-     * @param content Content to check
-     * @return true if the content contains code files
+     * Validates that the provided path is a directory.
+     * @param dir Path to validate
+     * @throws IOException if the path is not a directory
      */
-    private boolean containsCodeFiles(String content) {
-        return content.contains("[File:");
+    private void validateDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("Not a directory: " + dir);
+        }
     }
 
     /**
-     * Processes a single file.
-     * @param file File to process
-     * @param depth Current depth in the directory tree
-     * @return String containing the processed file content
-     * @throws IOException if an error occurs reading the file
+     * Determines the output path for the transformed content.
+     * The configured output path is used if there is one, otherwise the output is placed next to the source.
+     * @param sourceDir Source directory
+     * @return String path for the output file
      */
-    private String processFile(Path file, int depth) throws IOException {
-        StringBuilder content = new StringBuilder();
-        String indent = "  ".repeat(depth);
-        
-        content.append(indent)
-              .append("[File: ")
-              .append(file.getFileName())
-              .append("]")
-              .append(LINE_SEPARATOR)
-              .append(FILE_SEPARATOR)
-              .append(fileService.readFileContent(file))
-              .append(LINE_SEPARATOR)
-              .append(FILE_SEPARATOR);
-
-        return content.toString();
+    private String determineOutputPath(Path sourceDir) {
+        if (options.getOutputPath() != null) {
+            return options.getOutputPath().toString();
+        }
+        String suffix = options.isCompressed() ? "_code_only.txt.gz" : "_code_only.txt";
+        return sourceDir.getParent().resolve(sourceDir.getFileName() + suffix).toString();
     }
 }
@@ -0,0 +1,205 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.metrics.DirectoryListEvent;
+import com.codetransformer.metrics.FileReadEvent;
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.metrics.ProcessingMetrics;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.FileService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Lists a directory tree once and builds the code tree document model.
+ * Each subdirectory is scanned by its own fork/join subtask, and each entry's
+ * attributes are read with a single stat call.
+ */
+final class DirectoryScanner {
+    private final FileService fileService;
+    private final ExtensionDecisionCache extensions;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a scanner that runs its subtasks on the given pool.
+     * @param fileService File service used for filtering
+     * @param pool Pool that executes the subtasks
+     */
+    DirectoryScanner(FileService fileService, ForkJoinPool pool) {
+        this.fileService = fileService;
+        this.extensions = new ExtensionDecisionCache(fileService);
+        this.pool = pool;
+    }
+
+    /**
+     * Scans the given directory.
+     * Excluded directories and directories deeper than {@link FileProcessingConfig#MAX_DIRECTORY_DEPTH}
+     * are left out; directories without code files are kept but flagged as pruned.
+     * @param root Directory to scan
+     * @param metrics Receives listing and filtering times and the number of skipped entries
+     * @param cancellation Token checked before each entry
+     * @return Root node of the scanned tree
+     * @throws IOException if a directory cannot be listed
+     * @throws java.util.concurrent.CancellationException if the scan was cancelled
+     */
+    DirectoryNode scan(Path root, ProcessingMetrics metrics, CancellationToken cancellation) throws IOException {
+        return invoke(new ScanTask(root, 0, Map.of(), metrics, cancellation));
+    }
+
+    /**
+     * Lists a directory of a scanned tree again, keeping its subdirectories that still exist as they are.
+     * Subdirectories that appeared since the previous scan are scanned in full.
+     * @param previous Directory node from an earlier scan
+     * @param metrics Receives listing and filtering times and the number of skipped entries
+     * @param cancellation Token checked before each entry
+     * @return Node of the directory with its current entries
+     * @throws IOException if a directory cannot be listed
+     */
+    DirectoryNode rescan(DirectoryNode previous, ProcessingMetrics metrics, CancellationToken cancellation)
+            throws IOException {
+        Map<Path, DirectoryNode> subdirectories = new HashMap<>();
+        for (TreeNode child : previous.getAllChildren()) {
+            if (child.isDirectory()) {
+                subdirectories.put(child.getPath(), (DirectoryNode) child);
+            }
+        }
+        return invoke(new ScanTask(previous.getPath(), previous.getDepth(), subdirectories, metrics, cancellation));
+    }
+
+    private DirectoryNode invoke(ScanTask task) throws IOException {
+        try {
+            return pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Subtask scanning a single directory.
+     */
+    private final class ScanTask extends RecursiveTask<DirectoryNode> {
+        private final Path dir;
+        private final int depth;
+        private final Map<Path, DirectoryNode> reusable;
+        private final ProcessingMetrics metrics;
+        private final CancellationToken cancellation;
+
+        ScanTask(Path dir, int depth, Map<Path, DirectoryNode> reusable, ProcessingMetrics metrics,
+                 CancellationToken cancellation) {
+            this.dir = dir;
+            this.depth = depth;
+            this.reusable = reusable;
+            this.metrics = metrics;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        protected DirectoryNode compute() {
+            try {
+                // Times are summed locally and reported once per directory
+                DirectoryListEvent event = new DirectoryListEvent();
+                event.begin();
+                long start = System.nanoTime();
+                List<Path> entries = listSorted(dir);
+                long listNanos = System.nanoTime() - start;
+                long filterNanos = 0;
+                int skipped = 0;
+                int codeFiles = 0;
+                // Either a forked subtask or a finished node per entry, in sorted order
+                List<Object> slots = new ArrayList<>(entries.size());
+                for (Path entry : entries) {
+                    cancellation.throwIfCancelled();
+                    long listed = System.nanoTime();
+                    BasicFileAttributes attributes = readAttributes(entry);
+                    long filtered = System.nanoTime();
+                    listNanos += filtered - listed;
+                    if (attributes != null && attributes.isDirectory()) {
+                        if (depth + 1 <= FileProcessingConfig.MAX_DIRECTORY_DEPTH
+                                && fileService.shouldProcessDirectory(entry)) {
+                            DirectoryNode unchanged = reusable.get(entry);
+                            if (unchanged != null) {
+                                slots.add(unchanged);
+                            } else {
+                                ScanTask subtask = new ScanTask(entry, depth + 1, Map.of(), metrics, cancellation);
+                                subtask.fork();
+                                slots.add(subtask);
+                            }
+                        } else {
+                            skipped++;
+                        }
+                    } else if (extensions.isCodeFile(entry)) {
+                        long size = attributes != null ? attributes.size() : 0L;
+                        long lastModified = attributes != null ? attributes.lastModifiedTime().toMillis() : 0L;
+                        slots.add(new FileNode(entry, depth + 1, size, lastModified, fileService::readFileContent));
+                        codeFiles++;
+                    } else {
+                        FileReadEvent.recordSkipped(entry, attributes != null ? attributes.size() : 0L);
+                        skipped++;
+                    }
+                    filterNanos += System.nanoTime() - filtered;
+                }
+                metrics.recordPhase(Phase.LIST, listNanos);
+                metrics.recordPhase(Phase.FILTER, filterNanos);
+                metrics.addSkipped(skipped);
+                event.finish(dir, entries.size(), codeFiles, skipped);
+
+                List<TreeNode> children = new ArrayList<>(slots.size());
+                for (Object slot : slots) {
+                    if (slot instanceof ScanTask) {
+                        // Directories without code files stay in the tree, flagged as pruned
+                        children.add(((ScanTask) slot).join());
+                    } else {
+                        children.add((TreeNode) slot);
+                    }
+                }
+                return new DirectoryNode(dir, depth, children);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Lists a directory and sorts its entries.
+     * @param dir Directory to list
+     * @return Sorted list of paths
+     * @throws IOException if an error occurs listing the directory
+     */
+    private static List<Path> listSorted(Path dir) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * Reads the attributes of an entry, following symbolic links.
+     * @param entry Entry to inspect
+     * @return The attributes, or null if they cannot be read (e.g. a broken link)
+     */
+    private static BasicFileAttributes readAttributes(Path entry) {
+        try {
+            return Files.readAttributes(entry, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.ScanResult;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.FileService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the output of a directory up to date while its files change.
+ * Every directory of the scanned tree is registered with a {@link WatchService}; excluded and
+ * too-deep directories are not part of the tree and therefore not watched. Events are collected
+ * until the tree has been quiet for {@link FileProcessingConfig#WATCH_DEBOUNCE_MILLIS}; then only
+ * the directories they touched are listed again, and the output is rendered through the
+ * incremental cache, so only the segments of changed files are read. The whole tree is scanned
+ * again only when the watch service overflows.
+ */
+public final class DirectoryWatcher implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatcher.class.getName());
+    /** Longest a burst is collected before regenerating, even if events keep arriving. */
+    private static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(20 * FileProcessingConfig.WATCH_DEBOUNCE_MILLIS);
+
+    private final FileService fileService;
+    private final DirectoryProcessorServiceImpl service;
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> registered = new HashMap<>();
+    // The service is closed by whichever of close and a running watch ends last
+    private boolean watching;
+    private boolean closed;
+
+    /**
+     * Changes collected from one burst of events.
+     */
+    private static final class Burst {
+        private final Set<Path> changedDirectories = new HashSet<>();
+        private boolean overflow;
+    }
+
+    /**
+     * Creates a watcher.
+     * @param fileService The file service to use
+     * @param options Processing options; the incremental cache is always enabled
+     * @throws IOException if the watch service cannot be created
+     */
+    public DirectoryWatcher(FileService fileService, ProcessingOptions options) throws IOException {
+        this.fileService = fileService;
+        this.service = new DirectoryProcessorServiceImpl(fileService,
+            new ProcessingOptions.Builder(options).withIncrementalCache(true).build());
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Transforms the directory, then regenerates the output after every burst of changes until
+     * the watcher is closed or the calling thread is interrupted. Blocks the calling thread.
+     * @param root Directory to watch
+     * @param listener Receives the result of the first transformation and of every regeneration
+     * @throws IOException if the directory cannot be scanned or watched
+     */
+    public void watch(Path root, WatchListener listener) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            watching = true;
+        }
+        try {
+            watchUntilClosed(root, listener);
+        } finally {
+            synchronized (this) {
+                watching = false;
+                if (closed) {
+                    service.close();
+                }
+            }
+        }
+    }
+
+    private void watchUntilClosed(Path root, WatchListener listener) throws IOException {
+        long start = System.nanoTime();
+        ScanResult plan = service.scanDirectory(root);
+        try {
+            register(plan.getRoot());
+            listener.onOutputUpdated(service.processDirectory(plan), System.nanoTime() - start);
+            Burst burst;
+            while ((burst = awaitBurst()) != null) {
+                if (!burst.overflow && burst.changedDirectories.isEmpty()) {
+                    continue;
+                }
+                start = System.nanoTime();
+                plan = update(root, plan, burst);
+                register(plan.getRoot());
+                listener.onOutputUpdated(service.processDirectory(plan), System.nanoTime() - start);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed while a regeneration was running
+        }
+    }
+
+    /**
+     * Stops watching; a running {@link #watch} call returns once its current regeneration ends,
+     * and the worker threads of the watcher are shut down when it does.
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            if (!watching) {
+                service.close();
+            }
+        }
+        watchService.close();
+    }
+
+    /**
+     * Waits for a burst of events and collects the directories they touched.
+     * @return The burst, or null if the watcher was closed or the thread interrupted
+     */
+    private Burst awaitBurst() {
+        Burst burst = new Burst();
+        try {
+            WatchKey key = watchService.take();
+            long deadline = System.nanoTime() + MAX_BURST_NANOS;
+            while (key != null) {
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        burst.overflow = true;
+                    } else if (isRelevant(dir.resolve((Path) event.context()))) {
+                        burst.changedDirectories.add(dir);
+                    }
+                }
+                key.reset();
+                if (System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                key = watchService.poll(FileProcessingConfig.WATCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return burst;
+        } catch (ClosedWatchServiceException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Decides whether an event can change the output: it must concern a code file or a directory.
+     * @param entry Path the event refers to, which may no longer exist
+     * @return true if the entry's directory has to be listed again
+     */
+    private boolean isRelevant(Path entry) {
+        return registered.containsKey(entry) || Files.isDirectory(entry) || fileService.isCodeFile(entry);
+    }
+
+    /**
+     * Updates the tree after a burst of changes, scanning everything again only after an overflow.
+     * @param root Watched directory
+     * @param plan Tree before the changes
+     * @param burst Changes of the burst
+     * @return The updated tree
+     * @throws IOException if the watched directory itself can no longer be scanned
+     */
+    private ScanResult update(Path root, ScanResult plan, Burst burst) throws IOException {
+        if (!burst.overflow) {
+            try {
+                return service.rescan(plan, burst.changedDirectories, new CancellationToken());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not list changed directories, scanning the whole tree", e);
+            }
+        } else {
+            LOGGER.info("File system events were lost, scanning the whole tree: " + root);
+        }
+        return service.scanDirectory(root);
+    }
+
+    /**
+     * Watches every directory of the tree, including those without code files, and stops watching
+     * directories that left it.
+     * @param root Root of the current tree
+     * @throws IOException if a directory cannot be registered
+     */
+    private void register(DirectoryNode root) throws IOException {
+        Set<Path> directories = new HashSet<>();
+        collectDirectories(root, directories);
+        for (Iterator<Map.Entry<Path, WatchKey>> it = registered.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, WatchKey> entry = it.next();
+            if (!directories.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                it.remove();
+            }
+        }
+        for (Path dir : directories) {
+            if (!registered.containsKey(dir)) {
+                try {
+                    registered.put(dir, dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+                } catch (NoSuchFileException e) {
+                    // Deleted again already; the event on its parent updates the tree
+                }
+            }
+        }
+    }
+
+    private static void collectDirectories(DirectoryNode dir, Set<Path> directories) {
+        directories.add(dir.getPath());
+        for (TreeNode child : dir.getAllChildren()) {
+            if (child.isDirectory()) {
+                collectDirectories((DirectoryNode) child, directories);
+            }
+        }
+    }
+}
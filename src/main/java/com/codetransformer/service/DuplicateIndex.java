@@ -0,0 +1,126 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.TokenEstimator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds files whose content is identical to a file written earlier in the output, so that only the
+ * first copy is written in full and later copies become a reference to its path.
+ * Identical files have identical sizes, so only files whose size occurs more than once in the plan
+ * are candidates, and only candidates are hashed; every other file keeps its zero-copy path.
+ * Content is matched by size and {@link ContentHash}, and a match is confirmed by comparing the
+ * content with the first copy, so a collision of the 64-bit hash never drops a file from the output.
+ * Decisions are taken on one thread in output order, so the first copy is always the one that
+ * appears first in the output.
+ */
+final class DuplicateIndex {
+    private final Path root;
+    private final Set<Long> repeatedSizes;
+    private final LanguageMinifier minifier;
+    private final Map<Long, FileNode> firstCopies = new HashMap<>();
+    private int duplicates;
+    private long savedBytes;
+    private long savedTokens;
+
+    private DuplicateIndex(Path root, Set<Long> repeatedSizes, LanguageMinifier minifier) {
+        this.root = root;
+        this.repeatedSizes = repeatedSizes;
+        this.minifier = minifier;
+    }
+
+    /**
+     * Creates an index for a planned tree.
+     * @param root Root of the tree that will be rendered
+     * @param minifier Minifier of the run, which duplicates are decided before, or null
+     * @return The index
+     */
+    static DuplicateIndex forTree(DirectoryNode root, LanguageMinifier minifier) {
+        Set<Long> seen = new HashSet<>();
+        Set<Long> repeated = new HashSet<>();
+        collectSizes(root, seen, repeated);
+        return new DuplicateIndex(root.getPath(), repeated, minifier);
+    }
+
+    private static void collectSizes(DirectoryNode dir, Set<Long> seen, Set<Long> repeated) {
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                collectSizes((DirectoryNode) child, seen, repeated);
+            } else {
+                long size = ((FileNode) child).getSize();
+                if (size >= FileProcessingConfig.MIN_DEDUPLICATED_BYTES && !seen.add(size)) {
+                    repeated.add(size);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether a file may duplicate another one and therefore has to be hashed.
+     * @param file File of the plan
+     * @return true if another file of the plan has the same size
+     */
+    boolean isCandidate(FileNode file) {
+        return repeatedSizes.contains(file.getSize());
+    }
+
+    /**
+     * Looks up a candidate by its content hash, remembering it if it is the first copy.
+     * On a match, the first copy is read again and compared with the candidate. The candidate is
+     * looked up before it is minified, and a duplicate is not minified at all.
+     * @param file Candidate file, in output order
+     * @param contentHash Hash of its content
+     * @param content Content of the file as loaded for the output
+     * @return The body that replaces the file's content, or null if the content has to be written
+     * @throws IOException if the first copy of a matching file cannot be loaded again
+     */
+    String referenceFor(FileNode file, long contentHash, String content) throws IOException {
+        FileNode first = firstCopies.putIfAbsent(ContentHash.combine(contentHash, file.getSize()), file);
+        if (first == null) {
+            return null;
+        }
+        if (!content.equals(first.loadContent())) {
+            return null;
+        }
+        String reference = OutputFormat.duplicateReference(root, first.getPath());
+        duplicates++;
+        // Bytes of the body that would have been written, after truncation and minification; the tokens
+        // count from the file as read, since the minifier does not count the reduction of a duplicate
+        String body = minifier != null ? minifier.minifyUncounted(file, content) : content;
+        savedBytes += body.getBytes(StandardCharsets.UTF_8).length - reference.getBytes(StandardCharsets.UTF_8).length;
+        savedTokens += file.getEstimatedTokens() - TokenEstimator.estimate(reference);
+        return reference;
+    }
+
+    /**
+     * @return Number of files written as a reference
+     */
+    int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return Output bytes saved by writing references instead of content
+     */
+    long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * @return Estimated tokens saved by writing references instead of content
+     */
+    long getSavedTokens() {
+        return savedTokens;
+    }
+}
@@ -0,0 +1,48 @@
+package com.codetransformer.service;
+
+import com.codetransformer.util.FileService;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per file extension, whether the file service treats files as code.
+ * The scanner already knows an entry is not a directory, so a cached decision replaces the
+ * service's own directory check, lower-casing and set lookup. The cache lives as long as the
+ * service, so every scan it runs, and every root of a batch, shares it.
+ */
+final class ExtensionDecisionCache {
+    private final FileService fileService;
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty cache.
+     * @param fileService Service making the decision for extensions not seen yet; its decision
+     *                    must depend on nothing but the extension, as in {@link com.codetransformer.util.FileUtils}
+     */
+    ExtensionDecisionCache(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    /**
+     * Checks whether an entry that is not a directory is a code file.
+     * @param file Path of the entry
+     * @return true if the file service treats the file as code
+     */
+    boolean isCodeFile(Path file) {
+        String name = file.getFileName().toString();
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot <= 0 || lastDot == name.length() - 1) {
+            // Names without an extension are rare and left to the service
+            return fileService.isCodeFile(file);
+        }
+        String extension = name.substring(lastDot + 1);
+        Boolean decision = decisions.get(extension);
+        if (decision == null) {
+            decision = fileService.isCodeFile(file);
+            decisions.putIfAbsent(extension, decision);
+        }
+        return decision;
+    }
+}
@@ -0,0 +1,227 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ChannelOutputWriter;
+import com.codetransformer.util.ContentHash;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Incremental cache used for a single transformation run.
+ * Decides, from the manifest of the previous run, which files and subtrees are unchanged and
+ * copies their previously rendered bytes from the old output instead of reading the sources.
+ * At the same time it collects the manifest for the output being written.
+ */
+final class IncrementalCache implements Closeable {
+    private static final long EMPTY_DIRECTORY_HASH = 0x243f6a8885a308d3L;
+
+    private final Path root;
+    private final CacheManifest previous;
+    private final CacheManifest next;
+    private final Set<TreeNode> reusable = Collections.newSetFromMap(new IdentityHashMap<>());
+    private FileChannel previousOutput;
+    private int hits;
+    private int misses;
+
+    private IncrementalCache(Path root, CacheManifest previous, FileChannel previousOutput) {
+        this.root = root;
+        this.previous = previous;
+        this.previousOutput = previousOutput;
+        this.next = CacheManifest.create(root);
+    }
+
+    /**
+     * Opens the cache for a run over the given plan.
+     * @param plan Root of the scanned tree about to be rendered
+     * @param outputPath Output written by the previous run, and by this one
+     * @param manifestPath Manifest stored next to the output
+     * @return The cache for this run
+     * @throws IOException if the previous output exists but cannot be opened
+     */
+    static IncrementalCache open(DirectoryNode plan, Path outputPath, Path manifestPath) throws IOException {
+        Path root = plan.getPath();
+        CacheManifest previous = CacheManifest.load(manifestPath, root, outputPath);
+        FileChannel previousOutput = previous.isEmpty() ? null : FileChannel.open(outputPath, StandardOpenOption.READ);
+        IncrementalCache cache = new IncrementalCache(root, previous, previousOutput);
+        if (previousOutput != null) {
+            cache.markReusable(plan);
+        }
+        return cache;
+    }
+
+    /**
+     * Folds one child into the Merkle hash of its directory.
+     * @param hash Hash of the directory so far; start with {@link #emptyDirectoryHash()}
+     * @param child The child
+     * @param childHash Content hash of a file, or Merkle hash of a directory
+     * @return The updated directory hash
+     */
+    static long mixChild(long hash, TreeNode child, long childHash) {
+        long nameHash = ContentHash.of(child.getPath().getFileName().toString());
+        return ContentHash.combine(ContentHash.combine(hash, nameHash), childHash);
+    }
+
+    /**
+     * @return Merkle hash of a directory without children
+     */
+    static long emptyDirectoryHash() {
+        return EMPTY_DIRECTORY_HASH;
+    }
+
+    /**
+     * @param node A node of the plan
+     * @return true if the node's rendered bytes can be copied from the previous output
+     */
+    boolean isReusable(TreeNode node) {
+        return reusable.contains(node);
+    }
+
+    /**
+     * Copies the previously rendered bytes of a reusable node into the output and records
+     * the node and all of its descendants at their new position.
+     * @param node A node for which {@link #isReusable(TreeNode)} is true
+     * @param out Output being written
+     * @return Content hash of the file, or Merkle hash of the directory
+     * @throws IOException if copying fails
+     */
+    long copy(TreeNode node, ChannelOutputWriter out) throws IOException {
+        CacheManifest.Entry entry = previous.get(key(node));
+        long delta = out.position() - entry.offset;
+        out.transferFrom(previousOutput, entry.offset, entry.length);
+        carryOver(node, delta);
+        hits += node.getFileCount();
+        return entry.hash;
+    }
+
+    /**
+     * Records a file that was read and rendered in this run.
+     * @param file The file
+     * @param hash Content hash of the file
+     * @param offset Start of the file block in the output
+     * @param length Length of the file block in bytes
+     */
+    void recordFile(FileNode file, long hash, long offset, long length) {
+        misses++;
+        String key = key(file);
+        if (key != null) {
+            next.put(key, CacheManifest.Entry.file(file.getSize(), file.getLastModified(), hash,
+                file.getTokenCount().orElse(-1L), offset, length));
+        }
+    }
+
+    /**
+     * Records a directory that was rendered in this run.
+     * @param dir The directory
+     * @param hash Merkle hash of the directory
+     * @param offset Start of the subtree in the output
+     * @param length Length of the subtree in bytes
+     */
+    void recordDirectory(DirectoryNode dir, long hash, long offset, long length) {
+        String key = key(dir);
+        if (key != null) {
+            next.put(key, CacheManifest.Entry.directory(dir.getFileCount(), hash, offset, length));
+        }
+    }
+
+    /**
+     * @return Number of files whose rendered bytes were reused
+     */
+    int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of files that had to be read
+     */
+    int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Writes the manifest for the new output. Must be called after the output was moved into place.
+     * @param manifestPath Path of the manifest file
+     * @param outputPath Path of the new output
+     * @throws IOException if writing fails
+     */
+    void save(Path manifestPath, Path outputPath) throws IOException {
+        next.save(manifestPath, outputPath);
+    }
+
+    /**
+     * Releases the previous output so that it can be replaced.
+     */
+    @Override
+    public void close() throws IOException {
+        if (previousOutput != null) {
+            previousOutput.close();
+            previousOutput = null;
+        }
+    }
+
+    /**
+     * Decides bottom-up which nodes are unchanged since the previous run.
+     * A file is unchanged if size and modification time match and it was last modified strictly
+     * before the previous output was written; a directory is unchanged if it holds the same
+     * number of files, all of its children are unchanged and its recorded Merkle hash still
+     * matches the recorded hashes of its children.
+     * @return The Merkle hash computed from the manifest, or 0 if the directory changed
+     */
+    private long markReusable(DirectoryNode dir) {
+        boolean unchanged = true;
+        long hash = EMPTY_DIRECTORY_HASH;
+        for (TreeNode child : dir.getChildren()) {
+            long childHash;
+            if (child.isDirectory()) {
+                childHash = markReusable((DirectoryNode) child);
+            } else {
+                CacheManifest.Entry entry = previous.get(key(child));
+                FileNode file = (FileNode) child;
+                boolean fileUnchanged = entry != null && !entry.directory
+                    && entry.size == file.getSize()
+                    && entry.lastModified == file.getLastModified()
+                    && file.getLastModified() < previous.getOutputModified();
+                if (fileUnchanged) {
+                    reusable.add(file);
+                    file.recordContentHash(entry.hash);
+                    if (entry.tokens >= 0) {
+                        file.recordTokenCount(entry.tokens);
+                    }
+                }
+                childHash = fileUnchanged ? entry.hash : 0L;
+            }
+            unchanged &= reusable.contains(child);
+            hash = mixChild(hash, child, childHash);
+        }
+
+        CacheManifest.Entry entry = previous.get(key(dir));
+        if (unchanged && entry != null && entry.directory
+                && entry.size == dir.getFileCount() && entry.hash == hash) {
+            reusable.add(dir);
+            return hash;
+        }
+        return 0L;
+    }
+
+    private void carryOver(TreeNode node, long delta) {
+        String key = key(node);
+        next.put(key, previous.get(key).shift(delta));
+        if (node.isDirectory()) {
+            for (TreeNode child : ((DirectoryNode) node).getChildren()) {
+                carryOver(child, delta);
+            }
+        }
+    }
+
+    private String key(TreeNode node) {
+        return CacheManifest.key(root, node.getPath());
+    }
+}
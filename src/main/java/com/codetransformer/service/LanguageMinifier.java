@@ -0,0 +1,102 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TransformationResult.LanguageReduction;
+import com.codetransformer.util.SourceMinifier;
+import com.codetransformer.util.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minifies the files of one run by their extension and counts the reduction per language.
+ * Both render paths call it on decoded content right before the file block is rendered, so it
+ * adds one pass over the characters of each minified file. Files of other languages pass through
+ * unchanged. It is safe to use from the threads of the parallel traversal.
+ */
+final class LanguageMinifier {
+    private final Map<String, Counters> languages = new ConcurrentHashMap<>();
+    private final LongAdder savedTokens = new LongAdder();
+
+    /**
+     * Tells whether a file is minified, so its content has to be decoded rather than copied.
+     * @param file File of the plan
+     * @return true if its language is known to {@link SourceMinifier}
+     */
+    boolean handles(FileNode file) {
+        String extension = extensionOf(file);
+        return extension != null && SourceMinifier.syntaxFor(extension) != null;
+    }
+
+    /**
+     * Minifies the content of a file whose tokens have already been counted.
+     * @param file File the content was read from
+     * @param content Decoded content
+     * @return The minified content, or the content itself if the language is not minified
+     */
+    String minify(FileNode file, String content) {
+        String minified = minifyUncounted(file, content);
+        if (minified == content) {
+            return content;
+        }
+        String extension = extensionOf(file);
+        languages.computeIfAbsent(extension.toLowerCase(Locale.ROOT), language -> new Counters())
+            .add(content.length(), minified.length());
+        long tokens = file.getTokenCount().orElseGet(() -> TokenEstimator.estimate(content));
+        savedTokens.add(tokens - TokenEstimator.estimate(minified));
+        return minified;
+    }
+
+    /**
+     * Minifies the content of a file without counting the reduction, for a file that is not written
+     * but whose minified size is needed.
+     * @param file File the content was read from
+     * @param content Decoded content
+     * @return The minified content, or the content itself if the language is not minified
+     */
+    String minifyUncounted(FileNode file, String content) {
+        String extension = extensionOf(file);
+        SourceMinifier.Syntax syntax = extension == null ? null : SourceMinifier.syntaxFor(extension);
+        return syntax == null ? content : SourceMinifier.minify(content, syntax);
+    }
+
+    /**
+     * @return Reduction of every language that had files minified, ordered by language
+     */
+    List<LanguageReduction> getReductions() {
+        List<LanguageReduction> reductions = new ArrayList<>();
+        languages.forEach((language, counters) -> reductions.add(new LanguageReduction(language,
+            counters.files.intValue(), counters.originalChars.sum(), counters.minifiedChars.sum())));
+        reductions.sort((a, b) -> a.getLanguage().compareTo(b.getLanguage()));
+        return reductions;
+    }
+
+    /**
+     * @return Estimated tokens removed by minification
+     */
+    long getSavedTokens() {
+        return savedTokens.sum();
+    }
+
+    private static String extensionOf(FileNode file) {
+        String name = file.getPath().getFileName().toString();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot <= 0 || lastDot == name.length() - 1 ? null : name.substring(lastDot + 1);
+    }
+
+    private static final class Counters {
+        private final LongAdder files = new LongAdder();
+        private final LongAdder originalChars = new LongAdder();
+        private final LongAdder minifiedChars = new LongAdder();
+
+        void add(long original, long minified) {
+            files.increment();
+            originalChars.add(original);
+            minifiedChars.add(minified);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.util.ChannelOutputWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Text layout of the transformation output.
+ * Shared by every traversal so that all modes produce identical bytes.
+ */
+final class OutputFormat {
+    static final String LINE_SEPARATOR = System.lineSeparator();
+    static final String FILE_SEPARATOR = "=".repeat(80) + LINE_SEPARATOR;
+
+    // Pre-encoded fragments used when writing straight to a channel
+    private static final byte[][] INDENTS = new byte[FileProcessingConfig.MAX_DIRECTORY_DEPTH + 2][];
+    private static final byte[] DIRECTORY_PREFIX = utf8("[Directory: ");
+    private static final byte[] DIRECTORY_SUFFIX = utf8("]" + LINE_SEPARATOR);
+    private static final byte[] FILE_PREFIX = utf8("[File: ");
+    private static final byte[] FILE_SUFFIX = utf8("]" + LINE_SEPARATOR + FILE_SEPARATOR);
+    private static final byte[] FILE_TRAILER = utf8(LINE_SEPARATOR + FILE_SEPARATOR);
+
+    static {
+        for (int depth = 0; depth < INDENTS.length; depth++) {
+            INDENTS[depth] = utf8("  ".repeat(depth));
+        }
+    }
+
+    private OutputFormat() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Builds the header line for a directory.
+     * @param dir Directory path
+     * @param depth Depth of the directory in the tree
+     * @return The header line
+     */
+    static String directoryHeader(Path dir, int depth) {
+        return "  ".repeat(depth) + "[Directory: " + dir.getFileName() + "]" + LINE_SEPARATOR;
+    }
+
+    /**
+     * Builds the header of a file block, up to and including the opening separator.
+     * @param file File path
+     * @param depth Depth of the file in the tree
+     * @return The file header
+     */
+    static String fileHeader(Path file, int depth) {
+        return "  ".repeat(depth) + "[File: " + file.getFileName() + "]" + LINE_SEPARATOR + FILE_SEPARATOR;
+    }
+
+    /**
+     * Builds the trailer that closes a file block.
+     * @return The file trailer
+     */
+    static String fileTrailer() {
+        return LINE_SEPARATOR + FILE_SEPARATOR;
+    }
+
+    /**
+     * Builds the body that replaces the content of a file identical to an earlier one.
+     * @param root Root of the transformed tree
+     * @param first File whose content was written first
+     * @return The reference, on a single line
+     */
+    static String duplicateReference(Path root, Path first) {
+        return "[Same content as: " + root.relativize(first).toString().replace('\\', '/') + "]";
+    }
+
+    /**
+     * Writes the header line for a directory using pre-encoded fragments.
+     * @param out Writer to write to
+     * @param dir Directory path
+     * @param depth Depth of the directory in the tree
+     * @throws IOException if writing fails
+     */
+    static void writeDirectoryHeader(ChannelOutputWriter out, Path dir, int depth) throws IOException {
+        out.writeBytes(indent(depth));
+        out.writeBytes(DIRECTORY_PREFIX);
+        out.write(dir.getFileName().toString());
+        out.writeBytes(DIRECTORY_SUFFIX);
+    }
+
+    /**
+     * Writes the header of a file block using pre-encoded fragments.
+     * @param out Writer to write to
+     * @param file File path
+     * @param depth Depth of the file in the tree
+     * @throws IOException if writing fails
+     */
+    static void writeFileHeader(ChannelOutputWriter out, Path file, int depth) throws IOException {
+        out.writeBytes(indent(depth));
+        out.writeBytes(FILE_PREFIX);
+        out.write(file.getFileName().toString());
+        out.writeBytes(FILE_SUFFIX);
+    }
+
+    /**
+     * Writes the trailer that closes a file block.
+     * @param out Writer to write to
+     * @throws IOException if writing fails
+     */
+    static void writeFileTrailer(ChannelOutputWriter out) throws IOException {
+        out.writeBytes(FILE_TRAILER);
+    }
+
+    /**
+     * Renders a complete file block.
+     * @param file File path
+     * @param depth Depth of the file in the tree
+     * @param fileContent Content of the file
+     * @return The rendered block
+     */
+    static String renderFile(Path file, int depth, String fileContent) {
+        String header = fileHeader(file, depth);
+        String trailer = fileTrailer();
+        return new StringBuilder(header.length() + fileContent.length() + trailer.length())
+            .append(header)
+            .append(fileContent)
+            .append(trailer)
+            .toString();
+    }
+
+    private static byte[] indent(int depth) {
+        return depth < INDENTS.length ? INDENTS[depth] : utf8("  ".repeat(depth));
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
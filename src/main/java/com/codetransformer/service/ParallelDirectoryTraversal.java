@@ -0,0 +1,197 @@
+package com.codetransformer.service;
+
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.metrics.ProcessingMetrics;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.TokenEstimator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Renders a scanned code tree using a fork/join pool.
+ * Every subdirectory is rendered by its own subtask; results are joined back
+ * in tree order, so the output is identical to a single-threaded walk.
+ * The tokens of every file are counted right after it is read and recorded on its node.
+ * With a {@link DuplicateIndex}, candidate files are hashed right after they are read and kept as
+ * read; the duplicates are replaced by references while the parts are joined in output order, and
+ * the other candidates are only then rendered. With a {@link LanguageMinifier}, every other file is
+ * minified in its task before it is rendered.
+ */
+final class ParallelDirectoryTraversal {
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a traversal that runs its subtasks on the given pool.
+     * @param pool Pool that executes the subtasks
+     */
+    ParallelDirectoryTraversal(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Renders the given tree.
+     * @param root Root of the scanned tree
+     * @param duplicates Index of the content written so far, or null to write every file in full
+     * @param minifier Minifier of the files of known languages, or null to render files as they are
+     * @param metrics Receives reading and rendering times and the files and bytes read
+     * @param cancellation Token checked before each file
+     * @return The rendered content
+     * @throws IOException if reading a file fails
+     * @throws java.util.concurrent.CancellationException if the traversal was cancelled
+     */
+    String traverse(DirectoryNode root, DuplicateIndex duplicates, LanguageMinifier minifier,
+                    ProcessingMetrics metrics, CancellationToken cancellation) throws IOException {
+        try {
+            RenderedDirectory rendered = pool.invoke(new DirectoryTask(root, duplicates, minifier, metrics,
+                cancellation));
+            long start = System.nanoTime();
+            String content = rendered.join(duplicates, minifier);
+            metrics.recordPhase(Phase.RENDER, System.nanoTime() - start);
+            return content;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rendered output of one directory subtree.
+     * Parts are kept as a list so that parents never copy their children's text;
+     * the characters are concatenated exactly once, at the root.
+     * Duplicate candidates are kept unrendered, with their file, content and content hash.
+     */
+    private static final class RenderedDirectory {
+        private final List<String> parts = new ArrayList<>();
+        private final List<Candidate> candidates = new ArrayList<>();
+        private int length;
+
+        void add(String part) {
+            add(part, null);
+        }
+
+        void add(String part, Candidate candidate) {
+            parts.add(part);
+            candidates.add(candidate);
+            length += part != null ? part.length() : candidate.content.length();
+        }
+
+        void addAll(RenderedDirectory child) {
+            parts.addAll(child.parts);
+            candidates.addAll(child.candidates);
+            length += child.length;
+        }
+
+        // Duplicates are decided before minifying, so the minifier never counts a file that is not written
+        String join(DuplicateIndex duplicates, LanguageMinifier minifier) throws IOException {
+            StringBuilder content = new StringBuilder(length);
+            for (int i = 0; i < parts.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                if (candidate == null) {
+                    content.append(parts.get(i));
+                    continue;
+                }
+                String body = duplicates.referenceFor(candidate.file, candidate.hash, candidate.content);
+                if (body == null) {
+                    body = minifier != null ? minifier.minify(candidate.file, candidate.content) : candidate.content;
+                }
+                content.append(OutputFormat.renderFile(candidate.file.getPath(), candidate.file.getDepth(), body));
+            }
+            return content.toString();
+        }
+    }
+
+    /**
+     * A file that may duplicate another one, with its content as read and the hash of that content.
+     */
+    private static final class Candidate {
+        private final FileNode file;
+        private final String content;
+        private final long hash;
+
+        Candidate(FileNode file, String content, long hash) {
+            this.file = file;
+            this.content = content;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Subtask rendering a single directory. Subdirectories are forked before the
+     * files of this directory are read, so siblings proceed concurrently.
+     */
+    private final class DirectoryTask extends RecursiveTask<RenderedDirectory> {
+        private final DirectoryNode dir;
+        private final DuplicateIndex duplicates;
+        private final LanguageMinifier minifier;
+        private final ProcessingMetrics metrics;
+        private final CancellationToken cancellation;
+
+        DirectoryTask(DirectoryNode dir, DuplicateIndex duplicates, LanguageMinifier minifier,
+                      ProcessingMetrics metrics, CancellationToken cancellation) {
+            this.dir = dir;
+            this.duplicates = duplicates;
+            this.minifier = minifier;
+            this.metrics = metrics;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        protected RenderedDirectory compute() {
+            RenderedDirectory rendered = new RenderedDirectory();
+            rendered.add(OutputFormat.directoryHeader(dir.getPath(), dir.getDepth()));
+
+            List<TreeNode> children = dir.getChildren();
+            List<DirectoryTask> subtasks = new ArrayList<>(children.size());
+            for (TreeNode child : children) {
+                DirectoryTask subtask = null;
+                if (child.isDirectory()) {
+                    subtask = new DirectoryTask((DirectoryNode) child, duplicates, minifier, metrics,
+                        cancellation);
+                    subtask.fork();
+                }
+                subtasks.add(subtask);
+            }
+
+            try {
+                for (int i = 0; i < children.size(); i++) {
+                    DirectoryTask subtask = subtasks.get(i);
+                    if (subtask != null) {
+                        rendered.addAll(subtask.join());
+                    } else {
+                        FileNode file = (FileNode) children.get(i);
+                        cancellation.throwIfCancelled();
+                        metrics.fileStarted(file.getPath());
+                        long start = System.nanoTime();
+                        String fileContent = file.loadContent();
+                        file.recordTokenCount(TokenEstimator.estimate(fileContent));
+                        Candidate candidate = duplicates != null && duplicates.isCandidate(file)
+                            ? new Candidate(file, fileContent, ContentHash.of(fileContent)) : null;
+                        long read = System.nanoTime();
+                        if (candidate != null) {
+                            rendered.add(null, candidate);
+                        } else {
+                            if (minifier != null) {
+                                fileContent = minifier.minify(file, fileContent);
+                            }
+                            rendered.add(OutputFormat.renderFile(file.getPath(), file.getDepth(), fileContent));
+                        }
+                        metrics.recordPhase(Phase.READ, read - start);
+                        metrics.recordPhase(Phase.RENDER, System.nanoTime() - read);
+                        metrics.addFiles(1);
+                        metrics.addBytes(file.getSize());
+                    }
+                }
+                return rendered;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
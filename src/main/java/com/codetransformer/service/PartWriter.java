@@ -0,0 +1,375 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ChannelOutputWriter;
+import com.codetransformer.util.TokenEstimator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits the output into parts that fit a token or byte limit while the output is being written.
+ * The writer is told where each file block starts, so the parts are cut at the bytes the blocks
+ * actually took, after truncation, deduplication or minification, rather than at estimates. Every part
+ * starts at a file block, together with the directory headers that lead to it; a file too large for
+ * any part on its own is cut into pieces at line breaks. As soon as the walk has passed the end of a
+ * part, its bytes are copied out of the rendered output into {@code <name>.part-<i>.tmp} next to the
+ * output. The total is only known at the end, so {@link #finish} writes every part to
+ * {@code <name>.part-<i>.txt}, with its number padded and behind a header such as
+ * {@code part 3/7 — files 12..40}.
+ */
+final class PartWriter implements Closeable {
+    // Room kept in every part for its header line
+    private static final long HEADER_TOKENS = 16;
+    private static final long HEADER_BYTES = 64;
+    // How far back from the end of a piece of an oversized file a line break is used
+    private static final int MAX_LINE_SEARCH = 64 * 1024;
+    private static final int READ_WINDOW = 8 * 1024;
+
+    private final long tokenLimit;
+    private final long byteLimit;
+    private final Path output;
+    private final Path rendered;
+    private final List<String> written = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    // Estimated tokens of the block of each file, with the directory headers leading to it; the framing
+    // is counted up front and the body once it has been written
+    private final long[] fileTokens;
+    // Output position of the block of each file, with the directory headers leading to it
+    private long[] blockStarts = new long[64];
+    private int blocksStarted;
+    private int filesDone;
+    private ChannelOutputWriter out;
+    private FileChannel source;
+    private boolean finished;
+    // Part being filled: its first and last file, numbered from 1, or 0 if it has none yet
+    private int first;
+    private int last;
+    private long tokens;
+    private long bytes;
+
+    /**
+     * Creates a writer that splits the rendering of a tree.
+     * File blocks cost the tokens of their header, trailer and body as written, and the bytes they
+     * were rendered to; directory headers are charged to the first file below them.
+     * @param root Root of the tree being rendered
+     * @param partTokens Estimated tokens per part, or 0 for no token limit
+     * @param partBytes Bytes per part, or 0 for no size limit
+     * @param output Final output path, which names the parts
+     * @param rendered File the walk writes to, from which the parts are copied
+     */
+    PartWriter(DirectoryNode root, long partTokens, long partBytes, Path output, Path rendered) {
+        this.tokenLimit = limit(partTokens, HEADER_TOKENS);
+        this.byteLimit = limit(partBytes, HEADER_BYTES);
+        this.output = output;
+        this.rendered = rendered;
+        this.fileTokens = new long[root.getFileCount()];
+        addTokens(root, 0, new long[1]);
+    }
+
+    /**
+     * Deletes the parts an earlier run left next to an output.
+     * @param output Output path
+     * @throws IOException if the directory cannot be listed or a part cannot be deleted
+     */
+    static void deleteParts(Path output) throws IOException {
+        Path dir = output.toAbsolutePath().getParent();
+        String prefix = stem(output) + ".part-";
+        DirectoryStream.Filter<Path> isPart = path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(prefix) && (name.endsWith(".txt") || name.endsWith(".tmp"));
+        };
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(dir, isPart)) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /**
+     * Called before every directory header and file block; remembers where the block of the next
+     * file starts, which is where the block of the previous file ended, and writes the parts that
+     * previous file completes.
+     * @param out Writer of the rendered output
+     * @throws IOException if the position cannot be read or a part cannot be written
+     */
+    void startBlock(ChannelOutputWriter out) throws IOException {
+        // The directory headers between two files belong to the block of the second
+        if (blocksStarted == filesDone) {
+            this.out = out;
+            recordStart(out.position());
+            if (filesDone > 0) {
+                add(filesDone);
+            }
+        }
+    }
+
+    /**
+     * Counts files whose blocks have been written. Each file needs a block of its own, so files
+     * are counted one at a time.
+     * @param count Number of files
+     * @param bodyTokens Estimated tokens of the body written for the file, after truncation,
+     *                   deduplication or minification
+     */
+    void filesWritten(int count, long bodyTokens) {
+        if (count == 1) {
+            fileTokens[filesDone] += bodyTokens;
+        }
+        filesDone += count;
+    }
+
+    /**
+     * Writes the last part once the whole output has been written, then writes every part behind
+     * its header, which holds the total. An output that fits a single part is not split.
+     * @param out Writer of the rendered output, still open
+     * @throws IOException if the parts cannot be written
+     */
+    void finish(ChannelOutputWriter out) throws IOException {
+        if (blocksStarted != filesDone) {
+            throw new IllegalStateException("Files were written without a block of their own");
+        }
+        this.out = out;
+        recordStart(out.position());
+        if (filesDone > 0) {
+            add(filesDone);
+        }
+        if (first > 0 && !written.isEmpty()) {
+            closePart();
+        }
+        int total = written.size();
+        String width = Integer.toString(Integer.toString(total).length());
+        for (int i = 0; i < total; i++) {
+            int number = i + 1;
+            Path body = Path.of(written.get(i));
+            Path part = partPath(String.format("%0" + width + "d", number), ".txt");
+            try (FileChannel target = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 FileChannel bodySource = FileChannel.open(body, StandardOpenOption.READ)) {
+                writeFully(target, header(number, total, labels.get(i)));
+                copy(bodySource, 0, bodySource.size(), target);
+            }
+            Files.delete(body);
+            written.set(i, part.toString());
+        }
+        finished = true;
+    }
+
+    /**
+     * @return Paths of the parts written so far, in order
+     */
+    List<String> getParts() {
+        return written;
+    }
+
+    /**
+     * Closes the rendered output; parts of an unfinished run are deleted.
+     * @throws IOException if closing or deleting fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (source != null) {
+                source.close();
+            }
+        } finally {
+            if (!finished) {
+                for (String part : written) {
+                    Files.deleteIfExists(Path.of(part));
+                }
+            }
+        }
+    }
+
+    // Charges every file of a subtree the tokens of its framing in output order; returns the next file index
+    private int addTokens(DirectoryNode dir, int index, long[] pending) {
+        pending[0] += TokenEstimator.estimate(OutputFormat.directoryHeader(dir.getPath(), dir.getDepth()));
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                index = addTokens((DirectoryNode) child, index, pending);
+            } else {
+                fileTokens[index++] = pending[0] + TokenEstimator.estimate(OutputFormat.fileHeader(child.getPath(),
+                    child.getDepth())) + TokenEstimator.estimate(OutputFormat.fileTrailer());
+                pending[0] = 0;
+            }
+        }
+        return index;
+    }
+
+    private void recordStart(long position) {
+        if (blocksStarted == blockStarts.length) {
+            blockStarts = Arrays.copyOf(blockStarts, blockStarts.length * 2);
+        }
+        blockStarts[blocksStarted++] = position;
+    }
+
+    // Greedy first-fit: the file joins the part being filled, or closes it and starts the next one
+    private void add(int file) throws IOException {
+        long blockTokens = fileTokens[file - 1];
+        long blockBytes = blockStarts[file] - blockStarts[file - 1];
+        if (first > 0 && (tokens + blockTokens > tokenLimit || bytes + blockBytes > byteLimit)) {
+            closePart();
+        }
+        if ((blockTokens > tokenLimit || blockBytes > byteLimit) && addPieces(file)) {
+            return;
+        }
+        if (first == 0) {
+            first = file;
+        }
+        last = file;
+        tokens += blockTokens;
+        bytes += blockBytes;
+    }
+
+    private void closePart() throws IOException {
+        writePart(first == last ? "file " + first : "files " + first + ".." + last,
+            blockStarts[first - 1], blockStarts[last]);
+        first = 0;
+        tokens = 0;
+        bytes = 0;
+    }
+
+    // Cuts the block of a file into pieces that each fit both limits; false if it fits in one piece after all
+    private boolean addPieces(int file) throws IOException {
+        long start = blockStarts[file - 1];
+        long end = blockStarts[file];
+        readable();
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(start);
+        for (long position = start; position < end; ) {
+            position = pieceEnd(position, end);
+            cuts.add(position);
+        }
+        int pieces = cuts.size() - 1;
+        if (pieces == 1) {
+            return false;
+        }
+        for (int piece = 1; piece <= pieces; piece++) {
+            writePart("file " + file + ", piece " + piece + " of " + pieces, cuts.get(piece - 1), cuts.get(piece));
+        }
+        return true;
+    }
+
+    // Makes what has been rendered so far readable through the source channel
+    private void readable() throws IOException {
+        out.flush();
+        if (source == null) {
+            source = FileChannel.open(rendered, StandardOpenOption.READ);
+        }
+    }
+
+    // Counts the tokens of the rendered text from start on and returns where the piece that fits both
+    // limits ends: just after its last line break, or else at the start of a UTF-8 character
+    private long pieceEnd(long start, long end) throws IOException {
+        TokenEstimator.Counter counter = new TokenEstimator.Counter();
+        ByteBuffer window = ByteBuffer.allocate(READ_WINDOW);
+        long windowStart = start;
+        long lineEnd = -1;
+        long position = start;
+        window.limit(0);
+        while (position < end) {
+            if (position + 4 > windowStart + window.limit() && windowStart + window.limit() < end) {
+                windowStart = position;
+                window.clear().limit((int) Math.min(READ_WINDOW, end - position));
+                while (window.hasRemaining() && source.read(window, windowStart + window.position()) > 0) {
+                    // Filled below the end of the block, which has been flushed
+                }
+                window.flip();
+            }
+            int offset = (int) (position - windowStart);
+            int lead = window.get(offset) & 0xFF;
+            int length = lead < 0x80 ? 1 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : 2;
+            length = (int) Math.min(length, windowStart + window.limit() - position);
+            if (position + length - start > byteLimit) {
+                break;
+            }
+            addCharacter(counter, window, offset, length);
+            if (counter.finish() > tokenLimit && position > start) {
+                break;
+            }
+            position += length;
+            if (lead == '\n') {
+                lineEnd = position;
+            }
+        }
+        if (position >= end) {
+            return end;
+        }
+        if (lineEnd > start && position - lineEnd <= MAX_LINE_SEARCH) {
+            return lineEnd;
+        }
+        return position > start ? position : Math.min(end, start + 1);
+    }
+
+    // Adds one UTF-8 encoded character to a token count
+    private static void addCharacter(TokenEstimator.Counter counter, ByteBuffer bytes, int offset, int length) {
+        int codePoint = bytes.get(offset) & (length == 1 ? 0x7F : 0xFF >> (length + 1));
+        for (int i = 1; i < length; i++) {
+            codePoint = codePoint << 6 | (bytes.get(offset + i) & 0x3F);
+        }
+        for (char c : Character.toChars(codePoint)) {
+            counter.add(c);
+        }
+    }
+
+    // Writes the body of a part under its unpadded number; its header is only written once the total is known
+    private void writePart(String files, long start, long end) throws IOException {
+        readable();
+        Path path = partPath(Integer.toString(written.size() + 1), ".tmp");
+        try (FileChannel target = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            copy(source, start, end, target);
+        }
+        written.add(path.toString());
+        labels.add(files);
+    }
+
+    private static void copy(FileChannel from, long start, long end, FileChannel target) throws IOException {
+        for (long position = start; position < end; ) {
+            long copied = from.transferTo(position, end - position, target);
+            if (copied <= 0) {
+                throw new IOException("Output ended before a part was complete");
+            }
+            position += copied;
+        }
+    }
+
+    private static ByteBuffer header(int number, int total, String files) {
+        return ByteBuffer.wrap(("part " + number + "/" + total + " — " + files + OutputFormat.LINE_SEPARATOR)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+    }
+
+    private Path partPath(String number, String extension) {
+        return output.resolveSibling(stem(output) + ".part-" + number + extension);
+    }
+
+    private static long limit(long budget, long header) {
+        return budget > 0 ? Math.max(budget - header, header) : Long.MAX_VALUE;
+    }
+
+    private static String stem(Path output) {
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.ProgressEvent;
+
+/**
+ * Receives the progress of a transformation.
+ * It is called on a worker thread, at most once per
+ * {@link com.codetransformer.config.FileProcessingConfig#PROGRESS_INTERVAL_MILLIS} and once more
+ * when the last file is done. Implementations must return quickly; a UI should hand the event
+ * over to its event thread.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Listener that ignores all progress.
+     */
+    ProgressListener NONE = event -> { };
+
+    /**
+     * Called with the latest progress.
+     * @param event Progress snapshot
+     */
+    void onProgress(ProgressEvent event);
+}
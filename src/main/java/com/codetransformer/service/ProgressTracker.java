@@ -0,0 +1,86 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.metrics.ProcessingMetrics;
+import com.codetransformer.model.ProgressEvent;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns the metrics events of a transformation into coalesced progress events.
+ * Whichever worker thread finishes a file after the interval has passed publishes the next event,
+ * so a run over many small files still produces only a few events per second.
+ */
+final class ProgressTracker implements ProcessingMetrics {
+    private static final long INTERVAL_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(FileProcessingConfig.PROGRESS_INTERVAL_MILLIS);
+
+    private final ProcessingMetrics delegate;
+    private final ProgressListener listener;
+    private final long totalFiles;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong nextPublishNanos = new AtomicLong(startNanos);
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private volatile Path currentPath;
+
+    /**
+     * Creates a tracker for a work plan.
+     * @param delegate Sink that also receives every metrics event
+     * @param listener Listener receiving the progress events
+     * @param totalFiles Number of files in the work plan
+     */
+    ProgressTracker(ProcessingMetrics delegate, ProgressListener listener, long totalFiles) {
+        this.delegate = delegate;
+        this.listener = listener;
+        this.totalFiles = totalFiles;
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        delegate.recordPhase(phase, nanos);
+    }
+
+    @Override
+    public void fileStarted(Path path) {
+        currentPath = path;
+        delegate.fileStarted(path);
+    }
+
+    @Override
+    public void addFiles(long count) {
+        files.add(count);
+        delegate.addFiles(count);
+        long now = System.nanoTime();
+        long next = nextPublishNanos.get();
+        if (now - next >= 0 && nextPublishNanos.compareAndSet(next, now + INTERVAL_NANOS)) {
+            listener.onProgress(snapshot(now));
+        }
+    }
+
+    @Override
+    public void addBytes(long count) {
+        bytes.add(count);
+        delegate.addBytes(count);
+    }
+
+    @Override
+    public void addSkipped(long count) {
+        delegate.addSkipped(count);
+    }
+
+    /**
+     * Publishes the final event once the last file is done.
+     */
+    void complete() {
+        listener.onProgress(snapshot(System.nanoTime()));
+    }
+
+    private ProgressEvent snapshot(long now) {
+        return new ProgressEvent(files.sum(), totalFiles, bytes.sum(), now - startNanos, currentPath);
+    }
+}
@@ -0,0 +1,233 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.FileService;
+import com.codetransformer.util.TokenEstimator;
+import com.codetransformer.util.ValidatedFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Keeps several file reads in flight and hands their results back in output order.
+ * Reads are issued ahead of the consumer, up to a number of outstanding reads and a budget
+ * of bytes that have been requested but not yet consumed. Completed reads wait in a reorder
+ * buffer until every file before them has been taken, so a slow file never reorders the output.
+ * A file that needs no decoding is only validated ahead, and is handed back open so that it can
+ * still be copied without entering the heap; it counts against the budget with its size on disk.
+ * Any other file is decoded ahead and counts with the memory its content may take, two bytes per
+ * character. Each read also counts the tokens of its content, on the reading thread, and records
+ * them on the file. The reads run on an executor that may be shared with other schedulers; each
+ * scheduler only ever has its own outstanding reads in flight, so schedulers sharing an executor
+ * get equal shares of it. A validated file is owned by the scheduler until its result is taken,
+ * so that closing the scheduler closes it even if its read was cancelled after opening it.
+ */
+final class ReadScheduler implements Closeable {
+    private final List<FileNode> files;
+    private final int maxOutstanding;
+    private final long budget;
+    private final ExecutorService executor;
+    private final FileService fileService;
+    private final Predicate<FileNode> decoded;
+    private final boolean hashing;
+    private final ArrayDeque<PendingRead> reorderBuffer = new ArrayDeque<>();
+    // Files validated ahead whose results have not been taken; whoever removes one closes it
+    private final Set<ValidatedFile> untaken = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private int nextIndex;
+    private long bytesInFlight;
+
+    /**
+     * A read that has been issued but whose result has not been taken yet.
+     */
+    private static final class PendingRead {
+        private final FileNode file;
+        private final long cost;
+        private final Future<ScheduledRead> result;
+
+        PendingRead(FileNode file, long cost, Future<ScheduledRead> result) {
+            this.file = file;
+            this.cost = cost;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Result of one read: either the decoded content or a validated file to copy.
+     */
+    static final class ScheduledRead {
+        private final String content;
+        private final ValidatedFile validatedFile;
+        private final long contentHash;
+
+        private ScheduledRead(String content, ValidatedFile validatedFile, long contentHash) {
+            this.content = content;
+            this.validatedFile = validatedFile;
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * @return Decoded content, or null if the file is to be copied
+         */
+        String getContent() {
+            return content;
+        }
+
+        /**
+         * @return Validated file to copy and close, or null if the content was decoded
+         */
+        ValidatedFile getValidatedFile() {
+            return validatedFile;
+        }
+
+        /**
+         * @return Hash of a validated file's content, or 0 if it was decoded or not hashed
+         */
+        long getContentHash() {
+            return contentHash;
+        }
+    }
+
+    /**
+     * Creates a scheduler for the given files; reads start as soon as the first one is taken.
+     * @param files Files in the order their results will be taken
+     * @param maxOutstanding Maximum number of reads in flight
+     * @param budget Maximum number of bytes requested but not yet taken
+     * @param executor Executor running the reads; it is not shut down when the scheduler is closed
+     * @param fileService Service validating the files that are copied
+     * @param decoded Tells which files must be decoded even if they could be copied
+     * @param hashing Whether the content of copied files is hashed while it is validated
+     */
+    ReadScheduler(List<FileNode> files, int maxOutstanding, long budget, ExecutorService executor,
+            FileService fileService, Predicate<FileNode> decoded, boolean hashing) {
+        this.files = files;
+        this.maxOutstanding = maxOutstanding;
+        this.budget = budget;
+        this.executor = executor;
+        this.fileService = fileService;
+        this.decoded = decoded;
+        this.hashing = hashing;
+    }
+
+    /**
+     * Takes the result of the next file, waiting for its read to finish.
+     * @param file The file expected next; must match the order given at construction
+     * @return Result of the read
+     * @throws IOException if the read failed or the wait was interrupted
+     */
+    ScheduledRead next(FileNode file) throws IOException {
+        fill();
+        PendingRead pending = reorderBuffer.poll();
+        if (pending == null || pending.file != file) {
+            throw new IllegalStateException("File requested out of order: " + file.getPath());
+        }
+        ScheduledRead result;
+        try {
+            result = pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + file.getPath());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Error reading " + file.getPath(), cause);
+        } finally {
+            bytesInFlight -= pending.cost;
+        }
+        if (result.validatedFile != null) {
+            untaken.remove(result.validatedFile);
+        }
+        // Keep the window full while the caller writes this file
+        fill();
+        return result;
+    }
+
+    /**
+     * Cancels the reads that were issued but not taken, interrupting those that are running,
+     * and closes the files that were already validated. A read that validates its file after
+     * this closes the file itself.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PendingRead pending : reorderBuffer) {
+            pending.result.cancel(true);
+        }
+        reorderBuffer.clear();
+        for (ValidatedFile validated : untaken) {
+            closeIfUntaken(validated);
+        }
+    }
+
+    // Issues reads until either limit is reached; at least one read is always in flight
+    private void fill() {
+        while (nextIndex < files.size() && reorderBuffer.size() < maxOutstanding) {
+            FileNode file = files.get(nextIndex);
+            boolean copied = file.getSize() <= FileProcessingConfig.DEFAULT_MAX_FILE_SIZE && !decoded.test(file);
+            // UTF-8 never decodes to more characters than it has bytes
+            long cost = copied ? file.getSize()
+                : 2 * Math.min(file.getSize(), FileProcessingConfig.DEFAULT_MAX_FILE_SIZE);
+            if (!reorderBuffer.isEmpty() && bytesInFlight + cost > budget) {
+                return;
+            }
+            nextIndex++;
+            bytesInFlight += cost;
+            reorderBuffer.add(new PendingRead(file, cost, executor.submit(() -> {
+                try {
+                    return read(file, copied);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })));
+        }
+    }
+
+    private ScheduledRead read(FileNode file, boolean copied) throws IOException {
+        if (copied) {
+            ContentHash.Accumulator hash = hashing ? new ContentHash.Accumulator() : null;
+            TokenEstimator.Counter tokens = new TokenEstimator.Counter();
+            ValidatedFile validated = fileService.openValidatedFile(file.getPath(), hash, tokens);
+            if (validated != null) {
+                untaken.add(validated);
+                // The scheduler was closed while the file was opened, and may not have seen it
+                if (closed) {
+                    closeIfUntaken(validated);
+                    throw new InterruptedIOException("Read of " + file.getPath() + " was cancelled");
+                }
+                file.recordTokenCount(tokens.finish());
+                return new ScheduledRead(null, validated, hash != null ? hash.finish() : 0L);
+            }
+        }
+        String content = file.loadContent();
+        file.recordTokenCount(TokenEstimator.estimate(content));
+        return new ScheduledRead(content, null, 0L);
+    }
+
+    // Closes a validated file unless its result was taken or it was closed already
+    private void closeIfUntaken(ValidatedFile validated) {
+        if (untaken.remove(validated)) {
+            try {
+                validated.close();
+            } catch (IOException e) {
+                // The file is gone either way; nothing is left open
+            }
+        }
+    }
+}
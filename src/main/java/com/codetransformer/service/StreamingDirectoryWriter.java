@@ -0,0 +1,297 @@
+package com.codetransformer.service;
+
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.metrics.ProcessingMetrics;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+import com.codetransformer.util.ChannelOutputWriter;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.FileService;
+import com.codetransformer.util.TokenEstimator;
+import com.codetransformer.util.ValidatedFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Writes a scanned code tree straight to an output writer while it is being walked.
+ * File bodies that need no decoding are copied from their channel without entering the heap;
+ * any other file is held in memory only until it is written. Tokens are counted over the characters as they are
+ * validated or decoded, and remembered on each file node. With several outstanding reads, files are
+ * validated or decoded ahead through a {@link ReadScheduler}, up to its byte budget, and bodies that
+ * need no decoding are still copied from their channel. When an {@link IncrementalCache} is given,
+ * unchanged files and subtrees are copied from the previous output instead of being read.
+ * A {@link PartWriter} is told where each block starts, so parts are cut where the blocks ended up.
+ * With a {@link DuplicateIndex}, files that may repeat earlier content are decoded and hashed, and a
+ * repeated body is replaced by a reference to the first copy.
+ */
+final class StreamingDirectoryWriter {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final FileService fileService;
+    private final int outstandingReads;
+    private final long readBudget;
+    private ExecutorService readers;
+
+    /**
+     * Creates a writer that keeps several reads in flight through a {@link ReadScheduler}.
+     * @param fileService The file service to use
+     * @param outstandingReads Maximum number of reads in flight; 1 reads files one after another
+     * @param readBudget Maximum number of bytes read ahead of the output
+     */
+    StreamingDirectoryWriter(FileService fileService, int outstandingReads, long readBudget) {
+        this.fileService = fileService;
+        this.outstandingReads = outstandingReads;
+        this.readBudget = readBudget;
+    }
+
+    /**
+     * Walks the tree in output order and writes its rendered content.
+     * @param dir Directory node to render
+     * @param out Writer receiving the output
+     * @param cache Cache of the previous run, or null to read every file
+     * @param parts Writer of the parts of the output, or null if it is not split
+     * @param duplicates Index of the content written so far, or null to write every file in full
+     * @param minifier Minifier of the files of known languages, or null to write files as they are
+     * @param metrics Receives reading and writing times and the files and bytes written
+     * @param cancellation Token checked before each file
+     * @return Merkle hash of the directory, or 0 when no cache is used
+     * @throws IOException if reading or writing fails
+     * @throws java.util.concurrent.CancellationException if the walk was cancelled
+     */
+    long write(DirectoryNode dir, ChannelOutputWriter out, IncrementalCache cache, PartWriter parts,
+            DuplicateIndex duplicates, LanguageMinifier minifier, ProcessingMetrics metrics,
+            CancellationToken cancellation) throws IOException {
+        long hash;
+        if (outstandingReads <= 1) {
+            hash = new Walk(out, cache, parts, duplicates, minifier, null, metrics, cancellation).write(dir);
+        } else {
+            List<FileNode> filesToRead = new ArrayList<>();
+            collectFilesToRead(dir, cache, filesToRead);
+            // Only files whose content is needed are decoded ahead; the rest are validated and copied
+            Predicate<FileNode> decoded = file -> (duplicates != null && duplicates.isCandidate(file))
+                || (minifier != null && minifier.handles(file));
+            try (ReadScheduler reads = new ReadScheduler(filesToRead, outstandingReads, readBudget, readers(),
+                    fileService, decoded, cache != null)) {
+                hash = new Walk(out, cache, parts, duplicates, minifier, reads, metrics, cancellation).write(dir);
+            }
+        }
+        if (parts != null) {
+            parts.finish(out);
+        }
+        return hash;
+    }
+
+    /**
+     * Shuts down the reader threads; reads already scheduled still complete.
+     */
+    synchronized void close() {
+        if (readers != null) {
+            readers.shutdown();
+        }
+    }
+
+    // Reader threads are shared by every walk of this writer and kept between runs
+    private synchronized ExecutorService readers() {
+        if (readers == null) {
+            readers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "file-reader-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return readers;
+    }
+
+    // Lists, in output order, the files that the walk will read rather than copy from the cache
+    private static void collectFilesToRead(DirectoryNode dir, IncrementalCache cache, List<FileNode> files) {
+        if (cache != null && cache.isReusable(dir)) {
+            return;
+        }
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                collectFilesToRead((DirectoryNode) child, cache, files);
+            } else if (cache == null || !cache.isReusable(child)) {
+                files.add((FileNode) child);
+            }
+        }
+    }
+
+    /**
+     * State of one walk over the tree: the output, the optional cache, part writer, duplicate index,
+     * minifier and scheduler, and the metrics and cancellation token of the run.
+     */
+    private final class Walk {
+        private final ChannelOutputWriter out;
+        private final IncrementalCache cache;
+        private final PartWriter parts;
+        private final DuplicateIndex duplicates;
+        private final LanguageMinifier minifier;
+        private final ReadScheduler reads;
+        private final ProcessingMetrics metrics;
+        private final CancellationToken cancellation;
+
+        Walk(ChannelOutputWriter out, IncrementalCache cache, PartWriter parts, DuplicateIndex duplicates,
+                LanguageMinifier minifier, ReadScheduler reads, ProcessingMetrics metrics,
+                CancellationToken cancellation) {
+            this.out = out;
+            this.cache = cache;
+            this.parts = parts;
+            this.duplicates = duplicates;
+            this.minifier = minifier;
+            this.reads = reads;
+            this.metrics = metrics;
+            this.cancellation = cancellation;
+        }
+
+        long write(DirectoryNode dir) throws IOException {
+            if (cache == null) {
+                writeUncached(dir);
+                return 0L;
+            }
+            // Parts are cut at file blocks, so a split output walks unchanged subtrees file by file
+            if (cache.isReusable(dir) && parts == null) {
+                return copyCached(dir);
+            }
+
+            startBlock();
+            long start = out.position();
+            long hash = IncrementalCache.emptyDirectoryHash();
+            OutputFormat.writeDirectoryHeader(out, dir.getPath(), dir.getDepth());
+            for (TreeNode child : dir.getChildren()) {
+                long childHash;
+                if (child.isDirectory()) {
+                    childHash = write((DirectoryNode) child);
+                } else if (cache.isReusable(child)) {
+                    childHash = copyCached(child);
+                } else {
+                    long fileStart = out.position();
+                    childHash = writeFile((FileNode) child, new ContentHash.Accumulator());
+                    ((FileNode) child).recordContentHash(childHash);
+                    cache.recordFile((FileNode) child, childHash, fileStart, out.position() - fileStart);
+                }
+                hash = IncrementalCache.mixChild(hash, child, childHash);
+            }
+            cache.recordDirectory(dir, hash, start, out.position() - start);
+            return hash;
+        }
+
+        private void writeUncached(DirectoryNode dir) throws IOException {
+            startBlock();
+            OutputFormat.writeDirectoryHeader(out, dir.getPath(), dir.getDepth());
+            for (TreeNode child : dir.getChildren()) {
+                if (child.isDirectory()) {
+                    writeUncached((DirectoryNode) child);
+                } else {
+                    writeFile((FileNode) child, null);
+                }
+            }
+        }
+
+        // Copies a file or subtree from the previous output; its bytes count as written, not read
+        private long copyCached(TreeNode node) throws IOException {
+            cancellation.throwIfCancelled();
+            startBlock();
+            long start = System.nanoTime();
+            long hash = cache.copy(node, out);
+            metrics.recordPhase(Phase.WRITE, System.nanoTime() - start);
+            metrics.addFiles(node.getFileCount());
+            filesWritten(node.getFileCount(), node.isDirectory() ? 0L : ((FileNode) node).getEstimatedTokens());
+            return hash;
+        }
+
+        private void startBlock() throws IOException {
+            if (parts != null) {
+                parts.startBlock(out);
+            }
+        }
+
+        private void filesWritten(int count, long bodyTokens) {
+            if (parts != null) {
+                parts.filesWritten(count, bodyTokens);
+            }
+        }
+
+        /**
+         * Writes one file block and records its token count. Valid UTF-8 files that need no truncation
+         * are copied byte for byte, whether they were validated by the scheduler or are validated here;
+         * any other file, or any file that may be a duplicate or is minified, is decoded.
+         * @return Content hash of the file, or 0 if it was not hashed
+         */
+        private long writeFile(FileNode file, ContentHash.Accumulator hash) throws IOException {
+            cancellation.throwIfCancelled();
+            metrics.fileStarted(file.getPath());
+            startBlock();
+            OutputFormat.writeFileHeader(out, file.getPath(), file.getDepth());
+            long contentHash = 0L;
+            long start = System.nanoTime();
+            String fileContent = null;
+            boolean candidate = duplicates != null && duplicates.isCandidate(file);
+            if (reads != null) {
+                ReadScheduler.ScheduledRead read = reads.next(file);
+                fileContent = read.getContent();
+                if (fileContent == null) {
+                    try (ValidatedFile validated = read.getValidatedFile()) {
+                        validated.transferTo(out);
+                    }
+                    contentHash = read.getContentHash();
+                }
+            } else if (candidate || (minifier != null && minifier.handles(file))) {
+                fileContent = file.loadContent();
+                file.recordTokenCount(TokenEstimator.estimate(fileContent));
+            } else {
+                TokenEstimator.Counter tokens = new TokenEstimator.Counter();
+                if (fileService.transferFileContent(file.getPath(), out, hash, tokens)) {
+                    // Validation and copy happen in one pass, so the whole copy counts as reading
+                    if (hash != null) {
+                        contentHash = hash.finish();
+                    }
+                    file.recordTokenCount(tokens.finish());
+                } else {
+                    fileContent = file.loadContent();
+                    file.recordTokenCount(TokenEstimator.estimate(fileContent));
+                }
+            }
+            // Decoded content is hashed as part of the read, before anything of its body is written
+            String reference = null;
+            if (fileContent != null && (candidate || hash != null)) {
+                contentHash = ContentHash.of(fileContent);
+                if (candidate) {
+                    reference = duplicates.referenceFor(file, contentHash, fileContent);
+                }
+            }
+            long read = System.nanoTime();
+            metrics.recordPhase(Phase.READ, read - start);
+            boolean wasMinified = false;
+            if (fileContent != null && reference == null && minifier != null) {
+                String minifiedContent = minifier.minify(file, fileContent);
+                wasMinified = minifiedContent != fileContent;
+                fileContent = minifiedContent;
+                long minified = System.nanoTime();
+                metrics.recordPhase(Phase.RENDER, minified - read);
+                read = minified;
+            }
+            if (fileContent != null) {
+                out.write(reference != null ? reference : fileContent);
+                metrics.recordPhase(Phase.WRITE, System.nanoTime() - read);
+            }
+            OutputFormat.writeFileTrailer(out);
+            metrics.addFiles(1);
+            metrics.addBytes(file.getSize());
+            // Parts are charged the tokens of the body as written
+            long bodyTokens = 0L;
+            if (parts != null) {
+                bodyTokens = reference != null ? TokenEstimator.estimate(reference)
+                    : wasMinified ? TokenEstimator.estimate(fileContent) : file.getEstimatedTokens();
+            }
+            filesWritten(1, bodyTokens);
+            return contentHash;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.TreeNode;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the token counts of files read by earlier runs, keyed by path and valid while the
+ * file keeps its size and modification time. Scans apply the remembered counts to their file
+ * nodes, so the token estimate of a tree that was transformed before needs no reads at all.
+ * The cache lives as long as the service, so every scan it runs shares it.
+ */
+final class TokenCountCache {
+    private final Map<Path, Entry> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Token count of one file version.
+     */
+    private static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final long tokens;
+
+        Entry(long size, long lastModified, long tokens) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Records the remembered counts on the files of a freshly scanned tree that have not changed.
+     * @param dir Root of the tree
+     */
+    void apply(DirectoryNode dir) {
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                apply((DirectoryNode) child);
+            } else {
+                FileNode file = (FileNode) child;
+                Entry entry = counts.get(file.getPath());
+                if (entry != null && entry.size == file.getSize() && entry.lastModified == file.getLastModified()) {
+                    file.recordTokenCount(entry.tokens);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers the counts that a run recorded on the files of its tree.
+     * @param dir Root of the rendered tree
+     */
+    void remember(DirectoryNode dir) {
+        for (TreeNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                remember((DirectoryNode) child);
+            } else {
+                FileNode file = (FileNode) child;
+                OptionalLong tokens = file.getTokenCount();
+                if (tokens.isPresent()) {
+                    counts.put(file.getPath(), new Entry(file.getSize(), file.getLastModified(), tokens.getAsLong()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.TransformationResult;
+
+/**
+ * Receives the outputs regenerated by a {@link DirectoryWatcher}.
+ * It is called on the watching thread, which waits for it before collecting the next burst of changes.
+ */
+@FunctionalInterface
+public interface WatchListener {
+    /**
+     * Called after the first transformation and after every regeneration.
+     * @param result Result of the transformation
+     * @param elapsedNanos Time from the end of the burst, or from the start of the first scan, to the result
+     */
+    void onOutputUpdated(TransformationResult result, long elapsedNanos);
+}
@@ -1,10 +1,19 @@
 package com.codetransformer.ui;
 
-import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.ContentHandle;
+import com.codetransformer.model.ProgressEvent;
+import com.codetransformer.model.ScanResult;
 import com.codetransformer.model.TransformationResult;
+import com.codetransformer.service.CancellationToken;
 import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryWatcher;
 import com.codetransformer.util.AIPlatformURLs;
 import com.codetransformer.util.BrowserLauncher;
+import com.codetransformer.util.ContentTransferable;
+import com.codetransformer.util.FileUtils;
+import com.codetransformer.util.LineIndexedFile;
+import com.codetransformer.util.TreeBuilder;
 
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
@@ -18,6 +27,8 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.dnd.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -30,6 +41,7 @@ import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -45,14 +57,36 @@ public class MainWindow extends JFrame {
     
     // UI Components
     private JTextField directoryField;
-    private JTextPane statusArea;
+    private StatusLog statusLog;
+    private JProgressBar progressBar;
+    private JTabbedPane resultTabs;
+    private OutputViewer outputViewer;
     private JButton transformButton;
     private JButton copyButton;
     private JButton helpButton;
     private JButton aiAnalysisButton;
+    private JButton cancelButton;
+    private JButton watchButton;
+    private JButton previousPartButton;
+    private JButton nextPartButton;
+    private JLabel partLabel;
+    
+    // Token of the running scan or transformation, or null when idle
+    private CancellationToken cancellation;
+    
+    // Output file of the last successful transformation, or null if there is nothing to copy
+    private ContentHandle lastOutput;
+    
+    // Parts the last output was split into, empty if it was not split, and the part that is shown and copied
+    private List<Path> parts = List.of();
+    private int partIndex;
+    
+    // Watcher keeping the output of the selected directory up to date, or null when not watching
+    private DirectoryWatcher watcher;
     
     // Service dependencies
     private DirectoryProcessorService directoryProcessor;
+    private final ProcessingOptions options;
     
     /**
      * Creates a new MainWindow with the specified directory processor.
@@ -60,8 +94,19 @@ public class MainWindow extends JFrame {
      * @param directoryProcessor The directory processor to use
      */
     public MainWindow(DirectoryProcessorService directoryProcessor) {
+        this(directoryProcessor, ProcessingOptions.defaults());
+    }
+    
+    /**
+     * Creates a new MainWindow with the specified directory processor and the options it was built with.
+     * 
+     * @param directoryProcessor The directory processor to use
+     * @param options Processing options, also used by watch mode
+     */
+    public MainWindow(DirectoryProcessorService directoryProcessor, ProcessingOptions options) {
         super("Code Transformer");
         this.directoryProcessor = directoryProcessor;
+        this.options = options;
         loadLogo();
         initializeUI();
         setupDropTarget();
@@ -73,6 +118,13 @@ public class MainWindow extends JFrame {
      */
     private void initializeUI() {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Listeners run before the frame exits, so the service's threads are shut down cleanly
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                directoryProcessor.close();
+            }
+        });
         setSize(800, 500); 
         setLocationRelativeTo(null);
         setBackground(UIConstants.BACKGROUND_COLOR);
@@ -402,7 +454,7 @@ public class MainWindow extends JFrame {
     }
 
     /**
-     * Creates the status panel containing the status text area.
+     * Creates the status panel containing the status log.
      * 
      * @return The configured status panel
      */
@@ -415,50 +467,52 @@ public class MainWindow extends JFrame {
         statusLabel.setForeground(UIConstants.TEXT_COLOR);
         panel.add(statusLabel, BorderLayout.NORTH);
 
-        statusArea = createStatusTextPane();
-        JScrollPane scrollPane = createStatusScrollPane(statusArea);
-        panel.add(scrollPane, BorderLayout.CENTER);
+        statusLog = createStatusLog();
+        JScrollPane scrollPane = createStatusScrollPane(statusLog);
+        outputViewer = new OutputViewer();
+        resultTabs = new JTabbedPane();
+        resultTabs.setFont(UIConstants.NORMAL_FONT);
+        resultTabs.addTab("Status", scrollPane);
+        resultTabs.addTab("Output", outputViewer);
+        panel.add(resultTabs, BorderLayout.CENTER);
+
+        progressBar = createProgressBar();
+        panel.add(progressBar, BorderLayout.SOUTH);
 
         return panel;
     }
+
+    /**
+     * Creates the progress bar shown while a transformation runs.
+     * 
+     * @return The configured progress bar, initially hidden
+     */
+    private JProgressBar createProgressBar() {
+        JProgressBar bar = new JProgressBar(0, 1000);
+        bar.setStringPainted(true);
+        bar.setFont(UIConstants.NORMAL_FONT);
+        bar.setForeground(UIConstants.PRIMARY_COLOR);
+        bar.setVisible(false);
+        return bar;
+    }
     
     /**
-     * Creates the status text pane with appropriate styling.
+     * Creates the status log with appropriate styling.
      * 
-     * @return The configured status text pane
+     * @return The configured status log
      */
-    private JTextPane createStatusTextPane() {
-        JTextPane area = new JTextPane();
-        area.setEditable(false);
-        area.setFont(UIConstants.NORMAL_FONT);
-        area.setContentType("text/html");
-        area.setBorder(new CompoundBorder(
+    private StatusLog createStatusLog() {
+        StatusLog log = new StatusLog();
+        log.setBorder(new CompoundBorder(
             new LineBorder(UIConstants.PRIMARY_COLOR.brighter(), 1),
             new EmptyBorder(5, 5, 5, 5)
         ));
-        area.setBackground(Color.WHITE);
-        
-        // Add hyperlink listener to handle clicks on links
-        area.addHyperlinkListener(e -> {
-            if (e.getEventType() == HyperlinkEvent.EventType.ACTIVATED) {
-                try {
-                    Desktop.getDesktop().browse(e.getURL().toURI());
-                    showInfo("Opening link in your browser...");
-                } catch (Exception ex) {
-                    showError("Failed to open link: " + ex.getMessage());
-                }
-            } else if (e.getEventType() == HyperlinkEvent.EventType.ENTERED) {
-                area.setCursor(new Cursor(Cursor.HAND_CURSOR));
-            } else if (e.getEventType() == HyperlinkEvent.EventType.EXITED) {
-                area.setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
-            }
-        });
-        
-        return area;
+        log.setBackground(Color.WHITE);
+        return log;
     }
     
     /**
-     * Creates a scroll pane for the status text area.
+     * Creates a scroll pane for the status log.
      * 
      * @param textArea The text area to wrap in a scroll pane
      * @return The configured scroll pane
@@ -522,12 +576,35 @@ public class MainWindow extends JFrame {
         transformButton = createStyledButton("Transform Code");
         transformButton.addActionListener(e -> handleTransformCode());
         
+        cancelButton = createStyledButton("Cancel");
+        cancelButton.addActionListener(e -> cancelTransformation());
+        cancelButton.setVisible(false);
+        
         copyButton = createStyledButton("Copy to Clipboard");
         copyButton.addActionListener(e -> copyToClipboard());
         
+        watchButton = createStyledButton("Watch");
+        watchButton.setToolTipText("Keep the output up to date while files change");
+        watchButton.addActionListener(e -> toggleWatch());
+        
         aiAnalysisButton = createAIAnalysisButton();
         
+        previousPartButton = createStyledButton("<");
+        previousPartButton.setToolTipText("Show and copy the previous part");
+        previousPartButton.addActionListener(e -> showPart(partIndex - 1));
+        nextPartButton = createStyledButton(">");
+        nextPartButton.setToolTipText("Show and copy the next part");
+        nextPartButton.addActionListener(e -> showPart(partIndex + 1));
+        partLabel = new JLabel();
+        partLabel.setFont(UIConstants.NORMAL_FONT);
+        setPartControlsVisible(false);
+        
+        rightPanel.add(cancelButton);
         rightPanel.add(transformButton);
+        rightPanel.add(watchButton);
+        rightPanel.add(previousPartButton);
+        rightPanel.add(partLabel);
+        rightPanel.add(nextPartButton);
         rightPanel.add(copyButton);
         rightPanel.add(aiAnalysisButton);
         
@@ -633,52 +710,70 @@ public class MainWindow extends JFrame {
 
         // Disable buttons during processing
         transformButton.setEnabled(false);
+        watchButton.setEnabled(false);
         aiAnalysisButton.setEnabled(false);
+        CancellationToken token = new CancellationToken();
+        cancellation = token;
+        lastOutput = null;
+        clearParts();
+        outputViewer.clear();
+        resultTabs.setSelectedIndex(0);
+        cancelButton.setEnabled(true);
+        cancelButton.setVisible(true);
         
         // Show processing message
         showInfo("Analyzing directory: " + dirPath);
         showInfo("Checking codebase size...");
         
-        // First check if the codebase is too large
-        new SwingWorker<Boolean, Void>() {
+        // First check if the codebase is too large; the scan doubles as the work plan
+        new SwingWorker<ScanResult, Void>() {
             @Override
-            protected Boolean doInBackground() {
-                try {
-                    int fileCount = directoryProcessor.countCodeFiles(Path.of(dirPath), FileProcessingConfig.MAX_FILES_THRESHOLD + 1);
-                    return fileCount > FileProcessingConfig.MAX_FILES_THRESHOLD;
-                } catch (IOException e) {
-                    LOGGER.log(Level.WARNING, "Error counting code files in directory: " + dirPath, e);
-                    return false;
-                } catch (Exception e) {
-                    LOGGER.log(Level.SEVERE, "Unexpected error when counting code files: " + dirPath, e);
-                    return false;
-                }
+            protected ScanResult doInBackground() throws IOException {
+                return directoryProcessor.scanDirectory(Path.of(dirPath), token);
             }
 
             @Override
             protected void done() {
                 try {
-                    boolean isTooLarge = get();
+                    ScanResult scan = get();
                     
-                    if (isTooLarge) {
-                        showCodebaseTooLargeDialog();
-                        transformButton.setEnabled(true);
-                        aiAnalysisButton.setEnabled(false);
+                    if (scan.getEstimatedTokens() > options.getTokenBudget()) {
+                        SizeChoice choice = showCodebaseTooLargeDialog(scan);
+                        if (choice == SizeChoice.PACK) {
+                            ScanResult packed = scan.packInto(options.getTokenBudget());
+                            showWarning("Packed " + packed.getFileCount() + " of " + scan.getFileCount()
+                                + " files into about " + packed.getEstimatedTokens() + " tokens.");
+                            processCodebase(packed, token);
+                        } else if (choice == SizeChoice.SPLIT) {
+                            showInfo("Splitting the output into parts that fit the budget...");
+                            processCodebase(scan, token);
+                        } else {
+                            finishRun();
+                            transformButton.setEnabled(true);
+                            aiAnalysisButton.setEnabled(false);
+                        }
                     } else {
                         // Proceed with transformation
-                        processCodebase();
+                        processCodebase(scan, token);
                     }
                 } catch (InterruptedException e) {
+                    finishRun();
                     LOGGER.log(Level.WARNING, "Analysis was interrupted", e);
                     showError("Analysis was interrupted");
                     transformButton.setEnabled(true);
                     aiAnalysisButton.setEnabled(false);
                 } catch (ExecutionException e) {
-                    LOGGER.log(Level.SEVERE, "Error during codebase analysis", e);
-                    showError("Error analyzing codebase: " + e.getCause().getMessage());
+                    finishRun();
+                    if (e.getCause() instanceof CancellationException) {
+                        showInfo("Analysis cancelled.");
+                    } else {
+                        LOGGER.log(Level.SEVERE, "Error during codebase analysis", e);
+                        showError("Error analyzing codebase: " + e.getCause().getMessage());
+                    }
                     transformButton.setEnabled(true);
                     aiAnalysisButton.setEnabled(false);
                 } catch (Exception e) {
+                    finishRun();
                     LOGGER.log(Level.SEVERE, "Unexpected error during codebase analysis", e);
                     showError("Unexpected error during analysis: " + e.getMessage());
                     transformButton.setEnabled(true);
@@ -689,9 +784,26 @@ public class MainWindow extends JFrame {
     }
     
     /**
-     * Shows a dialog informing the user that the codebase is too large.
+     * What to do with a codebase above the token budget.
+     */
+    private enum SizeChoice {
+        /** Transform everything; the service splits the output into parts. */
+        SPLIT,
+        /** Transform only the files that fit into the budget. */
+        PACK,
+        /** Do not transform. */
+        CLOSE
+    }
+    
+    /**
+     * Shows a dialog informing the user that the codebase exceeds the token budget.
+     * Splitting is offered when the service is configured to split its output into parts.
+     * 
+     * @param scan Pre-scan of the directory, holding its token estimate
+     * @return What the user chose to do
      */
-    private void showCodebaseTooLargeDialog() {
+    private SizeChoice showCodebaseTooLargeDialog(ScanResult scan) {
+        SizeChoice[] choice = {SizeChoice.CLOSE};
         JDialog dialog = new JDialog(this, "Codebase Too Large", true);
         dialog.setLayout(new BorderLayout(10, 10));
         dialog.setSize(500, 300);
@@ -718,56 +830,97 @@ public class MainWindow extends JFrame {
         
         // Add explanation
         String message = "<html><div style='text-align: center; width: 400px;'>" +
-                         "The selected codebase contains more than " + FileProcessingConfig.MAX_FILES_THRESHOLD + " files, " +
-                         "which may cause performance issues or make the application unresponsive.<br><br>" +
-                         "Please select a smaller codebase or a specific subdirectory " +
-                         "with fewer files for better results.</div></html>";
+                         "The selected codebase holds about " + scan.getEstimatedTokens() + " tokens, " +
+                         "more than the budget of " + options.getTokenBudget() + " tokens " +
+                         "that fits the context of an AI platform.<br><br>" +
+                         "Select a smaller codebase or subdirectory, " +
+                         (options.isSplitting() ? "split the output into parts that each fit, " : "") +
+                         "or pack as many files as fit into the budget.</div></html>";
         JLabel messageLabel = new JLabel(message);
         messageLabel.setFont(UIConstants.NORMAL_FONT);
         messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         panel.add(messageLabel);
         panel.add(Box.createVerticalStrut(20));
         
-        // Add close button
+        // Add split, pack and close buttons
+        JPanel buttons = new JPanel();
+        buttons.setBackground(UIConstants.BACKGROUND_COLOR);
+        if (options.isSplitting()) {
+            JButton splitButton = new JButton("Split Into Parts");
+            splitButton.addActionListener(e -> {
+                choice[0] = SizeChoice.SPLIT;
+                dialog.dispose();
+            });
+            buttons.add(splitButton);
+        }
+        JButton packButton = new JButton("Pack Into Budget");
+        packButton.addActionListener(e -> {
+            choice[0] = SizeChoice.PACK;
+            dialog.dispose();
+        });
+        buttons.add(packButton);
         JButton closeButton = new JButton("Close");
-        closeButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         closeButton.addActionListener(e -> dialog.dispose());
-        panel.add(closeButton);
+        buttons.add(closeButton);
+        buttons.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(buttons);
         
         dialog.add(panel, BorderLayout.CENTER);
         dialog.setVisible(true);
+        return choice[0];
     }
     
     /**
      * Processes the codebase after size check passes.
+     * 
+     * @param scan Pre-scan of the directory, used as the work plan
+     * @param token Token that the Cancel button uses to stop the transformation
      */
-    private void processCodebase() {
+    private void processCodebase(ScanResult scan, CancellationToken token) {
         // Show processing message
         showInfo("Processing directory: " + directoryField.getText());
-        showInfo("This may take a moment for large codebases...");
+        showInfo("This may take a moment for large codebases... (" + scan.getFileCount() + " files, "
+            + scan.getTotalBytes() / 1024 + " KB)");
         
-        // Create a timer to check for long-running operations
-        Timer timeoutTimer = new Timer(30000, e -> {
-            showWarning("Processing is taking longer than expected. The codebase might be very large.");
-        });
-        timeoutTimer.setRepeats(false);
-        timeoutTimer.start();
+        progressBar.setValue(0);
+        progressBar.setString("Starting...");
+        progressBar.setVisible(true);
+
+        // Run the transformation in a background thread; progress is published to the EDT
+        new SwingWorker<TransformationResult, ProgressEvent>() {
+            private LineIndexedFile output;
+            private String structure;
 
-        // Run the transformation in a background thread
-        new SwingWorker<TransformationResult, Void>() {
             @Override
             protected TransformationResult doInBackground() {
                 // Using the already injected processor
-                return directoryProcessor.processDirectory(Path.of(directoryField.getText()));
+                TransformationResult result = directoryProcessor.processDirectory(scan, event -> publish(event), token);
+                if (result.isSuccess()) {
+                    // Index the output here so that showing it on the EDT takes constant time
+                    try {
+                        output = LineIndexedFile.open(Path.of(result.getOutputPath()));
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Could not open the output for viewing", e);
+                    }
+                    structure = TreeBuilder.buildCodeTree(scan.getRoot(), UIConstants.STRUCTURE_MAX_ENTRIES);
+                }
+                return result;
+            }
+
+            @Override
+            protected void process(List<ProgressEvent> events) {
+                // Only the latest of the events queued since the last repaint matters
+                updateProgress(events.get(events.size() - 1));
             }
 
             @Override
             protected void done() {
-                timeoutTimer.stop(); // Cancel the timeout timer
+                progressBar.setVisible(false);
+                finishRun();
                 
                 try {
                     TransformationResult result = get();
-                    handleTransformationResult(result);
+                    handleTransformationResult(result, structure, output);
                 } catch (InterruptedException e) {
                     LOGGER.log(Level.WARNING, "Transformation process was interrupted", e);
                     showError("Transformation process was interrupted");
@@ -786,19 +939,203 @@ public class MainWindow extends JFrame {
         }.execute();
     }
 
+    /**
+     * Starts watching the selected directory, or stops watching it.
+     * While watching, the output is regenerated after every burst of changes and shown again;
+     * the Transform button is disabled.
+     */
+    private void toggleWatch() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not stop watching", e);
+            }
+            return;
+        }
+        String dirPath = directoryField.getText();
+        DirectoryWatcher started;
+        try {
+            started = new DirectoryWatcher(FileUtils.getInstance(), options);
+        } catch (IOException e) {
+            showError("Could not watch directory: " + e.getMessage());
+            return;
+        }
+        watcher = started;
+        watchButton.setText("Stop Watching");
+        transformButton.setEnabled(false);
+        showInfo("Watching " + dirPath + " - the output is regenerated after every change.");
+
+        new SwingWorker<Void, WatchUpdate>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                started.watch(Path.of(dirPath), (result, elapsedNanos) -> {
+                    LineIndexedFile output = null;
+                    if (result.isSuccess()) {
+                        // Indexed here so that showing it on the EDT takes constant time
+                        try {
+                            output = LineIndexedFile.open(Path.of(result.getOutputPath()));
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Could not open the output for viewing", e);
+                        }
+                    }
+                    publish(new WatchUpdate(result, output, elapsedNanos));
+                });
+                return null;
+            }
+
+            @Override
+            protected void process(List<WatchUpdate> updates) {
+                // Earlier updates of the batch are superseded by the last one
+                for (int i = 0; i < updates.size() - 1; i++) {
+                    updates.get(i).close();
+                }
+                showWatchUpdate(updates.get(updates.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                watcher = null;
+                watchButton.setText("Watch");
+                try {
+                    get();
+                    showInfo("Stopped watching " + dirPath);
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.WARNING, "Watching was interrupted", e);
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Error while watching", e);
+                    showError("Error while watching: " + e.getCause().getMessage());
+                }
+                updateButtonStates();
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows the output regenerated by the watcher.
+     * 
+     * @param update The regenerated result and its indexed output
+     */
+    private void showWatchUpdate(WatchUpdate update) {
+        TransformationResult result = update.result;
+        if (!result.isSuccess()) {
+            statusLog.append("Error: " + result.getErrorMessage(), StatusLog.Kind.ERROR);
+            return;
+        }
+        lastOutput = ContentHandle.ofFile(Path.of(result.getOutputPath()));
+        statusLog.append(String.format("Output updated in %d ms: %d files, %d read, %d reused, about %d tokens",
+            update.elapsedNanos / 1_000_000, result.getMetrics().getFiles(), result.getCacheMisses(),
+            result.getCacheHits(), result.getEstimatedTokens()), StatusLog.Kind.SUCCESS);
+        if (!result.getParts().isEmpty()) {
+            update.close();
+            showParts(result.getParts());
+        } else {
+            clearParts();
+            if (update.output != null) {
+                outputViewer.show(update.output);
+            }
+        }
+        copyButton.setEnabled(true);
+        aiAnalysisButton.setEnabled(true);
+    }
+
+    /**
+     * Result published by the watcher, with its output already indexed for the viewer.
+     */
+    private static final class WatchUpdate {
+        private final TransformationResult result;
+        private final LineIndexedFile output;
+        private final long elapsedNanos;
+
+        WatchUpdate(TransformationResult result, LineIndexedFile output, long elapsedNanos) {
+            this.result = result;
+            this.output = output;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void close() {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Could not close superseded output", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels the running scan or transformation.
+     * The background worker reports the cancellation once the work has stopped.
+     */
+    private void cancelTransformation() {
+        if (cancellation != null) {
+            cancellation.cancel();
+            cancelButton.setEnabled(false);
+            progressBar.setString("Cancelling...");
+        }
+    }
+
+    /**
+     * Hides the Cancel button once a scan or transformation has ended.
+     */
+    private void finishRun() {
+        cancellation = null;
+        cancelButton.setVisible(false);
+    }
+
+    /**
+     * Shows a progress event in the progress bar.
+     * 
+     * @param event The latest progress of the running transformation
+     */
+    private void updateProgress(ProgressEvent event) {
+        long total = Math.max(1L, event.getTotalFiles());
+        progressBar.setValue((int) (progressBar.getMaximum() * Math.min(event.getFilesDone(), total) / total));
+        StringBuilder text = new StringBuilder()
+            .append(event.getFilesDone()).append(" / ").append(event.getTotalFiles()).append(" files, ")
+            .append(String.format("%.1f MB/s", event.getBytesPerSecond() / (1024.0 * 1024.0)));
+        long remainingMillis = event.getEstimatedRemainingMillis();
+        if (remainingMillis >= 0 && !event.isComplete()) {
+            long remainingSeconds = (remainingMillis + 999) / 1000;
+            text.append(String.format(", ETA %d:%02d", remainingSeconds / 60, remainingSeconds % 60));
+        }
+        if (event.getCurrentPath() != null) {
+            text.append(" - ").append(event.getCurrentPath().getFileName());
+        }
+        progressBar.setString(text.toString());
+    }
+
     /**
      * Handles the result of a directory transformation.
      * Updates the UI based on success or failure.
      * 
      * @param result The transformation result to handle
+     * @param structure Code tree of the work plan, built off the EDT, or null if the run did not succeed
+     * @param output Indexed output file, or null if it could not be opened
      */
-    private void handleTransformationResult(TransformationResult result) {
-        if (result.isSuccess()) {
-            String htmlContent = "<span style='color: #2E8B57;'>" +
-                "Transformation complete!</span><br><br>" +
-                "Output saved to: " + escapeHtml(result.getOutputPath()) + "<br><br>" +
-                "Content preview:<br>" + escapeHtml(result.getContent());
-            statusArea.setText(htmlContent);
+    private void handleTransformationResult(TransformationResult result, String structure, LineIndexedFile output) {
+        if (result.isCancelled()) {
+            showInfo("Transformation cancelled.");
+        } else if (result.isSuccess()) {
+            LOGGER.info("Transformation metrics: " + result.getMetrics());
+            // Only the output file is kept, so the result's in-memory content can be collected
+            lastOutput = ContentHandle.ofFile(Path.of(result.getOutputPath()));
+            statusLog.append("Transformation complete!", StatusLog.Kind.SUCCESS);
+            statusLog.append("Output saved to: " + result.getOutputPath(), StatusLog.Kind.INFO);
+            statusLog.append("Estimated tokens: " + result.getEstimatedTokens(), StatusLog.Kind.INFO);
+            statusLog.append("Structure:", StatusLog.Kind.INFO);
+            statusLog.append(structure, StatusLog.Kind.CODE);
+            if (!result.getParts().isEmpty()) {
+                closeQuietly(output);
+                statusLog.append("Output split into " + result.getParts().size() + " parts, from "
+                    + result.getParts().get(0), StatusLog.Kind.INFO);
+                showParts(result.getParts());
+                resultTabs.setSelectedComponent(outputViewer);
+            } else if (output != null) {
+                outputViewer.show(output);
+                resultTabs.setSelectedComponent(outputViewer);
+            }
             showSuccess("Code transformation completed successfully!");
         } else {
             showError(result.getErrorMessage());
@@ -806,24 +1143,111 @@ public class MainWindow extends JFrame {
     }
 
     /**
-     * Copies the content of the status area to the clipboard.
+     * Starts stepping through the parts of a split output at its first part.
+     * 
+     * @param paths Paths of the parts, in order
+     */
+    private void showParts(List<String> paths) {
+        Path[] found = new Path[paths.size()];
+        for (int i = 0; i < found.length; i++) {
+            found[i] = Path.of(paths.get(i));
+        }
+        parts = List.of(found);
+        setPartControlsVisible(true);
+        showPart(0);
+    }
+    
+    /**
+     * Makes one part the one that is shown and copied.
+     * The part is indexed on a worker thread, and shown unless another part was selected meanwhile.
+     * 
+     * @param index Index of the part
+     */
+    private void showPart(int index) {
+        if (index < 0 || index >= parts.size()) {
+            return;
+        }
+        partIndex = index;
+        Path part = parts.get(index);
+        lastOutput = ContentHandle.ofFile(part);
+        partLabel.setText("Part " + (index + 1) + " of " + parts.size());
+        previousPartButton.setEnabled(index > 0);
+        nextPartButton.setEnabled(index < parts.size() - 1);
+        new SwingWorker<LineIndexedFile, Void>() {
+            @Override
+            protected LineIndexedFile doInBackground() throws IOException {
+                return LineIndexedFile.open(part);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    LineIndexedFile file = get();
+                    if (part.equals(currentPart())) {
+                        outputViewer.show(file);
+                    } else {
+                        closeQuietly(file);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Could not open " + part + " for viewing", e);
+                }
+            }
+        }.execute();
+    }
+    
+    private Path currentPart() {
+        return partIndex < parts.size() ? parts.get(partIndex) : null;
+    }
+    
+    /**
+     * Forgets the parts of the previous output and hides the part controls.
+     */
+    private void clearParts() {
+        parts = List.of();
+        partIndex = 0;
+        setPartControlsVisible(false);
+    }
+    
+    private void setPartControlsVisible(boolean visible) {
+        previousPartButton.setVisible(visible);
+        partLabel.setVisible(visible);
+        nextPartButton.setVisible(visible);
+    }
+    
+    private static void closeQuietly(LineIndexedFile file) {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close unused output", e);
+            }
+        }
+    }
+
+    /**
+     * Copies the content of the last transformation to the clipboard.
+     * The clipboard receives a handle to the output; the text is read when it is pasted.
+     * A split output is copied one part at a time, and every copy moves on to the next part.
      * Shows an error if there is no content to copy.
      */
     private void copyToClipboard() {
-        String content = statusArea.getText();
         if (!hasValidContent()) {
             showError("No content to copy. Please transform a directory first.");
             return;
         }
 
         try {
-            // Extract actual code content, stripping headers and HTML
-            String plainContent = extractCodeContent(content);
-
-            StringSelection selection = new StringSelection(plainContent);
+            ContentTransferable selection = new ContentTransferable(lastOutput);
             Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
             clipboard.setContents(selection, selection);
-            showSuccess("Content copied to clipboard!");
+            if (parts.isEmpty()) {
+                showSuccess("Content copied to clipboard!");
+            } else {
+                String copied = "Part " + (partIndex + 1) + " of " + parts.size();
+                statusLog.append(copied + " copied to clipboard", StatusLog.Kind.SUCCESS);
+                showPart(partIndex + 1);
+                showSuccess(copied + " copied to clipboard!");
+            }
             LOGGER.log(Level.INFO, "Content successfully copied to clipboard");
         } catch (IllegalStateException e) {
             LOGGER.log(Level.WARNING, "Clipboard system not available", e);
@@ -834,111 +1258,13 @@ public class MainWindow extends JFrame {
         }
     }
     
-    /**
-     * Extracts only the actual code content from the text, removing headers and HTML formatting.
-     * 
-     * @param content The raw content from the status area
-     * @return Clean code content without headers or HTML
-     */
-    private String extractCodeContent(String content) {
-        // Remove HTML wrapper if present
-        String plainContent = content;
-        if (plainContent.startsWith("<html>")) {
-            plainContent = plainContent.substring(6, plainContent.length() - 7);
-        }
-        
-        // Convert HTML line breaks to newlines
-        plainContent = plainContent
-            .replaceAll("<br><br>", "\n\n")
-            .replaceAll("<br>", "\n");
-            
-        // Remove all HTML tags
-        plainContent = plainContent.replaceAll("<[^>]*>", "");
-        
-        // Find the index of "Content preview:" which marks the start of the actual code
-        int contentStart = plainContent.indexOf("Content preview:");
-        if (contentStart >= 0) {
-            // Skip the "Content preview:" line by finding the next newline
-            int codeStart = plainContent.indexOf('\n', contentStart);
-            if (codeStart >= 0) {
-                // Extract only the code part (everything after the header)
-                plainContent = plainContent.substring(codeStart).trim();
-                
-                // Split into lines and remove any remaining header lines
-                String[] lines = plainContent.split("\n");
-                StringBuilder codeBuilder = new StringBuilder();
-                
-                for (String line : lines) {
-                    String trimmedLine = line.trim();
-                    // Skip header lines and empty lines
-                    if (trimmedLine.contains("Transformation complete") ||
-                        trimmedLine.contains("Output saved to") ||
-                        trimmedLine.contains("Content preview") ||
-                        trimmedLine.isEmpty()) {
-                        continue;
-                    }
-                    codeBuilder.append(line).append('\n');
-                }
-                
-                // Get the final code and trim any trailing whitespace
-                plainContent = codeBuilder.toString().trim();
-            }
-        }
-        
-        return plainContent;
-    }
-
     /**
      * Checks if there is valid content to copy.
      * 
-     * @return true if there is valid content, false otherwise
+     * @return true if a transformation has completed, false otherwise
      */
     private boolean hasValidContent() {
-        String content = statusArea.getText();
-        if (content == null || content.isEmpty()) {
-            return false;
-        }
-
-        // Extract content from HTML
-        if (content.startsWith("<html>")) {
-            content = content.substring(6, content.length() - 7);
-        }
-
-        // Remove HTML formatting
-        content = content
-            .replaceAll("<span style='color: #[0-9A-Fa-f]{6};'>", "")
-            .replaceAll("</span>", "")
-            .replaceAll("<br><br>", "\n\n")
-            .replaceAll("<br>", "\n")
-            .trim();
-
-        // Check for distinctive pattern of transformed code content
-        boolean hasTransformationMarkers = content.contains("Transformation complete!") && 
-                                          content.contains("Output saved to:") && 
-                                          content.contains("Content preview:");
-                                          
-        // If content has transformation markers, it's valid
-        if (hasTransformationMarkers) {
-            return true;
-        }
-        
-        // Check for commonly occurring patterns in status messages
-        boolean isStatusOrInitialMessage = 
-            content.isEmpty() ||
-            content.equals("Drag and drop a folder here") ||
-            content.startsWith("Error:") || 
-            content.startsWith("Warning:") ||
-            content.contains("Directory selected") ||
-            content.contains("Processing directory") ||
-            content.contains("Analyzing directory") ||
-            content.contains("Checking codebase") ||
-            content.contains("Opening") ||
-            content.contains("This may take a moment") ||
-            content.contains("No content to copy") ||
-            content.contains("Code has been copied");
-            
-        // Only valid if it's not a status message
-        return !isStatusOrInitialMessage && content.length() > 100;
+        return lastOutput != null;
     }
 
     /**
@@ -947,8 +1273,7 @@ public class MainWindow extends JFrame {
      * @param message The error message to show
      */
     private void showError(String message) {
-        String htmlMessage = "<span style='color: #B22222;'>Error: " + escapeHtml(message) + "</span>";
-        statusArea.setText(htmlMessage);
+        statusLog.append("Error: " + message, StatusLog.Kind.ERROR);
         updateButtonStates();
         JOptionPane.showMessageDialog(this, message, "Error", 
             JOptionPane.ERROR_MESSAGE);
@@ -971,8 +1296,7 @@ public class MainWindow extends JFrame {
      * @param message The warning message to show
      */
     private void showWarning(String message) {
-        String htmlMessage = "<span style='color: #FFA07A;'>Warning: " + escapeHtml(message) + "</span>";
-        statusArea.setText(htmlMessage);
+        statusLog.append("Warning: " + message, StatusLog.Kind.WARNING);
         updateButtonStates();
         JOptionPane.showMessageDialog(this, message, "Warning", 
             JOptionPane.WARNING_MESSAGE);
@@ -984,24 +1308,10 @@ public class MainWindow extends JFrame {
      * @param message The informational message to show
      */
     private void showInfo(String message) {
-        String htmlMessage = "<span style='color: #323232;'>" + escapeHtml(message) + "</span>";
-        statusArea.setText(htmlMessage);
+        statusLog.append(message, StatusLog.Kind.INFO);
         updateButtonStates();
     }
 
-    /**
-     * Escapes HTML special characters in a string.
-     * 
-     * @param text The text to escape
-     * @return The escaped text
-     */
-    private String escapeHtml(String text) {
-        return text.replace("&", "&amp;")
-                  .replace("<", "&lt;")
-                  .replace(">", "&gt;")
-                  .replace("\n", "<br>");
-    }
-
     /**
      * Updates the enabled state of buttons based on application state.
      */
@@ -1011,7 +1321,8 @@ public class MainWindow extends JFrame {
         
         boolean hasContent = hasValidContent();
         
-        transformButton.setEnabled(hasDirectory);
+        transformButton.setEnabled(hasDirectory && watcher == null);
+        watchButton.setEnabled(hasDirectory || watcher != null);
         copyButton.setEnabled(hasContent);
         aiAnalysisButton.setEnabled(hasContent);
     }
@@ -1120,18 +1431,14 @@ public class MainWindow extends JFrame {
      * @param selectedPlatform The selected AI platform
      */
     private void handleAIPlatformSelection(String selectedPlatform) {
-        String codeContent = statusArea.getText();
-        if (codeContent == null || codeContent.trim().isEmpty()) {
+        if (!hasValidContent()) {
             showError("No content to send to AI platform. Please transform a directory first.");
             return;
         }
         
-        // Clean the content by removing HTML tags
-        codeContent = codeContent.replaceAll("<[^>]*>", "").trim();
-        
         try {
             // First open the browser
-            URI aiUrl = AIPlatformURLs.generateAIURL(selectedPlatform.toLowerCase(), codeContent);
+            URI aiUrl = AIPlatformURLs.generateAIURL(selectedPlatform.toLowerCase());
             
             // Try to open using our enhanced browser launcher
             BrowserLauncher.BrowserLaunchResult result = BrowserLauncher.openURL(aiUrl);
@@ -1150,7 +1457,7 @@ public class MainWindow extends JFrame {
             
             // AFTER browser is opened, copy the content to clipboard
             // This ensures the browser doesn't overwrite our clipboard content
-            copyCodeToClipboard(codeContent, selectedPlatform);
+            copyCodeToClipboard(lastOutput, selectedPlatform);
             
         } catch (RuntimeException e) {
             LOGGER.log(Level.SEVERE, "Error when accessing platform: " + selectedPlatform, e);
@@ -1164,20 +1471,14 @@ public class MainWindow extends JFrame {
     /**
      * Copies code to the clipboard and shows a confirmation message.
      * 
-     * @param code The code to copy
+     * @param code Handle to the code to copy; it is read when pasted
      * @param platformName The name of the platform for the confirmation message
      */
-    private void copyCodeToClipboard(String code, String platformName) {
-        // Extract only the actual code content
-        String tempCode = extractCodeContent(code);
-        
-        // Make final for lambda
-        final String cleanedCode = tempCode;
-        
+    private void copyCodeToClipboard(ContentHandle code, String platformName) {
         // Use a small delay to ensure the clipboard operation happens after browser launch
         Timer clipboardTimer = new Timer(500, e -> {
             try {
-                StringSelection selection = new StringSelection(cleanedCode);
+                ContentTransferable selection = new ContentTransferable(code);
                 Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
                 clipboard.setContents(selection, selection);
                 showInfo("Code has been copied to clipboard for easy pasting into " + platformName);
@@ -1262,50 +1563,14 @@ public class MainWindow extends JFrame {
      * @param platformName The name of the platform for display purposes
      */
     private void displayClickableLink(URI url, String platformName) {
-        String urlString = url.toString();
-        
-        // Create a clickable link HTML
-        String linkHtml = "<br><br>" + platformName + " URL:<br>" +
-                          "<a href='" + urlString + "'>" + urlString + "</a>";
-        
         // Copy to clipboard for convenience
-        StringSelection selection = new StringSelection(urlString);
+        StringSelection selection = new StringSelection(url.toString());
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
         clipboard.setContents(selection, selection);
         
-        // Append the link to the status area
-        appendToStatusArea("\n\n" + linkHtml);
+        statusLog.appendLink(platformName + " URL: ", url);
     }
 
-    /**
-     * Appends text to the status area without overwriting existing content.
-     * 
-     * @param text The text to append
-     */
-    private void appendToStatusArea(String text) {
-        try {
-            // Get current content
-            String currentContent = statusArea.getText();
-            
-            // Remove HTML tags if present
-            if (currentContent.startsWith("<html>")) {
-                currentContent = currentContent.substring(6, currentContent.length() - 7);
-            }
-            
-            // Append new content
-            String newContent = currentContent + escapeHtml(text);
-            
-            // Set the updated content
-            statusArea.setText("<html>" + newContent + "</html>");
-            
-            // Scroll to the bottom to show the appended text
-            statusArea.setCaretPosition(statusArea.getDocument().getLength());
-        } catch (Exception e) {
-            // Fallback to simple setText if there's an error
-            statusArea.setText("<html>" + escapeHtml(text) + "</html>");
-        }
-    }
-    
     /**
      * Shows a help dialog with information about the application.
      */
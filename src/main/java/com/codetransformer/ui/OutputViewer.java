@@ -0,0 +1,119 @@
+package com.codetransformer.ui;
+
+import com.codetransformer.util.LineIndexedFile;
+
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-only viewer for a transformation output of any size.
+ * The output is paged from its file through a {@link LineIndexedFile}; the list uses a fixed cell
+ * size, so Swing never measures the whole content and only the visible lines are read and laid out.
+ */
+class OutputViewer extends JScrollPane {
+    private static final Logger LOGGER = Logger.getLogger(OutputViewer.class.getName());
+
+    /** Longest part of a line that is shown; minified code can have megabyte-long lines. */
+    private static final int MAX_LINE_BYTES = 16 * 1024;
+    /** Number of leading lines used to size the cells. */
+    private static final int WIDTH_SAMPLE_LINES = 500;
+
+    private final JList<String> lines = new JList<>();
+    private LineIndexedFile file;
+
+    /**
+     * Creates an empty viewer.
+     */
+    OutputViewer() {
+        lines.setFont(UIConstants.CODE_FONT);
+        lines.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        lines.setBackground(Color.WHITE);
+        FontMetrics metrics = lines.getFontMetrics(UIConstants.CODE_FONT);
+        lines.setFixedCellHeight(metrics.getHeight());
+        lines.setFixedCellWidth(1);
+        setViewportView(lines);
+        setBorder(BorderFactory.createLineBorder(UIConstants.PRIMARY_COLOR.brighter(), 1));
+        getVerticalScrollBar().setUnitIncrement(metrics.getHeight());
+    }
+
+    /**
+     * Shows an indexed output file, closing the previously shown one. Must be called on the EDT.
+     * @param output Output to show; the viewer closes it when it is replaced
+     */
+    void show(LineIndexedFile output) {
+        closeFile();
+        file = output;
+        FontMetrics metrics = lines.getFontMetrics(UIConstants.CODE_FONT);
+        lines.setFixedCellWidth(Math.max(getViewport().getWidth(), sampleWidth(output, metrics)));
+        lines.setModel(new LineModel(output));
+        getVerticalScrollBar().setValue(0);
+    }
+
+    /**
+     * Removes the shown output. Must be called on the EDT.
+     */
+    void clear() {
+        closeFile();
+        lines.setModel(new LineModel(null));
+    }
+
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close output file", e);
+            }
+            file = null;
+        }
+    }
+
+    // Widest of the first lines; a monospaced font makes this proportional to the character count
+    private static int sampleWidth(LineIndexedFile output, FontMetrics metrics) {
+        int widest = 0;
+        int sampled = Math.min(output.getLineCount(), WIDTH_SAMPLE_LINES);
+        for (int i = 0; i < sampled; i++) {
+            widest = Math.max(widest, metrics.stringWidth(LineModel.readLine(output, i)));
+        }
+        return widest + 10;
+    }
+
+    /**
+     * List model reading each line from the file when the list paints it.
+     */
+    private static final class LineModel extends AbstractListModel<String> {
+        private final LineIndexedFile output;
+
+        LineModel(LineIndexedFile output) {
+            this.output = output;
+        }
+
+        @Override
+        public int getSize() {
+            return output == null ? 0 : output.getLineCount();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return readLine(output, index);
+        }
+
+        static String readLine(LineIndexedFile output, int index) {
+            try {
+                // Tabs are not expanded by the list's label renderer
+                return output.getLine(index, MAX_LINE_BYTES).replace("\t", "    ");
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read line " + index + " of the output", e);
+                return "";
+            }
+        }
+    }
+}
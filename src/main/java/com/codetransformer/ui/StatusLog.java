@@ -0,0 +1,202 @@
+package com.codetransformer.ui;
+
+import javax.swing.JTextPane;
+import javax.swing.Timer;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import java.awt.Color;
+import java.awt.Cursor;
+import java.awt.Desktop;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only status log backed by a {@link StyledDocument}.
+ * Messages may be appended from any thread; they are queued and inserted in a single EDT flush per
+ * frame, so a burst of messages costs one document update. Only the most recent
+ * {@link #MAX_LINES} lines are kept, the oldest are dropped from the start of the document.
+ */
+class StatusLog extends JTextPane {
+    private static final Logger LOGGER = Logger.getLogger(StatusLog.class.getName());
+
+    /** Number of lines kept in the log. */
+    static final int MAX_LINES = 1000;
+    /** Delay between the first queued message and the flush that inserts it. */
+    private static final int FRAME_MILLIS = 16;
+    /** Character attribute holding the target of a link. */
+    private static final Object LINK_ATTRIBUTE = new Object();
+
+    /**
+     * Appearance of a log entry.
+     */
+    enum Kind {
+        INFO(UIConstants.TEXT_COLOR, false),
+        SUCCESS(UIConstants.SUCCESS_COLOR, false),
+        WARNING(UIConstants.WARNING_COLOR, false),
+        ERROR(UIConstants.ERROR_COLOR, false),
+        CODE(UIConstants.TEXT_COLOR, true);
+
+        private final SimpleAttributeSet attributes = new SimpleAttributeSet();
+
+        Kind(Color color, boolean monospaced) {
+            StyleConstants.setForeground(attributes, color);
+            if (monospaced) {
+                StyleConstants.setFontFamily(attributes, UIConstants.CODE_FONT.getFamily());
+                StyleConstants.setFontSize(attributes, UIConstants.CODE_FONT.getSize());
+            }
+        }
+    }
+
+    /**
+     * Queued text waiting for the next flush.
+     */
+    private static final class Entry {
+        private final String text;
+        private final AttributeSet attributes;
+
+        Entry(String text, AttributeSet attributes) {
+            this.text = text;
+            this.attributes = attributes;
+        }
+    }
+
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Timer flushTimer = new Timer(FRAME_MILLIS, e -> flush());
+
+    /**
+     * Creates an empty log.
+     */
+    StatusLog() {
+        setEditable(false);
+        setFont(UIConstants.NORMAL_FONT);
+        flushTimer.setRepeats(false);
+
+        MouseAdapter links = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                URI target = linkAt(e);
+                if (target != null) {
+                    openLink(target);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setCursor(Cursor.getPredefinedCursor(linkAt(e) != null ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+            }
+        };
+        addMouseListener(links);
+        addMouseMotionListener(links);
+    }
+
+    /**
+     * Appends a message as one or more lines. May be called from any thread.
+     * @param message Message to append
+     * @param kind Appearance of the message
+     */
+    void append(String message, Kind kind) {
+        enqueue(new Entry(message + "\n", kind.attributes));
+    }
+
+    /**
+     * Appends a line ending in a clickable link. May be called from any thread.
+     * @param label Text shown before the link
+     * @param target Address opened in the browser when the link is clicked
+     */
+    void appendLink(String label, URI target) {
+        SimpleAttributeSet link = new SimpleAttributeSet();
+        StyleConstants.setForeground(link, UIConstants.PRIMARY_COLOR);
+        StyleConstants.setUnderline(link, true);
+        link.addAttribute(LINK_ATTRIBUTE, target);
+        enqueue(new Entry(label, Kind.INFO.attributes));
+        enqueue(new Entry(target.toString(), link));
+        enqueue(new Entry("\n", Kind.INFO.attributes));
+    }
+
+    private void enqueue(Entry entry) {
+        pending.add(entry);
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushTimer.start();
+        }
+    }
+
+    // Runs on the EDT; inserts everything queued since the last flush and trims the oldest lines
+    private void flush() {
+        flushScheduled.set(false);
+        StyledDocument document = getStyledDocument();
+        List<Entry> batch = new ArrayList<>();
+        for (Entry entry; (entry = pending.poll()) != null; ) {
+            batch.add(entry);
+        }
+        try {
+            // Entries that would be trimmed right away are never inserted
+            int first = batch.size();
+            for (int lines = 0; first > 0 && lines <= MAX_LINES; ) {
+                lines += countLines(batch.get(--first).text);
+            }
+            // Consecutive entries with the same appearance are inserted as one run
+            StringBuilder run = new StringBuilder();
+            AttributeSet runAttributes = null;
+            for (Entry entry : batch.subList(first, batch.size())) {
+                if (entry.attributes != runAttributes && run.length() > 0) {
+                    document.insertString(document.getLength(), run.toString(), runAttributes);
+                    run.setLength(0);
+                }
+                run.append(entry.text);
+                runAttributes = entry.attributes;
+            }
+            if (run.length() > 0) {
+                document.insertString(document.getLength(), run.toString(), runAttributes);
+            }
+            Element root = document.getDefaultRootElement();
+            // The document always ends with an empty line after the last newline
+            int excess = root.getElementCount() - 1 - MAX_LINES;
+            if (excess > 0) {
+                document.remove(0, root.getElement(excess - 1).getEndOffset());
+            }
+        } catch (BadLocationException e) {
+            LOGGER.log(Level.WARNING, "Could not update the status log", e);
+        }
+        setCaretPosition(document.getLength());
+    }
+
+    private static int countLines(String text) {
+        int lines = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            lines++;
+        }
+        return lines;
+    }
+
+    private URI linkAt(MouseEvent e) {
+        int position = viewToModel2D(e.getPoint());
+        if (position < 0) {
+            return null;
+        }
+        Object target = getStyledDocument().getCharacterElement(position).getAttributes().getAttribute(LINK_ATTRIBUTE);
+        return target instanceof URI ? (URI) target : null;
+    }
+
+    private void openLink(URI target) {
+        try {
+            Desktop.getDesktop().browse(target);
+            append("Opening link in your browser...", Kind.INFO);
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Failed to open link " + target, ex);
+            append("Failed to open link: " + ex.getMessage(), Kind.ERROR);
+        }
+    }
+}
@@ -20,6 +20,8 @@ public final class UIConstants {
     public static final Color PRIMARY_COLOR = new Color(70, 130, 180);
     public static final Color SUCCESS_COLOR = new Color(46, 139, 87);
     public static final Color TEXT_COLOR = new Color(50, 50, 50);
+    public static final Color WARNING_COLOR = new Color(255, 160, 122);
+    public static final Color ERROR_COLOR = new Color(178, 34, 34);
     public static final Color HELP_COLOR = new Color(100, 149, 237);
     public static final Color AI_COLOR = new Color(38, 166, 91);
     
@@ -33,6 +35,7 @@ public final class UIConstants {
     // UI Fonts
     public static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 14);
     public static final Font NORMAL_FONT = new Font("Arial", Font.PLAIN, 14);
+    public static final Font CODE_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 13);
     
     // Dimensions and Sizes
     public static final int WINDOW_WIDTH = 800;
@@ -44,6 +47,9 @@ public final class UIConstants {
     public static final int BORDER_THICKNESS = 1;
     public static final int BORDER_RADIUS = 15;
     
+    // Entries of the code tree shown in the status log after a transformation
+    public static final int STRUCTURE_MAX_ENTRIES = 200;
+    
     // Animation Constants
     public static final int HOVER_ANIMATION_DURATION = 200;
     
@@ -23,6 +23,17 @@ public final class AIPlatformURLs {
     
     private static final String[] SUPPORTED_PLATFORMS = {"ChatGPT", "Gemini", "Copilot", "Codeium"};
 
+    /**
+     * Generate the chat URL of the specified AI platform.
+     * The code itself is handed over through the clipboard, so it is not part of the URL.
+     * @param platform The AI platform ("chatgpt", "gemini", "copilot", "codeium")
+     * @return A URI for the AI platform
+     * @throws IllegalArgumentException if the platform is not supported
+     */
+    public static URI generateAIURL(String platform) {
+        return generateAIURL(platform, "");
+    }
+
     /**
      * Generate a URL for the specified AI platform with code content.
      * @param platform The AI platform ("chatgpt", "gemini", "copilot", "codeium")
@@ -0,0 +1,140 @@
+package com.codetransformer.util;
+
+import com.codetransformer.config.FileProcessingConfig;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the UTF-8 prefix of a file up to a character budget.
+ * Only the bytes that can contribute to the first {@code maxChars} characters are read and
+ * decoded, so a huge file costs no more than its truncated prefix. Small files are read into
+ * a heap buffer; files above {@link FileProcessingConfig#MAPPED_READ_THRESHOLD} bytes are
+ * memory-mapped instead.
+ */
+public final class BoundedFileReader {
+    // A UTF-8 encoded char takes at most 3 bytes; 4 more bytes cover a trailing partial sequence
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    private static final int PARTIAL_SEQUENCE_BYTES = 4;
+
+    private BoundedFileReader() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Result of a bounded read.
+     */
+    public static final class ReadResult {
+        private final String text;
+        private final boolean truncated;
+        private final long bytesRead;
+
+        private ReadResult(String text, boolean truncated, long bytesRead) {
+            this.text = text;
+            this.truncated = truncated;
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * @return The decoded text, at most {@code maxChars} characters long
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return true if the file holds more characters than were returned
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * @return Number of bytes taken from the file
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+    }
+
+    /**
+     * Reads a file, choosing between a heap and a mapped buffer by file size.
+     * @param path File to read
+     * @param maxChars Maximum number of characters to return
+     * @return The decoded prefix
+     * @throws IOException if the file cannot be read or is not valid UTF-8 within the prefix
+     */
+    public static ReadResult read(Path path, int maxChars) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, maxChars, channel.size() > FileProcessingConfig.MAPPED_READ_THRESHOLD);
+        }
+    }
+
+    /**
+     * Reads a file with an explicitly chosen buffer kind.
+     * @param path File to read
+     * @param maxChars Maximum number of characters to return
+     * @param mapped true to memory-map the file, false to read it into a heap buffer
+     * @return The decoded prefix
+     * @throws IOException if the file cannot be read or is not valid UTF-8 within the prefix
+     */
+    public static ReadResult read(Path path, int maxChars, boolean mapped) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, maxChars, mapped);
+        }
+    }
+
+    private static ReadResult read(FileChannel channel, int maxChars, boolean mapped) throws IOException {
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("Max size must be positive");
+        }
+        long size = channel.size();
+        long byteLimit = Math.min(size, (maxChars + 1L) * MAX_BYTES_PER_CHAR + PARTIAL_SEQUENCE_BYTES);
+        ByteBuffer bytes = mapped
+            ? channel.map(FileChannel.MapMode.READ_ONLY, 0, byteLimit)
+            : readFully(channel, (int) byteLimit);
+
+        // One spare slot tells us whether more characters follow the budget
+        CharBuffer chars = CharBuffer.allocate((int) Math.min(maxChars + 1L, byteLimit));
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        boolean endOfInput = byteLimit == size;
+        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+        if (result.isError()) {
+            result.throwException();
+        }
+        boolean overflow = result.isOverflow();
+        if (!overflow && endOfInput) {
+            result = decoder.flush(chars);
+            if (result.isError()) {
+                result.throwException();
+            }
+            overflow = result.isOverflow();
+        }
+        chars.flip();
+
+        boolean truncated = overflow || chars.length() > maxChars;
+        if (chars.length() > maxChars) {
+            chars.limit(maxChars);
+        }
+        return new ReadResult(chars.toString(), truncated, bytes.position());
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("File shrank while it was being read");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
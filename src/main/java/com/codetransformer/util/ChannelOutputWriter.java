@@ -0,0 +1,200 @@
+package com.codetransformer.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 writer that encodes straight into a fixed-size direct buffer and drains it to a channel,
+ * usually a file channel or a {@link ParallelGzipOutputStream}.
+ * Memory use is bounded by the buffer size, regardless of how much text is written.
+ */
+public final class ChannelOutputWriter extends Writer {
+    /**
+     * Default size of the encoding buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer buffer;
+    private long drained;
+    private char pendingHighSurrogate;
+    private boolean hasPendingHighSurrogate;
+    private boolean closed;
+
+    /**
+     * Creates a writer with the default buffer size.
+     * @param channel Channel to write to; it is closed together with this writer
+     */
+    public ChannelOutputWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer with the given buffer size.
+     * @param channel Channel to write to; it is closed together with this writer
+     * @param bufferSize Size of the encoding buffer in bytes
+     */
+    public ChannelOutputWriter(WritableByteChannel channel, int bufferSize) {
+        if (channel == null) {
+            throw new NullPointerException("Channel cannot be null");
+        }
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        encode(CharBuffer.wrap(str, off, off + len));
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode(CharBuffer.wrap(new char[] {(char) c}));
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        encode(CharBuffer.wrap(csq == null ? "null" : csq));
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes written through this writer, including bytes still held in the buffer.
+     * @return Current byte position in the output
+     * @throws IOException if the writer is closed
+     */
+    public long position() throws IOException {
+        ensureOpen();
+        return drained + buffer.position();
+    }
+
+    /**
+     * Writes already encoded UTF-8 bytes, bypassing the encoder.
+     * @param bytes Bytes to write
+     * @throws IOException if the writer is closed or in the middle of a surrogate pair
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        ensureOpen();
+        if (hasPendingHighSurrogate) {
+            throw new IOException("Cannot write bytes in the middle of a surrogate pair");
+        }
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Copies a byte range of another file straight into the output, bypassing the encoder.
+     * Any buffered text is written first so that the order of the output is preserved.
+     * @param source Channel to copy from
+     * @param position Start of the range in the source
+     * @param count Number of bytes to copy
+     * @throws IOException if the source ends early or the copy fails
+     */
+    public void transferFrom(FileChannel source, long position, long count) throws IOException {
+        ensureOpen();
+        if (hasPendingHighSurrogate) {
+            throw new IOException("Cannot copy bytes in the middle of a surrogate pair");
+        }
+        drain();
+        long end = position + count;
+        while (position < end) {
+            long transferred = source.transferTo(position, end - position, channel);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of source while copying " + count + " bytes");
+            }
+            position += transferred;
+            drained += transferred;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            CharBuffer rest = hasPendingHighSurrogate
+                ? CharBuffer.wrap(new char[] {pendingHighSurrogate})
+                : CharBuffer.allocate(0);
+            hasPendingHighSurrogate = false;
+            encode(rest, true);
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        ensureOpen();
+        // A surrogate pair may be split across two write calls
+        if (hasPendingHighSurrogate && chars.hasRemaining()) {
+            hasPendingHighSurrogate = false;
+            encode(CharBuffer.wrap(new char[] {pendingHighSurrogate, chars.get()}), false);
+        }
+        encode(chars, false);
+        if (chars.hasRemaining()) {
+            pendingHighSurrogate = chars.get();
+            hasPendingHighSurrogate = true;
+        }
+    }
+
+    private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            drained += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.codetransformer.util;
+
+import java.nio.CharBuffer;
+
+/**
+ * Fast, non-cryptographic 64-bit hashing of text content.
+ * Mixes four UTF-16 code units per step (MurmurHash3 style), which keeps it cheap enough
+ * to run on every file that is read. Values are stable across runs and JVMs.
+ */
+public final class ContentHash {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private ContentHash() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Hashes a character sequence.
+     * @param text Text to hash
+     * @return 64-bit hash of the text
+     */
+    public static long of(CharSequence text) {
+        int length = text.length();
+        long hash = SEED;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = (long) text.charAt(i)
+                | ((long) text.charAt(i + 1) << 16)
+                | ((long) text.charAt(i + 2) << 32)
+                | ((long) text.charAt(i + 3) << 48);
+            hash = mixInto(hash, block);
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) text.charAt(i) << shift;
+        }
+        return finish(hash, tail, length);
+    }
+
+    /**
+     * Incrementally hashes text that arrives in pieces.
+     * The result equals {@link ContentHash#of(CharSequence)} over the concatenated pieces.
+     */
+    public static final class Accumulator {
+        private long hash = SEED;
+        private long block;
+        private int pending;
+        private long length;
+
+        /**
+         * Folds the remaining characters of a buffer into the hash without consuming them.
+         * @param chars Characters to add
+         */
+        public void update(CharBuffer chars) {
+            for (int i = chars.position(), end = chars.limit(); i < end; i++) {
+                block |= (long) chars.get(i) << (pending << 4);
+                if (++pending == 4) {
+                    hash = mixInto(hash, block);
+                    block = 0;
+                    pending = 0;
+                }
+            }
+            length += chars.remaining();
+        }
+
+        /**
+         * @return Hash of all characters added so far
+         */
+        public long finish() {
+            return ContentHash.finish(hash, block, length);
+        }
+    }
+
+    /**
+     * Combines a running hash with another value, order-dependently.
+     * Used to build Merkle-style hashes over ordered children.
+     * @param hash Running hash
+     * @param value Value to fold in
+     * @return Combined hash
+     */
+    public static long combine(long hash, long value) {
+        return finalizeHash(mixInto(hash, value));
+    }
+
+    /**
+     * Formats a hash as a fixed-width hexadecimal string.
+     * @param hash Hash to format
+     * @return 16-character hexadecimal representation
+     */
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * Parses a hash written by {@link #toHex(long)}.
+     * @param hex Hexadecimal representation
+     * @return The hash
+     * @throws NumberFormatException if the text is not a valid hash
+     */
+    public static long fromHex(String hex) {
+        return Long.parseUnsignedLong(hex, 16);
+    }
+
+    private static long mixInto(long hash, long block) {
+        hash ^= mixBlock(block);
+        return Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+    }
+
+    private static long finish(long hash, long tail, long length) {
+        hash ^= mixBlock(tail);
+        return finalizeHash(hash ^ length);
+    }
+
+    private static long mixBlock(long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        return block * C2;
+    }
+
+    private static long finalizeHash(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,59 @@
+package com.codetransformer.util;
+
+import com.codetransformer.model.ContentHandle;
+
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+
+/**
+ * Clipboard contents backed by a transformation's content handle.
+ * Nothing is read when the contents are placed on the clipboard; the text is produced from the
+ * handle, usually the {@code _code_only.txt} output file, each time a paste asks for it.
+ * The text is offered as a string and as a reader.
+ */
+public final class ContentTransferable implements Transferable, ClipboardOwner {
+    private static final DataFlavor READER_FLAVOR = new DataFlavor("text/plain;class=java.io.Reader", "Plain Text");
+
+    private final ContentHandle content;
+
+    /**
+     * Creates clipboard contents for the given content.
+     * @param content Content to copy; it is not read until the data is requested
+     */
+    public ContentTransferable(ContentHandle content) {
+        if (content == null) {
+            throw new NullPointerException("Content cannot be null");
+        }
+        this.content = content;
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors() {
+        return new DataFlavor[] {DataFlavor.stringFlavor, READER_FLAVOR};
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        return DataFlavor.stringFlavor.equals(flavor) || READER_FLAVOR.equals(flavor);
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+        if (DataFlavor.stringFlavor.equals(flavor)) {
+            return content.load();
+        }
+        if (READER_FLAVOR.equals(flavor)) {
+            return content.openReader();
+        }
+        throw new UnsupportedFlavorException(flavor);
+    }
+
+    @Override
+    public void lostOwnership(Clipboard clipboard, Transferable contents) {
+        // Nothing is held open between requests
+    }
+}
@@ -2,6 +2,7 @@ package com.codetransformer.util;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
 
 /**
  * Service interface for file operations.
@@ -40,6 +41,36 @@ public interface FileService {
      */
     String readFileContent(Path path, int maxSize) throws IOException;
 
+    /**
+     * Copies a file's bytes unchanged into an output writer when no decoding is needed.
+     * This is the case when the file is valid UTF-8 and too small to be truncated by
+     * {@link #readFileContent(Path)}. Nothing is written when the file does not qualify.
+     * 
+     * @param path Path to the file
+     * @param out Writer to copy into
+     * @param hash Accumulator receiving the file's characters, or null
+     * @param tokens Counter receiving the file's characters, or null
+     * @return true if the file was copied, false if it must be read with {@link #readFileContent(Path)}
+     * @throws IOException if reading or writing fails, or the file is not valid UTF-8
+     * @throws NullPointerException if path or out is null
+     */
+    boolean transferFileContent(Path path, ChannelOutputWriter out, ContentHash.Accumulator hash,
+                                TokenEstimator.Counter tokens) throws IOException;
+
+    /**
+     * Opens a file and validates it, the reading half of {@link #transferFileContent}.
+     * Lets a caller validate files ahead of the output and copy them once their turn comes.
+     * 
+     * @param path Path to the file
+     * @param hash Accumulator receiving the file's characters, or null
+     * @param tokens Counter receiving the file's characters, or null
+     * @return The validated file, which the caller closes, or null if it must be read with {@link #readFileContent(Path)}
+     * @throws IOException if reading fails or the file is not valid UTF-8
+     * @throws NullPointerException if path is null
+     */
+    ValidatedFile openValidatedFile(Path path, ContentHash.Accumulator hash,
+                                    TokenEstimator.Counter tokens) throws IOException;
+
     /**
      * Writes content to a file.
      * 
@@ -50,6 +81,46 @@ public interface FileService {
      */
     void writeFileContent(Path path, String content) throws IOException;
 
+    /**
+     * Writes content to a file, optionally as a gzip stream compressed on several cores.
+     * 
+     * @param path Path to write to
+     * @param content Content to write
+     * @param compressed true to write the UTF-8 bytes through a {@link ParallelGzipOutputStream}
+     * @param executor Executor compressing the blocks
+     * @param parallelism Number of threads of the executor that compression may use
+     * @throws IOException if writing fails
+     * @throws NullPointerException if path or content is null
+     */
+    void writeFileContent(Path path, String content, boolean compressed, Executor executor, int parallelism)
+        throws IOException;
+
+    /**
+     * Opens a buffered UTF-8 writer that streams into the given file.
+     * The file is created or truncated; closing the writer closes the file.
+     * 
+     * @param path Path to write to
+     * @return A writer backed by a file channel
+     * @throws IOException if the file cannot be opened
+     * @throws NullPointerException if path is null
+     */
+    ChannelOutputWriter openOutputWriter(Path path) throws IOException;
+
+    /**
+     * Opens a buffered UTF-8 writer that streams into the given file, optionally through a
+     * {@link ParallelGzipOutputStream}.
+     * 
+     * @param path Path to write to
+     * @param compressed true to compress the output with gzip
+     * @param executor Executor compressing the blocks
+     * @param parallelism Number of threads of the executor that compression may use
+     * @return A writer backed by the file
+     * @throws IOException if the file cannot be opened
+     * @throws NullPointerException if path is null
+     */
+    ChannelOutputWriter openOutputWriter(Path path, boolean compressed, Executor executor, int parallelism)
+        throws IOException;
+
     /**
      * Checks if a file is a code file based on its extension.
      * 
@@ -1,9 +1,13 @@
 package com.codetransformer.util;
 
 import com.codetransformer.config.FileProcessingConfig;
+import com.codetransformer.metrics.FileReadEvent;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
 
 /**
  * Implementation of FileService interface.
@@ -54,14 +58,75 @@ public final class FileUtils implements FileService {
             throw new IOException("Path is not a regular file: " + path);
         }
         
-        String content = Files.readString(path);
-        if (content.length() > maxSize) {
-            content = content.substring(0, maxSize) + 
+        // Only the prefix that fits the budget is read and decoded
+        FileReadEvent event = new FileReadEvent();
+        event.begin();
+        BoundedFileReader.ReadResult read;
+        try {
+            read = BoundedFileReader.read(path, maxSize);
+        } catch (IOException e) {
+            event.finish(path, 0L, FileReadEvent.FAILED);
+            throw e;
+        }
+        event.finish(path, read.getBytesRead(),
+            read.isTruncated() ? FileReadEvent.TRUNCATED : FileReadEvent.READ);
+        String content = read.getText();
+        if (read.isTruncated()) {
+            content = content + 
                      "\n... (file truncated due to size limit of " + maxSize + " characters) ...";
         }
         return content;
     }
 
+    @Override
+    public boolean transferFileContent(Path path, ChannelOutputWriter out, ContentHash.Accumulator hash,
+                                       TokenEstimator.Counter tokens) throws IOException {
+        if (out == null) {
+            throw new NullPointerException("Output writer cannot be null");
+        }
+        try (ValidatedFile file = openValidatedFile(path, hash, tokens)) {
+            if (file == null) {
+                return false;
+            }
+            file.transferTo(out);
+            return true;
+        }
+    }
+
+    @Override
+    public ValidatedFile openValidatedFile(Path path, ContentHash.Accumulator hash,
+                                           TokenEstimator.Counter tokens) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("File path cannot be null");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Path is not a regular file: " + path);
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            // A file with no more bytes than the character limit can never be truncated
+            if (size > FileProcessingConfig.DEFAULT_MAX_FILE_SIZE) {
+                channel.close();
+                return null;
+            }
+            FileReadEvent event = new FileReadEvent();
+            event.begin();
+            try {
+                Utf8Validator.validate(channel, size, hash, tokens);
+            } catch (IOException e) {
+                event.finish(path, 0L, FileReadEvent.FAILED);
+                throw e;
+            }
+            event.finish(path, size, FileReadEvent.READ);
+            return new ValidatedFile(channel, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
     @Override
     public void writeFileContent(Path path, String content) throws IOException {
         if (path == null) {
@@ -73,6 +138,43 @@ public final class FileUtils implements FileService {
         Files.writeString(path, content);
     }
 
+    @Override
+    public void writeFileContent(Path path, String content, boolean compressed, Executor executor, int parallelism)
+            throws IOException {
+        if (!compressed) {
+            writeFileContent(path, content);
+            return;
+        }
+        if (content == null) {
+            throw new NullPointerException("Content cannot be null");
+        }
+        try (ChannelOutputWriter out = openOutputWriter(path, true, executor, parallelism)) {
+            out.write(content);
+        }
+    }
+
+    @Override
+    public ChannelOutputWriter openOutputWriter(Path path) throws IOException {
+        if (path == null) {
+            throw new NullPointerException("File path cannot be null");
+        }
+        return new ChannelOutputWriter(FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    @Override
+    public ChannelOutputWriter openOutputWriter(Path path, boolean compressed, Executor executor, int parallelism)
+            throws IOException {
+        if (!compressed) {
+            return openOutputWriter(path);
+        }
+        if (path == null) {
+            throw new NullPointerException("File path cannot be null");
+        }
+        return new ChannelOutputWriter(new ParallelGzipOutputStream(Files.newOutputStream(path),
+            executor, parallelism));
+    }
+
     @Override
     public boolean isCodeFile(Path path) {
         if (path == null) {
@@ -0,0 +1,125 @@
+package com.codetransformer.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only view of a text file that serves single lines by number.
+ * Opening the file scans it once for line breaks and keeps only the offset of each line;
+ * a line's bytes are read from the channel when it is requested, so memory use does not
+ * depend on the size of the file. Lines may be read from any thread.
+ */
+public final class LineIndexedFile implements Closeable {
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long[] lineStarts;
+    private final int lineCount;
+
+    private LineIndexedFile(FileChannel channel, long size, long[] lineStarts, int lineCount) {
+        this.channel = channel;
+        this.size = size;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Opens and indexes a file. This reads the whole file once, so it should not run on the UI thread.
+     * @param path File to open
+     * @return The indexed file
+     * @throws IOException if the file cannot be read or has more than {@code Integer.MAX_VALUE} lines
+     */
+    public static LineIndexedFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long[] starts = new long[1024];
+            int count = 0;
+            if (size > 0) {
+                starts[count++] = 0L;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+            long position = 0;
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("File shrank while it was being indexed");
+                }
+                for (int i = 0; i < read; i++) {
+                    // A line break at the very end does not start another line
+                    if (buffer.get(i) == '\n' && position + i + 1 < size) {
+                        if (count == starts.length) {
+                            if (count == Integer.MAX_VALUE - 1) {
+                                throw new IOException("Too many lines to index: " + path);
+                            }
+                            starts = Arrays.copyOf(starts, (int) Math.min(Integer.MAX_VALUE - 1L, count * 2L));
+                        }
+                        starts[count++] = position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return new LineIndexedFile(channel, size, starts, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of lines in the file
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return Size of the file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Reads one line without its line terminator.
+     * @param index Line number, starting at 0
+     * @param maxBytes Maximum number of bytes to read; longer lines are cut off
+     * @return The decoded line; malformed UTF-8 is replaced
+     * @throws IOException if the line cannot be read
+     */
+    public String getLine(int index, int maxBytes) throws IOException {
+        if (index < 0 || index >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + lineCount);
+        }
+        long start = lineStarts[index];
+        long end = index + 1 < lineCount ? lineStarts[index + 1] : size;
+        boolean cut = end - start > maxBytes;
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(end - start, maxBytes));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                throw new EOFException("File shrank after it was indexed");
+            }
+        }
+        int length = bytes.position();
+        if (!cut) {
+            while (length > 0 && (bytes.get(length - 1) == '\n' || bytes.get(length - 1) == '\r')) {
+                length--;
+            }
+        }
+        return new String(bytes.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
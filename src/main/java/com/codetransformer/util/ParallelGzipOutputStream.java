@@ -0,0 +1,257 @@
+package com.codetransformer.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output that compresses fixed-size blocks on several threads, in the manner of pigz.
+ * Every block is deflated into a complete gzip member and the members are written in order, so the
+ * result is a standard concatenated gzip stream that {@code gzip -d}, {@code zcat} and
+ * {@link java.util.zip.GZIPInputStream} read as one file. Blocks do not share a dictionary, which
+ * costs a little ratio at each boundary in exchange for compression that scales with the cores.
+ * At most twice the parallelism of blocks are in flight, so memory stays bounded.
+ * The stream is also a channel, so a {@link ChannelOutputWriter} can encode straight into it.
+ */
+public final class ParallelGzipOutputStream extends OutputStream implements WritableByteChannel {
+    /** Default size of the uncompressed blocks, the one pigz uses. */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    // Magic, deflate, no flags, no modification time, no extra flags, unknown operating system
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_LENGTH = 8;
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int maxPending;
+    private final int blockSize;
+    private final int level;
+    private final ArrayDeque<CompletableFuture<Member>> pending = new ArrayDeque<>();
+    private final Queue<byte[]> spareBlocks = new ConcurrentLinkedQueue<>();
+    private byte[] block;
+    private int count;
+    private long members;
+    private boolean closed;
+
+    /**
+     * Creates a stream with the default block size and compression level.
+     * @param out Stream receiving the gzip members; it is closed together with this stream
+     * @param executor Executor running the compression of the blocks
+     * @param parallelism Number of threads of the executor that compression may use
+     */
+    public ParallelGzipOutputStream(OutputStream out, Executor executor, int parallelism) {
+        this(out, executor, parallelism, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a stream.
+     * @param out Stream receiving the gzip members; it is closed together with this stream
+     * @param executor Executor running the compression of the blocks
+     * @param parallelism Number of threads of the executor that compression may use
+     * @param blockSize Size of the uncompressed blocks in bytes
+     * @param level Deflate level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public ParallelGzipOutputStream(OutputStream out, Executor executor, int parallelism, int blockSize, int level) {
+        if (out == null || executor == null) {
+            throw new NullPointerException("Output and executor cannot be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (blockSize < 1024) {
+            throw new IllegalArgumentException("Block size must be at least 1024 bytes");
+        }
+        this.out = out;
+        this.executor = executor;
+        this.maxPending = 2 * parallelism;
+        this.blockSize = blockSize;
+        this.level = level;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int chunk = Math.min(length, blockSize - count);
+            System.arraycopy(bytes, offset, block, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        ensureOpen();
+        int written = source.remaining();
+        while (source.hasRemaining()) {
+            int chunk = Math.min(source.remaining(), blockSize - count);
+            source.get(block, count, chunk);
+            count += chunk;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Ends the current block early and writes every member compressed so far.
+     * Each flush with buffered data adds a member, so flushing often lowers the ratio.
+     * @throws IOException if compressing or writing fails
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeMember(pending.poll());
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Compresses the last block, writes all members and closes the underlying stream.
+     * An empty stream still gets one member, so the result is always valid gzip.
+     * @throws IOException if compressing or writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (count > 0 || members == 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeMember(pending.poll());
+            }
+        } finally {
+            closed = true;
+            pending.forEach(member -> member.cancel(false));
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = count;
+        pending.add(CompletableFuture.supplyAsync(() -> {
+            Member member = compress(data, length, level);
+            spareBlocks.add(data);
+            return member;
+        }, executor));
+        members++;
+        byte[] spare = spareBlocks.poll();
+        block = spare != null ? spare : new byte[blockSize];
+        count = 0;
+        // Members are written in order; wait for the oldest only when too many are in flight
+        while (!pending.isEmpty() && (pending.size() >= maxPending || pending.peek().isDone())) {
+            writeMember(pending.poll());
+        }
+    }
+
+    private void writeMember(CompletableFuture<Member> future) throws IOException {
+        Member member;
+        try {
+            member = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        }
+        out.write(member.bytes, 0, member.length);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    /**
+     * Deflates one block into a complete gzip member.
+     * @param data Block to compress
+     * @param length Number of bytes of the block in use
+     * @param level Deflate level
+     * @return The member
+     */
+    static Member compress(byte[] data, int length, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        // Deflate never grows data by more than this bound, so one pass is almost always enough
+        byte[] member = new byte[HEADER.length + length + (length >> 12) + (length >> 14) + 64 + TRAILER_LENGTH];
+        System.arraycopy(HEADER, 0, member, 0, HEADER.length);
+        int size = HEADER.length;
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (size == member.length - TRAILER_LENGTH) {
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                size += deflater.deflate(member, size, member.length - TRAILER_LENGTH - size);
+            }
+        } finally {
+            deflater.end();
+        }
+        size = putIntLittleEndian(member, size, (int) crc.getValue());
+        size = putIntLittleEndian(member, size, length);
+        return new Member(member, size);
+    }
+
+    private static int putIntLittleEndian(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+        return offset + 4;
+    }
+
+    /**
+     * One compressed gzip member and its length within the array.
+     */
+    static final class Member {
+        final byte[] bytes;
+        final int length;
+
+        Member(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,800 @@
+package com.codetransformer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Strips comments and collapses whitespace in source code while leaving literals untouched.
+ * Each language is described by a {@link Syntax} of one of three families: C-like languages with
+ * {@code //} and {@code /* *}{@code /} comments, Python and shell-like languages with {@code #}
+ * comments, and Lisp-like languages with a single line comment marker and prefixed character
+ * literals. The lexer is a single forward pass over the characters without regular expressions.
+ * Line breaks are kept, since several languages end statements at them; blank lines, trailing
+ * whitespace and, except in indentation-sensitive languages, indentation are removed, and every
+ * other run of whitespace becomes a single space. Strings, character literals, raw strings,
+ * here-documents and regular expression literals are copied unchanged.
+ */
+public final class SourceMinifier {
+    // Previous characters after which a slash in JavaScript starts a regular expression
+    private static final String REGEX_PRECEDERS = "(,=:[!&|?{};";
+
+    private static final Map<String, Syntax> SYNTAXES;
+
+    static {
+        Syntax java = cLike().build();
+        Syntax nestingJvm = cLike().withNestedBlocks().build();
+        Syntax c = cLike().withRawStrings(RawStrings.CPP).build();
+        Syntax javascript = cLike().withQuotes("\"'`").withoutCharQuotes().withoutTripleQuotes()
+            .withRegexLiterals().build();
+        Syntax python = scriptLike().withTripleQuotes().withOffside().build();
+        Syntax shell = scriptLike().withQuotes("\"'`").withRawQuotes("'").withWordComments().withCodeEscapes()
+            .withHeredocs(Heredocs.SHELL).build();
+        Syntax perl = scriptLike().withQuotes("\"'`").withWordComments().withHeredocs(Heredocs.PERL).build();
+        Syntax ruby = scriptLike().withQuotes("\"'`").withHeredocs(Heredocs.RUBY).build();
+        SYNTAXES = Map.ofEntries(
+            Map.entry("java", java),
+            Map.entry("groovy", cLike().withQuotes("\"'").withoutCharQuotes().build()),
+            Map.entry("kt", nestingJvm),
+            Map.entry("kts", nestingJvm),
+            Map.entry("scala", nestingJvm),
+            Map.entry("swift", cLike().withNestedBlocks().withoutCharQuotes().withRawStrings(RawStrings.SWIFT).build()),
+            Map.entry("c", c),
+            Map.entry("h", c),
+            Map.entry("cpp", c),
+            Map.entry("hpp", c),
+            Map.entry("m", c),
+            Map.entry("mm", c),
+            Map.entry("cs", cLike().withRawStrings(RawStrings.CSHARP).build()),
+            Map.entry("go", cLike().withQuotes("\"`").withRawQuotes("`").withoutTripleQuotes().build()),
+            Map.entry("rs", cLike().withNestedBlocks().withoutTripleQuotes().withRawStrings(RawStrings.RUST).build()),
+            Map.entry("js", javascript),
+            Map.entry("ts", javascript),
+            Map.entry("php", cLike().withQuotes("\"'").withoutCharQuotes().withoutTripleQuotes()
+                .withHeredocs(Heredocs.PHP).build()),
+            Map.entry("py", python),
+            Map.entry("rb", ruby),
+            Map.entry("r", ruby),
+            Map.entry("sh", shell),
+            Map.entry("bash", shell),
+            Map.entry("pl", perl),
+            Map.entry("pm", perl),
+            Map.entry("t", perl),
+            Map.entry("ps1", scriptLike().withBlock("<#", "#>").withWordComments().withEscape('`').build()),
+            Map.entry("ex", scriptLike().withTripleQuotes().withCharPrefix("?").build()),
+            Map.entry("exs", scriptLike().withTripleQuotes().withCharPrefix("?").build()),
+            Map.entry("lua", new Syntax.Builder().withLineComment("--").withBlock("--[[", "]]")
+                .withVerbatim("[[", "]]").withQuotes("\"'").build()),
+            Map.entry("sql", new Syntax.Builder().withLineComment("--").withBlock("/*", "*/")
+                .withQuotes("'\"").withEscape((char) 0).build()),
+            Map.entry("elm", new Syntax.Builder().withLineComment("--").withBlock("{-", "-}").withNestedBlocks()
+                .withQuotes("\"").withCharQuotes().withTripleQuotes().withOffside().build()),
+            Map.entry("erl", lispLike("%", "$").withQuotes("\"'").build())
+        );
+    }
+
+    private SourceMinifier() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Looks up the syntax of a file extension.
+     * @param extension Extension without the dot, in any case
+     * @return The syntax, or null if files with this extension are not minified
+     */
+    public static Syntax syntaxFor(String extension) {
+        return SYNTAXES.get(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Minifies source code.
+     * @param source Source code
+     * @param syntax Syntax of its language
+     * @return The code without comments and redundant whitespace
+     */
+    public static String minify(String source, Syntax syntax) {
+        return new Lexer(source, syntax).run();
+    }
+
+    private static Syntax.Builder cLike() {
+        return new Syntax.Builder().withLineComment("//").withBlock("/*", "*/").withQuotes("\"")
+            .withCharQuotes().withTripleQuotes();
+    }
+
+    private static Syntax.Builder scriptLike() {
+        return new Syntax.Builder().withLineComment("#").withQuotes("\"'").withShebang();
+    }
+
+    private static Syntax.Builder lispLike(String lineComment, String charPrefix) {
+        return new Syntax.Builder().withLineComment(lineComment).withQuotes("\"").withCharPrefix(charPrefix);
+    }
+
+    /**
+     * Raw string forms whose content has no escapes and may contain the quote character.
+     */
+    private enum RawStrings {
+        NONE,
+        /** {@code r"..."} and {@code r#"..."#}. */
+        RUST,
+        /** {@code #"..."#}. */
+        SWIFT,
+        /** {@code R"delimiter(...)delimiter"}. */
+        CPP,
+        /** {@code @"..."} with doubled quotes. */
+        CSHARP
+    }
+
+    /**
+     * Here-document forms, whose bodies run from the next line up to a terminator line.
+     */
+    private enum Heredocs {
+        NONE,
+        /** {@code <<WORD}, {@code <<'WORD'} and {@code <<-WORD} with tab-indented terminator. */
+        SHELL,
+        /** {@code <<WORD}, {@code <<"WORD"}, and {@code <<-WORD} and {@code <<~WORD} with indented terminator. */
+        RUBY,
+        /** {@code <<WORD}, {@code <<"WORD"}, and {@code <<~WORD} with indented terminator. */
+        PERL,
+        /** {@code <<<WORD}, {@code <<<"WORD"} and nowdoc {@code <<<'WORD'}, with indented terminator. */
+        PHP
+    }
+
+    /**
+     * Lexical rules of one language.
+     */
+    public static final class Syntax {
+        private final String lineComment;
+        private final String blockOpen;
+        private final String blockClose;
+        private final boolean nestedBlocks;
+        private final String quotes;
+        private final String rawQuotes;
+        private final boolean tripleQuotes;
+        private final boolean charQuotes;
+        private final char escape;
+        private final String charPrefix;
+        private final String verbatimOpen;
+        private final String verbatimClose;
+        private final RawStrings rawStrings;
+        private final boolean wordComments;
+        private final boolean codeEscapes;
+        private final Heredocs heredocs;
+        private final boolean regexLiterals;
+        private final boolean offside;
+        private final boolean shebang;
+
+        private Syntax(Builder builder) {
+            this.lineComment = builder.lineComment;
+            this.blockOpen = builder.blockOpen;
+            this.blockClose = builder.blockClose;
+            this.nestedBlocks = builder.nestedBlocks;
+            this.quotes = builder.quotes;
+            this.rawQuotes = builder.rawQuotes;
+            this.tripleQuotes = builder.tripleQuotes;
+            this.charQuotes = builder.charQuotes;
+            this.escape = builder.escape;
+            this.charPrefix = builder.charPrefix;
+            this.verbatimOpen = builder.verbatimOpen;
+            this.verbatimClose = builder.verbatimClose;
+            this.rawStrings = builder.rawStrings;
+            this.wordComments = builder.wordComments;
+            this.codeEscapes = builder.codeEscapes;
+            this.heredocs = builder.heredocs;
+            this.regexLiterals = builder.regexLiterals;
+            this.offside = builder.offside;
+            this.shebang = builder.shebang;
+        }
+
+        private static final class Builder {
+            private String lineComment;
+            private String blockOpen;
+            private String blockClose;
+            private boolean nestedBlocks;
+            private String quotes = "";
+            private String rawQuotes = "";
+            private boolean tripleQuotes;
+            private boolean charQuotes;
+            private char escape = '\\';
+            private String charPrefix;
+            private String verbatimOpen;
+            private String verbatimClose;
+            private RawStrings rawStrings = RawStrings.NONE;
+            private boolean wordComments;
+            private boolean codeEscapes;
+            private Heredocs heredocs = Heredocs.NONE;
+            private boolean regexLiterals;
+            private boolean offside;
+            private boolean shebang;
+
+            Builder withLineComment(String marker) {
+                this.lineComment = marker;
+                return this;
+            }
+
+            Builder withBlock(String open, String close) {
+                this.blockOpen = open;
+                this.blockClose = close;
+                return this;
+            }
+
+            Builder withNestedBlocks() {
+                this.nestedBlocks = true;
+                return this;
+            }
+
+            Builder withQuotes(String quotes) {
+                this.quotes = quotes;
+                return this;
+            }
+
+            Builder withRawQuotes(String rawQuotes) {
+                this.rawQuotes = rawQuotes;
+                return this;
+            }
+
+            Builder withTripleQuotes() {
+                this.tripleQuotes = true;
+                return this;
+            }
+
+            Builder withoutTripleQuotes() {
+                this.tripleQuotes = false;
+                return this;
+            }
+
+            // A single quote starts a literal only around one character or an escape, so Rust
+            // lifetimes and Scala symbols stay code
+            Builder withCharQuotes() {
+                this.charQuotes = true;
+                return this;
+            }
+
+            Builder withoutCharQuotes() {
+                this.charQuotes = false;
+                return this;
+            }
+
+            // 0 for languages without escapes in literals
+            Builder withEscape(char escape) {
+                this.escape = escape;
+                return this;
+            }
+
+            Builder withCharPrefix(String prefix) {
+                this.charPrefix = prefix;
+                return this;
+            }
+
+            Builder withVerbatim(String open, String close) {
+                this.verbatimOpen = open;
+                this.verbatimClose = close;
+                return this;
+            }
+
+            Builder withRawStrings(RawStrings rawStrings) {
+                this.rawStrings = rawStrings;
+                return this;
+            }
+
+            // The line comment marker counts only at the start of a word, as in $# or ${#name}
+            Builder withWordComments() {
+                this.wordComments = true;
+                return this;
+            }
+
+            // A backslash outside quotes escapes the next character
+            Builder withCodeEscapes() {
+                this.codeEscapes = true;
+                return this;
+            }
+
+            // Here-document bodies are copied unchanged up to their terminator line
+            Builder withHeredocs(Heredocs heredocs) {
+                this.heredocs = heredocs;
+                return this;
+            }
+
+            Builder withRegexLiterals() {
+                this.regexLiterals = true;
+                return this;
+            }
+
+            // Indentation is significant and kept
+            Builder withOffside() {
+                this.offside = true;
+                return this;
+            }
+
+            // A #! first line is an interpreter directive, not a comment
+            Builder withShebang() {
+                this.shebang = true;
+                return this;
+            }
+
+            Syntax build() {
+                return new Syntax(this);
+            }
+        }
+    }
+
+    /**
+     * One pass over one source. Output is written line by line: a line is dropped when its line
+     * break arrives without any code on it, and spaces are only written once the next code follows.
+     */
+    private static final class Lexer {
+        private final String src;
+        private final int length;
+        private final Syntax syntax;
+        private final StringBuilder out;
+        private final List<Heredoc> heredocs = new ArrayList<>();
+        // Open (( of shell arithmetic, in which << is a shift
+        private int arithmetic;
+        private int lineStart;
+        private boolean lineHasCode;
+        private boolean pendingSpace;
+        private char lastCode = '\n';
+
+        Lexer(String src, Syntax syntax) {
+            this.src = src;
+            this.length = src.length();
+            this.syntax = syntax;
+            this.out = new StringBuilder(length);
+        }
+
+        String run() {
+            int i = 0;
+            if (syntax.shebang && src.startsWith("#!")) {
+                i = lineEnd(0);
+                code(0, i);
+            }
+            while (i < length) {
+                char c = src.charAt(i);
+                if (c == '\n') {
+                    newline();
+                    i = heredocs.isEmpty() ? i + 1 : heredocBodies(i + 1);
+                } else if (isSpace(c)) {
+                    if (lineHasCode) {
+                        pendingSpace = true;
+                    } else if (syntax.offside) {
+                        out.append(c);
+                    }
+                    i++;
+                } else {
+                    int end = comment(i);
+                    if (end > i) {
+                        i = end;
+                        continue;
+                    }
+                    if (syntax.heredocs == Heredocs.SHELL && (src.startsWith("((", i) || (arithmetic > 0 && src.startsWith("))", i)))) {
+                        arithmetic += c == '(' ? 1 : -1;
+                        code(i, i + 2);
+                        i += 2;
+                        continue;
+                    }
+                    end = syntax.heredocs != Heredocs.NONE && c == '<' ? heredoc(i) : i;
+                    if (end <= i) {
+                        end = literal(i);
+                    }
+                    if (end <= i) {
+                        end = syntax.codeEscapes && c == '\\' && i + 1 < length && src.charAt(i + 1) != '\n'
+                            ? i + 2 : i + 1;
+                    }
+                    code(i, end);
+                    i = end;
+                }
+            }
+            if (!lineHasCode) {
+                out.setLength(lineStart);
+            }
+            return out.toString();
+        }
+
+        // Returns the end of a comment starting at i, or i if there is none
+        private int comment(int i) {
+            if (syntax.blockOpen != null && src.startsWith(syntax.blockOpen, i)) {
+                int end = blockEnd(i + syntax.blockOpen.length());
+                // A comment across lines still separates lines, which ends statements in some languages
+                if (lineHasCode && src.lastIndexOf('\n', end - 1) >= i) {
+                    newline();
+                } else {
+                    pendingSpace = lineHasCode;
+                }
+                return end;
+            }
+            if (syntax.lineComment != null && src.startsWith(syntax.lineComment, i)
+                    && (!syntax.wordComments || i == 0 || Character.isWhitespace(src.charAt(i - 1))
+                        || src.charAt(i - 1) == ';')) {
+                return lineEnd(i);
+            }
+            return i;
+        }
+
+        // Returns the end of a here-document operator and its word starting at i, or i if there is none.
+        // Its body is copied once the line ends
+        private int heredoc(int i) {
+            switch (syntax.heredocs) {
+                case SHELL:
+                    return shellHeredoc(i);
+                case RUBY:
+                case PERL:
+                    return scriptHeredoc(i);
+                case PHP:
+                    return src.startsWith("<<<", i) ? heredocWord(i, skipSpaces(i + 3), " \t", true) : i;
+                default:
+                    return i;
+            }
+        }
+
+        // Inside (( )) the << is a shift, as in $((1 << n))
+        private int shellHeredoc(int i) {
+            if (!src.startsWith("<<", i) || src.startsWith("<<<", i) || (i > 0 && src.charAt(i - 1) == '<')
+                    || arithmetic > 0) {
+                return i;
+            }
+            int j = i + 2;
+            boolean tabsStripped = j < length && src.charAt(j) == '-';
+            if (tabsStripped) {
+                j++;
+            }
+            j = skipSpaces(j);
+            StringBuilder word = new StringBuilder();
+            while (j < length && !Character.isWhitespace(src.charAt(j)) && ";&|<>()".indexOf(src.charAt(j)) < 0) {
+                char c = src.charAt(j);
+                if (c == '\'' || c == '"') {
+                    int close = closeOnLine(c, j + 1);
+                    if (close < 0) {
+                        return i;
+                    }
+                    word.append(src, j + 1, close);
+                    j = close + 1;
+                } else if (c == '\\' && j + 1 < length) {
+                    word.append(src.charAt(j + 1));
+                    j += 2;
+                } else {
+                    word.append(c);
+                    j++;
+                }
+            }
+            if (word.length() == 0) {
+                return i;
+            }
+            heredocs.add(new Heredoc(word.toString(), tabsStripped ? "\t" : "", false));
+            return j;
+        }
+
+        // The word follows the << directly; after an operand, as in x<<y, or before a space, << is a shift
+        // or an append
+        private int scriptHeredoc(int i) {
+            if (!src.startsWith("<<", i) || src.startsWith("<<<", i) || (i > 0 && src.charAt(i - 1) == '<')
+                    || isIdentifierPart(i - 1) || (i > 0 && ")]}".indexOf(src.charAt(i - 1)) >= 0)) {
+                return i;
+            }
+            int j = i + 2;
+            boolean indented = j < length
+                && (src.charAt(j) == '~' || (src.charAt(j) == '-' && syntax.heredocs == Heredocs.RUBY));
+            return heredocWord(i, indented ? j + 1 : j, indented ? " \t" : "", false);
+        }
+
+        // Reads a quoted word or an identifier starting at j and queues its here-document; returns the end
+        // of the word, or the start of the operator if there is none
+        private int heredocWord(int operator, int j, String indent, boolean openEnded) {
+            if (j >= length) {
+                return operator;
+            }
+            char c = src.charAt(j);
+            int end;
+            String word;
+            if (c == '\'' || c == '"' || c == '`') {
+                int close = closeOnLine(c, j + 1);
+                if (close < 0) {
+                    return operator;
+                }
+                word = src.substring(j + 1, close);
+                end = close + 1;
+            } else {
+                end = j;
+                while (end < length && (Character.isLetter(src.charAt(end)) || src.charAt(end) == '_'
+                        || (end > j && Character.isDigit(src.charAt(end))))) {
+                    end++;
+                }
+                word = src.substring(j, end);
+            }
+            if (word.isEmpty()) {
+                return operator;
+            }
+            heredocs.add(new Heredoc(word, indent, openEnded));
+            return end;
+        }
+
+        // Copies the bodies of the here-documents opened on the line before, terminator lines included.
+        // Each following line is compared with the terminator once; without one, the rest of the source
+        // is copied unchanged
+        private int heredocBodies(int from) {
+            int i = from;
+            for (Heredoc heredoc : heredocs) {
+                int end = heredocEnd(heredoc, i);
+                i = end < 0 ? length : end;
+            }
+            heredocs.clear();
+            out.append(src, from, i);
+            lineStart = out.length();
+            lastCode = '\n';
+            return i;
+        }
+
+        // Returns the end of the terminator line of a here-document whose body starts at from, or -1
+        private int heredocEnd(Heredoc heredoc, int from) {
+            for (int i = from; i < length; ) {
+                int end = lineEnd(i);
+                int start = i;
+                while (start < end && heredoc.indent.indexOf(src.charAt(start)) >= 0) {
+                    start++;
+                }
+                int last = end > start && src.charAt(end - 1) == '\r' ? end - 1 : end;
+                int after = start + heredoc.word.length();
+                i = Math.min(end + 1, length);
+                if (src.startsWith(heredoc.word, start)
+                        && (last == after || (heredoc.openEnded && last > after && !isIdentifierPart(after)))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int blockEnd(int from) {
+            int depth = 1;
+            int i = from;
+            while (i < length) {
+                if (src.startsWith(syntax.blockClose, i)) {
+                    i += syntax.blockClose.length();
+                    if (--depth == 0) {
+                        return i;
+                    }
+                } else if (syntax.nestedBlocks && src.startsWith(syntax.blockOpen, i)) {
+                    i += syntax.blockOpen.length();
+                    depth++;
+                } else {
+                    i++;
+                }
+            }
+            return length;
+        }
+
+        // Returns the end of a literal starting at i, or i if there is none
+        private int literal(int i) {
+            char c = src.charAt(i);
+            int end = rawString(i);
+            if (end > i) {
+                return end;
+            }
+            if (syntax.verbatimOpen != null && src.startsWith(syntax.verbatimOpen, i)) {
+                return find(syntax.verbatimClose, i + syntax.verbatimOpen.length());
+            }
+            if (syntax.charPrefix != null && src.startsWith(syntax.charPrefix, i) && !isIdentifierPart(i - 1)) {
+                int value = i + syntax.charPrefix.length();
+                if (value < length && syntax.escape != 0 && src.charAt(value) == syntax.escape) {
+                    value++;
+                }
+                return Math.min(value + 1, length);
+            }
+            if (c == '\'' && syntax.charQuotes) {
+                return charLiteral(i);
+            }
+            if (syntax.quotes.indexOf(c) >= 0) {
+                boolean raw = syntax.rawQuotes.indexOf(c) >= 0;
+                if (syntax.tripleQuotes && i + 2 < length && src.charAt(i + 1) == c && src.charAt(i + 2) == c) {
+                    return quoted(i + 3, c, raw, 3);
+                }
+                return quoted(i + 1, c, raw, 1);
+            }
+            if (c == '/' && syntax.regexLiterals
+                    && (!lineHasCode || REGEX_PRECEDERS.indexOf(lastCode) >= 0 || endsWithKeyword())) {
+                return regex(i);
+            }
+            return i;
+        }
+
+        // Scans to after count consecutive closing quotes
+        private int quoted(int from, char quote, boolean raw, int count) {
+            int i = from;
+            while (i < length) {
+                char c = src.charAt(i);
+                if (!raw && syntax.escape != 0 && c == syntax.escape) {
+                    i += 2;
+                } else if (c == quote && (count == 1 || src.startsWith(String.valueOf(quote).repeat(count), i))) {
+                    return i + count;
+                } else {
+                    i++;
+                }
+            }
+            return length;
+        }
+
+        // 'x' and escapes such as '\n' are literals; any other quote is code, and a literal ends at the line
+        private int charLiteral(int i) {
+            if (i + 1 < length && src.charAt(i + 1) == syntax.escape) {
+                for (int j = i + 2; j < length; j++) {
+                    char c = src.charAt(j);
+                    if (c == '\n') {
+                        return j;
+                    }
+                    if (c == '\'' && j > i + 2) {
+                        return j + 1;
+                    }
+                }
+                return length;
+            }
+            int close = i + 1 < length && Character.isHighSurrogate(src.charAt(i + 1)) ? i + 3 : i + 2;
+            return close < length && src.charAt(close) == '\'' && src.charAt(i + 1) != '\n' ? close + 1 : i;
+        }
+
+        private int regex(int i) {
+            boolean inClass = false;
+            for (int j = i + 1; j < length; j++) {
+                char c = src.charAt(j);
+                if (c == '\n') {
+                    return j;
+                } else if (c == '\\') {
+                    j++;
+                } else if (c == '[') {
+                    inClass = true;
+                } else if (c == ']') {
+                    inClass = false;
+                } else if (c == '/' && !inClass) {
+                    return j + 1;
+                }
+            }
+            return length;
+        }
+
+        private int rawString(int i) {
+            switch (syntax.rawStrings) {
+                case RUST:
+                    if (src.charAt(i) == 'r' && !isIdentifierPart(i - 1)) {
+                        return hashDelimited(i + 1);
+                    }
+                    return i;
+                case SWIFT:
+                    return src.charAt(i) == '#' ? hashDelimited(i) : i;
+                case CPP:
+                    if (src.startsWith("R\"", i) && !isIdentifierPart(i - 1)) {
+                        int open = src.indexOf('(', i + 2);
+                        if (open > 0 && open - i - 2 <= 16 && isDelimiter(i + 2, open)) {
+                            return find(")" + src.substring(i + 2, open) + "\"", open + 1);
+                        }
+                    }
+                    return i;
+                case CSHARP:
+                    if (src.startsWith("@\"", i)) {
+                        for (int j = i + 2; j < length; j++) {
+                            if (src.charAt(j) == '"') {
+                                if (j + 1 < length && src.charAt(j + 1) == '"') {
+                                    j++;
+                                } else {
+                                    return j + 1;
+                                }
+                            }
+                        }
+                        return length;
+                    }
+                    return i;
+                default:
+                    return i;
+            }
+        }
+
+        // Scans #..#"..."#..# starting at the first hash or quote; returns from - 1 if there is no quote
+        private int hashDelimited(int from) {
+            int quote = from;
+            while (quote < length && src.charAt(quote) == '#') {
+                quote++;
+            }
+            if (quote >= length || src.charAt(quote) != '"' || (quote == from && syntax.rawStrings == RawStrings.SWIFT)) {
+                return from - 1;
+            }
+            return find("\"" + "#".repeat(quote - from), quote + 1);
+        }
+
+        private boolean isDelimiter(int from, int to) {
+            for (int j = from; j < to; j++) {
+                char c = src.charAt(j);
+                if (isSpace(c) || c == '\n' || c == '"' || c == '\\' || c == ')') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int find(String close, int from) {
+            int end = src.indexOf(close, from);
+            return end < 0 ? length : end + close.length();
+        }
+
+        // Returns the position of a quote closing a here-document word on the same line, or -1
+        private int closeOnLine(char quote, int from) {
+            for (int i = from; i < length && src.charAt(i) != '\n'; i++) {
+                if (src.charAt(i) == quote) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int skipSpaces(int from) {
+            int i = from;
+            while (i < length && isSpace(src.charAt(i)) && src.charAt(i) != '\r') {
+                i++;
+            }
+            return i;
+        }
+
+        private int lineEnd(int from) {
+            int end = src.indexOf('\n', from);
+            return end < 0 ? length : end;
+        }
+
+        private boolean endsWithKeyword() {
+            int end = out.length();
+            int start = end;
+            while (start > lineStart && Character.isLetter(out.charAt(start - 1))) {
+                start--;
+            }
+            if (start > lineStart && (Character.isLetterOrDigit(out.charAt(start - 1)) || out.charAt(start - 1) == '_'
+                    || out.charAt(start - 1) == '$' || out.charAt(start - 1) == '.')) {
+                return false;
+            }
+            String word = out.substring(start, end);
+            return word.equals("return") || word.equals("typeof") || word.equals("case");
+        }
+
+        private boolean isIdentifierPart(int i) {
+            if (i < 0) {
+                return false;
+            }
+            char c = src.charAt(i);
+            return Character.isLetterOrDigit(c) || c == '_';
+        }
+
+        private void code(int from, int to) {
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(src, from, to);
+            lineHasCode = true;
+            lastCode = src.charAt(to - 1);
+        }
+
+        private void newline() {
+            if (lineHasCode) {
+                out.append('\n');
+            } else {
+                out.setLength(lineStart);
+            }
+            lineStart = out.length();
+            lineHasCode = false;
+            pendingSpace = false;
+        }
+
+        private static boolean isSpace(char c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+        }
+    }
+
+    /**
+     * A here-document whose body follows the current line. Its terminator line holds the word after
+     * any of the indent characters, and, if it is open-ended, possibly more code after the word.
+     */
+    private static final class Heredoc {
+        private final String word;
+        private final String indent;
+        private final boolean openEnded;
+
+        Heredoc(String word, String indent, boolean openEnded) {
+            this.word = word;
+            this.indent = indent;
+            this.openEnded = openEnded;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.TreeNode;
 import com.codetransformer.ui.UIConstants;
 
 /**
@@ -20,6 +22,7 @@ public class TreeBuilder {
     private static final String BRANCH_PREFIX = "├── ";
     private static final String VERTICAL_PREFIX = "│   ";
     private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String PRUNED_SUFFIX = " (no code files)";
 
     private static final Set<String> EXCLUDED_DIRS = UIConstants.EXCLUDED_DIRS;
 
@@ -40,6 +43,63 @@ public class TreeBuilder {
         return treeLines.toString();
     }
 
+    /**
+     * Builds a tree diagram of a scanned code tree without accessing the filesystem again.
+     * Only code files are shown; directories without code files are marked as pruned.
+     * @param root Root of the scanned tree
+     * @return A string representation of the code tree
+     */
+    public static String buildCodeTree(DirectoryNode root) {
+        return buildCodeTree(root, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds a tree diagram of a scanned code tree, stopping after a number of entries.
+     * The walk stops with the last entry shown, so its cost does not grow with the tree.
+     * @param root Root of the scanned tree
+     * @param maxEntries Maximum number of entries shown below the root
+     * @return A string representation of the code tree, ending with a note if entries were left out
+     */
+    public static String buildCodeTree(DirectoryNode root, int maxEntries) {
+        StringBuilder treeLines = new StringBuilder();
+        treeLines.append(root.getPath().getFileName()).append(LINE_SEPARATOR);
+        if (buildCodeTree(root, "", treeLines, maxEntries) < 0) {
+            treeLines.append("... (only the first ").append(maxEntries).append(" entries are shown)")
+                    .append(LINE_SEPARATOR);
+        }
+        return treeLines.toString();
+    }
+
+    // Returns the number of entries that may still be shown, or -1 once an entry had to be left out
+    private static int buildCodeTree(DirectoryNode dir, String prefix, StringBuilder treeLines, int remaining) {
+        List<TreeNode> children = dir.getAllChildren();
+        for (int i = 0; i < children.size(); i++) {
+            if (remaining == 0) {
+                return -1;
+            }
+            TreeNode child = children.get(i);
+            boolean isLast = (i == children.size() - 1);
+            boolean pruned = child.isDirectory() && ((DirectoryNode) child).isPruned();
+
+            treeLines.append(prefix)
+                    .append(isLast ? BASE_DIR_PREFIX : BRANCH_PREFIX)
+                    .append(child.getPath().getFileName())
+                    .append(pruned ? PRUNED_SUFFIX : "")
+                    .append(LINE_SEPARATOR);
+            remaining--;
+
+            if (child.isDirectory() && !pruned) {
+                remaining = buildCodeTree((DirectoryNode) child,
+                         prefix + (isLast ? EXTENSION_PREFIX : VERTICAL_PREFIX),
+                         treeLines, remaining);
+                if (remaining < 0) {
+                    return remaining;
+                }
+            }
+        }
+        return remaining;
+    }
+
     private static void buildTree(Path dir, String prefix, StringBuilder treeLines) throws IOException {
         List<Path> entries = Files.list(dir)
             .filter(TreeBuilder::shouldInclude)
@@ -0,0 +1,67 @@
+package com.codetransformer.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks that a file is well-formed UTF-8 without holding its content in memory.
+ * The file is decoded chunk by chunk into a small scratch buffer that is reused throughout.
+ */
+public final class Utf8Validator {
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private Utf8Validator() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Validates the first {@code size} bytes of a channel.
+     * @param channel Channel to read; its position is not changed
+     * @param size Number of bytes to validate
+     * @param hash Accumulator receiving the decoded characters, or null
+     * @param tokens Counter receiving the decoded characters, or null
+     * @throws IOException if the bytes are not valid UTF-8 or the file ends early
+     */
+    public static void validate(FileChannel channel, long size, ContentHash.Accumulator hash,
+                                TokenEstimator.Counter tokens) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(size, CHUNK_SIZE));
+        // A UTF-8 sequence never decodes to more chars than it has bytes
+        CharBuffer chars = CharBuffer.allocate(Math.max(bytes.capacity(), 2));
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        long position = 0;
+        boolean endOfInput = size == 0;
+        while (true) {
+            while (!endOfInput && bytes.hasRemaining()) {
+                int read = channel.read(bytes, position);
+                if (read < 0) {
+                    throw new EOFException("File shrank while it was being read");
+                }
+                position += read;
+                endOfInput = position == size;
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            chars.flip();
+            if (hash != null) {
+                hash.update(chars);
+            }
+            if (tokens != null) {
+                tokens.update(chars);
+            }
+            chars.clear();
+            bytes.compact();
+            if (endOfInput && result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+}
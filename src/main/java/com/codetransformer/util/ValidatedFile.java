@@ -0,0 +1,41 @@
+package com.codetransformer.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * An open file whose bytes have been checked to be valid UTF-8, ready to be copied unchanged.
+ * Validation reads the whole file, so the copy that follows is usually served from the page cache.
+ * The file stays open until it is closed.
+ */
+public final class ValidatedFile implements Closeable {
+    private final FileChannel channel;
+    private final long size;
+
+    ValidatedFile(FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * @return Number of bytes that were validated and will be copied
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Copies the validated bytes into an output writer.
+     * @param out Writer to copy into
+     * @throws IOException if reading or writing fails
+     */
+    public void transferTo(ChannelOutputWriter out) throws IOException {
+        out.transferFrom(channel, 0, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.codetransformer.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the headless command line runner.
+ */
+class HeadlessRunnerTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final HeadlessRunner runner = new HeadlessRunner(
+        new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+
+    @Test
+    void run_WithStdoutOutput_ShouldMatchFileOutputAndPrintSummary(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path source = tempDir.resolve("project");
+        Files.createDirectories(source.resolve("src"));
+        Files.writeString(source.resolve("src/Main.java"), "class Main {}");
+        Files.writeString(source.resolve("app.py"), "print('hi')");
+        Path output = tempDir.resolve("out.txt");
+
+        // Act
+        int fileStatus = runner.run(new String[] {"-o", output.toString(), "--in-memory", source.toString()});
+        int stdoutStatus = runner.run(new String[] {"--output", "-", "-p", "2", source.toString()});
+
+        // Assert
+        assertEquals(HeadlessRunner.EXIT_OK, fileStatus);
+        assertEquals(HeadlessRunner.EXIT_OK, stdoutStatus);
+        assertEquals(Files.readString(output), out.toString(StandardCharsets.UTF_8));
+        String[] summaries = err.toString(StandardCharsets.UTF_8).trim().split("\\R");
+        assertEquals(2, summaries.length);
+        assertTrue(summaries[1].startsWith("{\"root\":" + "\"" + source + "\",\"output\":\"-\",\"files\":2,"));
+        assertTrue(summaries[1].contains("\"readMillis\":"));
+    }
+
+    @Test
+    void run_WithInvalidArgumentsOrTooManyFiles_ShouldFail(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Files.writeString(tempDir.resolve("a.js"), "let a;");
+        Files.writeString(tempDir.resolve("b.js"), "let b;");
+
+        // Act & Assert
+        assertEquals(HeadlessRunner.EXIT_USAGE, runner.run(new String[] {"--parallelism", "0", tempDir.toString()}));
+        assertEquals(HeadlessRunner.EXIT_USAGE, runner.run(new String[] {"--unknown"}));
+        assertEquals(HeadlessRunner.EXIT_FAILURE, runner.run(new String[] {"--max-files", "1", tempDir.toString()}));
+        assertFalse(Files.exists(tempDir.resolveSibling(tempDir.getFileName() + "_code_only.txt")));
+        assertEquals(HeadlessRunner.EXIT_FAILURE, runner.run(new String[] {tempDir.resolve("missing").toString()}));
+    }
+}
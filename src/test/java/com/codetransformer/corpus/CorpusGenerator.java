@@ -0,0 +1,222 @@
+package com.codetransformer.corpus;
+
+import com.codetransformer.config.FileProcessingConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic source trees for tests and scaling runs.
+ * The same seed and settings always produce the same tree, byte for byte. Trees mix code files
+ * with non-code noise, nest modules below the depth limit, add excluded directories such as
+ * {@code node_modules} and {@code target}, and draw file sizes from a log-normal distribution.
+ */
+public final class CorpusGenerator {
+    private static final String[] CODE_EXTENSIONS = {"java", "java", "java", "py", "ts", "js", "go", "kt", "sql", "sh"};
+    private static final String[] NOISE_EXTENSIONS = {"md", "txt", "json", "xml", "png", "yml", "properties"};
+    private static final String[] EXCLUDED_DIRS = {"node_modules", "target", "build", ".git"};
+    private static final String[] WORDS = {
+        "value", "result", "index", "count", "buffer", "request", "response", "config", "handler", "item"
+    };
+
+    private final int fileCount;
+    private final long seed;
+    private final int filesPerDirectory;
+    private final int maxDepth;
+    private final double noiseRatio;
+    private final double excludedRatio;
+    private final int medianFileSize;
+
+    private CorpusGenerator(Builder builder) {
+        this.fileCount = builder.fileCount;
+        this.seed = builder.seed;
+        this.filesPerDirectory = builder.filesPerDirectory;
+        this.maxDepth = builder.maxDepth;
+        this.noiseRatio = builder.noiseRatio;
+        this.excludedRatio = builder.excludedRatio;
+        this.medianFileSize = builder.medianFileSize;
+    }
+
+    /**
+     * Summary of a generated tree.
+     */
+    public static final class Corpus {
+        private final Path root;
+        private final int totalFiles;
+        private final int expectedCodeFiles;
+        private final long totalBytes;
+
+        private Corpus(Path root, int totalFiles, int expectedCodeFiles, long totalBytes) {
+            this.root = root;
+            this.totalFiles = totalFiles;
+            this.expectedCodeFiles = expectedCodeFiles;
+            this.totalBytes = totalBytes;
+        }
+
+        public Path getRoot() {
+            return root;
+        }
+
+        /**
+         * @return Number of files written, including noise and files in excluded directories
+         */
+        public int getTotalFiles() {
+            return totalFiles;
+        }
+
+        /**
+         * @return Number of code files a transformation is expected to include
+         */
+        public int getExpectedCodeFiles() {
+            return expectedCodeFiles;
+        }
+
+        /**
+         * @return Number of bytes written
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Writes the tree into a new directory.
+     * @param root Directory to create; must not exist yet
+     * @return Summary of the generated tree
+     * @throws IOException if writing fails
+     */
+    public Corpus generate(Path root) throws IOException {
+        Files.createDirectory(root);
+        State state = new State(new Random(seed));
+        int moduleIndex = 0;
+        while (state.files < fileCount) {
+            Path module = root.resolve("module" + moduleIndex++);
+            int depth = 1 + state.random.nextInt(maxDepth);
+            generateModule(module, 1, depth, state, false);
+        }
+        return new Corpus(root, state.files, state.codeFiles, state.bytes);
+    }
+
+    private void generateModule(Path dir, int depth, int targetDepth, State state, boolean excluded)
+            throws IOException {
+        Files.createDirectories(dir);
+        boolean included = !excluded && depth <= FileProcessingConfig.MAX_DIRECTORY_DEPTH;
+        int files = 1 + state.random.nextInt(filesPerDirectory * 2);
+        for (int i = 0; i < files && state.files < fileCount; i++) {
+            boolean noise = state.random.nextDouble() < noiseRatio;
+            String[] extensions = noise ? NOISE_EXTENSIONS : CODE_EXTENSIONS;
+            String extension = extensions[state.random.nextInt(extensions.length)];
+            writeFile(dir.resolve("File" + i + "." + extension), state);
+            if (!noise && included) {
+                state.codeFiles++;
+            }
+        }
+        if (state.files < fileCount && !excluded && state.random.nextDouble() < excludedRatio) {
+            String name = EXCLUDED_DIRS[state.random.nextInt(EXCLUDED_DIRS.length)];
+            generateModule(dir.resolve(name), depth + 1, depth + 2, state, true);
+        }
+        if (depth < targetDepth) {
+            int children = 1 + state.random.nextInt(3);
+            for (int i = 0; i < children && state.files < fileCount; i++) {
+                generateModule(dir.resolve("pkg" + i), depth + 1, targetDepth, state, excluded);
+            }
+        }
+    }
+
+    private void writeFile(Path file, State state) throws IOException {
+        // Log-normal sizes: most files are small, a few are very large
+        int size = (int) Math.min(4_000_000, medianFileSize * Math.exp(state.random.nextGaussian()));
+        StringBuilder content = new StringBuilder(size + 64);
+        while (content.length() < size) {
+            String word = WORDS[state.random.nextInt(WORDS.length)];
+            content.append("    int ").append(word).append(state.random.nextInt(1000))
+                .append(" = ").append(state.random.nextInt()).append(";\n");
+        }
+        content.setLength(size);
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+        state.files++;
+        state.bytes += bytes.length;
+    }
+
+    /**
+     * Running totals of a generation.
+     */
+    private static final class State {
+        private final Random random;
+        private int files;
+        private int codeFiles;
+        private long bytes;
+
+        State(Random random) {
+            this.random = random;
+        }
+    }
+
+    /**
+     * Builder pattern implementation for clean and flexible object creation.
+     */
+    public static class Builder {
+        private int fileCount = 1_000;
+        private long seed = 42L;
+        private int filesPerDirectory = 12;
+        private int maxDepth = 6;
+        private double noiseRatio = 0.25;
+        private double excludedRatio = 0.05;
+        private int medianFileSize = 2_048;
+
+        public Builder withFileCount(int fileCount) {
+            if (fileCount <= 0) {
+                throw new IllegalArgumentException("File count must be positive");
+            }
+            this.fileCount = fileCount;
+            return this;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder withFilesPerDirectory(int filesPerDirectory) {
+            if (filesPerDirectory <= 0) {
+                throw new IllegalArgumentException("Files per directory must be positive");
+            }
+            this.filesPerDirectory = filesPerDirectory;
+            return this;
+        }
+
+        public Builder withMaxDepth(int maxDepth) {
+            if (maxDepth <= 0) {
+                throw new IllegalArgumentException("Max depth must be positive");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder withNoiseRatio(double noiseRatio) {
+            this.noiseRatio = noiseRatio;
+            return this;
+        }
+
+        public Builder withExcludedRatio(double excludedRatio) {
+            this.excludedRatio = excludedRatio;
+            return this;
+        }
+
+        public Builder withMedianFileSize(int medianFileSize) {
+            if (medianFileSize <= 0) {
+                throw new IllegalArgumentException("Median file size must be positive");
+            }
+            this.medianFileSize = medianFileSize;
+            return this;
+        }
+
+        public CorpusGenerator build() {
+            return new CorpusGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.codetransformer.corpus;
+
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for CorpusGenerator.
+ */
+class CorpusGeneratorTest {
+    private final CorpusGenerator generator = new CorpusGenerator.Builder().withFileCount(300).withSeed(7).build();
+
+    @Test
+    void generate_WithSameSeed_ShouldProduceIdenticalTrees(@TempDir Path tempDir) throws Exception {
+        // Act
+        CorpusGenerator.Corpus first = generator.generate(tempDir.resolve("first"));
+        CorpusGenerator.Corpus second = generator.generate(tempDir.resolve("second"));
+
+        // Assert
+        assertEquals(300, first.getTotalFiles());
+        assertEquals(first.getTotalBytes(), second.getTotalBytes());
+        assertEquals(listing(first.getRoot()), listing(second.getRoot()));
+    }
+
+    @Test
+    void generate_ShouldPredictTheFilesATransformationIncludes(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        CorpusGenerator.Corpus corpus = generator.generate(tempDir.resolve("corpus"));
+        DirectoryProcessorService processor = new DirectoryProcessorServiceImpl();
+
+        // Act
+        int scanned = processor.scanDirectory(corpus.getRoot()).getFileCount();
+
+        // Assert
+        assertEquals(corpus.getExpectedCodeFiles(), scanned);
+        assertTrue(scanned < corpus.getTotalFiles());
+    }
+
+    private static List<String> listing(Path root) throws Exception {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.map(path -> root.relativize(path) + ":" + path.toFile().length())
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
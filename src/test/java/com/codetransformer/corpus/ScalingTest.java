@@ -0,0 +1,105 @@
+package com.codetransformer.corpus;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.ScanResult;
+import com.codetransformer.model.TransformationResult;
+import com.codetransformer.service.DirectoryProcessorService;
+import com.codetransformer.service.DirectoryProcessorServiceImpl;
+import com.codetransformer.util.FileUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scaling suite: transforms generated trees of increasing size and reports wall time,
+ * peak heap and files per second as JSON.
+ * Excluded from the default build; run with {@code mvn -Pscaling test}. The sizes and the
+ * report location can be changed with {@code -Dscaling.sizes=1000,10000} and {@code -Dscaling.report=...}.
+ */
+@Tag("scaling")
+class ScalingTest {
+    private static final String DEFAULT_SIZES = "1000,10000,100000,1000000";
+    private static final String DEFAULT_REPORT = "target/scaling-report.json";
+
+    @Test
+    void processDirectory_AtEachSize_ShouldCompleteAndBeReported() throws Exception {
+        List<String> entries = new ArrayList<>();
+        for (String size : System.getProperty("scaling.sizes", DEFAULT_SIZES).split(",")) {
+            entries.add(measure(Integer.parseInt(size.trim())));
+        }
+
+        Path report = Path.of(System.getProperty("scaling.report", DEFAULT_REPORT));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        Files.writeString(report, "{\"runs\": [\n  " + String.join(",\n  ", entries) + "\n]}\n");
+    }
+
+    private static String measure(int fileCount) throws IOException {
+        Path workDir = Files.createTempDirectory("scaling");
+        try {
+            CorpusGenerator.Corpus corpus = new CorpusGenerator.Builder().withFileCount(fileCount).build()
+                .generate(workDir.resolve("corpus"));
+            // Streaming keeps the output off the heap, which the larger sizes need
+            DirectoryProcessorService processor = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+                new ProcessingOptions.Builder().withStreaming(true).build());
+
+            System.gc();
+            resetPeakHeap();
+            long start = System.nanoTime();
+            ScanResult scan = processor.scanDirectory(corpus.getRoot());
+            TransformationResult result = processor.processDirectory(scan);
+            long elapsedNanos = System.nanoTime() - start;
+            long peakHeap = peakHeap();
+
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            assertEquals(corpus.getExpectedCodeFiles(), scan.getFileCount());
+
+            double seconds = elapsedNanos / 1e9;
+            return String.format(Locale.ROOT,
+                "{\"files\": %d, \"codeFiles\": %d, \"bytes\": %d, \"wallMillis\": %d, "
+                    + "\"peakHeapBytes\": %d, \"filesPerSecond\": %.1f}",
+                corpus.getTotalFiles(), scan.getFileCount(), scan.getTotalBytes(), elapsedNanos / 1_000_000,
+                peakHeap, scan.getFileCount() / seconds);
+        } finally {
+            deleteTree(workDir);
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.BatchResult;
+import com.codetransformer.util.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for BatchProcessor.
+ */
+class BatchProcessorTest {
+
+    @Test
+    void process_WithSeveralRoots_ShouldWriteEachOutputLikeASingleRun(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path first = tempDir.resolve("first");
+        Path second = tempDir.resolve("second");
+        Files.createDirectories(first.resolve("src"));
+        Files.createDirectories(second);
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(first.resolve("src/File" + i + ".java"), "class File" + i + " {}\n".repeat(i + 1));
+        }
+        Files.writeString(second.resolve("main.go"), "package main");
+        Files.writeString(second.resolve("notes.txt"), "not code");
+        ProcessingOptions options = new ProcessingOptions.Builder()
+            .withStreaming(true).withOutstandingReads(4).build();
+        String expected = new DirectoryProcessorServiceImpl().processDirectory(first).getContent();
+        Files.delete(tempDir.resolve("first_code_only.txt"));
+        BatchProcessor batch = new BatchProcessor(FileUtils.getInstance(), options, 2, 100);
+
+        // Act
+        BatchResult result = batch.process(List.of(first, tempDir.resolve("missing"), second));
+
+        // Assert
+        assertEquals(3, result.getRoots().size());
+        assertEquals(1, result.getFailureCount());
+        assertEquals(21, result.getTotalFiles());
+        assertEquals(expected, Files.readString(tempDir.resolve("first_code_only.txt")));
+        assertEquals(tempDir.resolve("missing"), result.getRoots().get(1).getRoot());
+        assertFalse(result.getRoots().get(1).getResult().isSuccess());
+        assertTrue(result.getRoots().get(2).getResult().getContent().contains("package main"));
+        assertFalse(result.getRoots().get(0).getResult().getContentHandle().isInMemory());
+    }
+}
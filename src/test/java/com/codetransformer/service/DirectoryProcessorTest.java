@@ -1,12 +1,47 @@
 package com.codetransformer.service;
 
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.metrics.FileReadEvent;
+import com.codetransformer.metrics.JmxProcessingMetrics;
+import com.codetransformer.metrics.MetricsSummary;
+import com.codetransformer.metrics.Phase;
+import com.codetransformer.metrics.ProcessingMetrics;
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import com.codetransformer.model.ProgressEvent;
+import com.codetransformer.model.ScanResult;
 import com.codetransformer.model.TransformationResult;
+import com.codetransformer.util.ChannelOutputWriter;
+import com.codetransformer.util.ContentHash;
+import com.codetransformer.util.FileService;
+import com.codetransformer.util.FileUtils;
+import com.codetransformer.util.TokenEstimator;
+import com.codetransformer.util.TreeBuilder;
+import com.codetransformer.util.ValidatedFile;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import javax.management.ObjectName;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +57,11 @@ class DirectoryProcessorTest {
         processor = new DirectoryProcessorServiceImpl();
     }
 
+    @AfterEach
+    void tearDown() {
+        processor.close();
+    }
+
     @Test
     void processDirectory_WithCodeFiles_ShouldIncludeOnlyCode(@TempDir Path tempDir) throws Exception {
         // Arrange
@@ -68,4 +108,626 @@ class DirectoryProcessorTest {
         assertTrue(result.isSuccess());
         assertFalse(result.getContent().contains("[File:"));
     }
+
+    @Test
+    void processDirectory_InParallel_ShouldMatchBaselineOutput(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        for (int d = 0; d < 2; d++) {
+            Path dir = Files.createDirectories(root.resolve("pkg" + d).resolve("sub" + d));
+            Files.writeString(dir.resolve("File" + d + ".java"), "class File" + d + " {}" + (d == 1 ? "\n" : ""));
+            Files.writeString(dir.getParent().resolve("notes.md"), "notes");
+        }
+        Files.createDirectories(root.resolve("empty").resolve("nested"));
+        Files.createDirectories(root.resolve("node_modules"));
+        Files.writeString(root.resolve("node_modules").resolve("lib.js"), "ignored();");
+        Files.writeString(root.resolve("Main.java"), "class Main {}");
+        String separator = "=".repeat(80);
+        // Output of the original single-threaded implementation for this tree
+        String expected = String.join(System.lineSeparator(),
+            "[Directory: project]",
+            "  [File: Main.java]",
+            separator,
+            "class Main {}",
+            separator,
+            "  [Directory: pkg0]",
+            "    [Directory: sub0]",
+            "      [File: File0.java]",
+            separator,
+            "class File0 {}",
+            separator,
+            "  [Directory: pkg1]",
+            "    [Directory: sub1]",
+            "      [File: File1.java]",
+            separator,
+            "class File1 {}",
+            "",
+            separator,
+            "");
+
+        for (int parallelism : new int[] {1, 4}) {
+            try (DirectoryProcessorService service = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+                    new ProcessingOptions.Builder().withParallelism(parallelism).build())) {
+                // Act
+                String actual = service.processDirectory(root).getContent();
+
+                // Assert
+                assertEquals(expected, actual, "parallelism=" + parallelism);
+            }
+        }
+    }
+
+    @Test
+    void processDirectory_WithStreaming_ShouldWriteSameOutputLazily(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        Files.createDirectories(root.resolve("src").resolve("empty"));
+        Files.writeString(root.resolve("src").resolve("Unicode.java"), "// caf\u00e9 \uD83D\uDE80\n".repeat(10_000));
+        Files.writeString(root.resolve("build.sh"), "echo build");
+        Files.writeString(root.resolve("README.md"), "# Documentation");
+
+        DirectoryProcessorService streaming = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).build());
+
+        // Act
+        String expected = processor.processDirectory(root).getContent();
+        TransformationResult result = streaming.processDirectory(root);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertFalse(result.getContentHandle().isInMemory());
+        assertEquals(expected, Files.readString(Path.of(result.getOutputPath())));
+        assertEquals(expected, result.getContent());
+        assertFalse(expected.contains("[Directory: empty]"));
+    }
+
+    @Test
+    void processDirectory_WithOutstandingReads_ShouldKeepOutputOrder(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        for (int d = 0; d < 3; d++) {
+            Path dir = Files.createDirectories(root.resolve("pkg" + d));
+            for (int f = 0; f < 8; f++) {
+                Files.writeString(dir.resolve("File" + f + ".java"), "class File" + f + " { /* " + "x".repeat(40 * f) + " */ }");
+            }
+        }
+
+        // Earlier files take longer, so reads complete out of order; the budget forces backpressure
+        DirectoryProcessorService concurrent = new DirectoryProcessorServiceImpl(new SlowFileService(),
+            new ProcessingOptions.Builder().withStreaming(true).withOutstandingReads(8).withReadBudget(600).build());
+
+        // Act
+        String expected = processor.processDirectory(root).getContent();
+        TransformationResult result = concurrent.processDirectory(root);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(expected, result.getContent());
+    }
+
+    @Test
+    void scanDirectory_ShouldGatherTotalsAndServeAsWorkPlan(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        Path src = Files.createDirectories(root.resolve("src"));
+        Files.writeString(src.resolve("Big.java"), "x".repeat(500));
+        Files.writeString(src.resolve("Small.java"), "x".repeat(20));
+        Files.writeString(root.resolve("run.sh"), "x".repeat(100));
+        Files.writeString(root.resolve("README.md"), "x".repeat(1000));
+        Files.createDirectories(root.resolve("docs"));
+        Files.createDirectories(root.resolve("target"));
+        Files.writeString(root.resolve("target").resolve("Generated.java"), "x".repeat(5000));
+
+        // Act
+        ScanResult scan = processor.scanDirectory(root);
+        TransformationResult fromPlan = processor.processDirectory(scan);
+
+        // Assert
+        assertEquals(3, scan.getFileCount());
+        assertEquals(620, scan.getTotalBytes());
+        assertEquals(src.resolve("Big.java"), scan.getLargestFiles().get(0).getPath());
+        assertEquals(2, scan.getDirectories().size());
+        assertEquals(520, scan.getDirectories().get(1).getTotalBytes());
+        assertEquals(processor.processDirectory(root).getContent(), fromPlan.getContent());
+        assertEquals("x".repeat(500), scan.getLargestFiles().get(0).loadContent());
+
+        DirectoryNode docs = (DirectoryNode) scan.getRoot().getAllChildren().get(0);
+        assertTrue(docs.isPruned());
+        assertFalse(scan.getRoot().getChildren().contains(docs));
+        String tree = TreeBuilder.buildCodeTree(scan.getRoot());
+        assertTrue(tree.contains("docs (no code files)"));
+        assertTrue(tree.contains("Small.java"));
+        assertFalse(tree.contains("target"));
+        assertEquals(String.join(System.lineSeparator(), "project", "├── docs (no code files)",
+            "... (only the first 1 entries are shown)", ""), TreeBuilder.buildCodeTree(scan.getRoot(), 1));
+    }
+
+    @Test
+    void processDirectory_ShouldReportPhaseMetrics(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        Path src = Files.createDirectories(root.resolve("src"));
+        Files.writeString(src.resolve("Big.java"), "x".repeat(500));
+        Files.writeString(src.resolve("Small.java"), "x".repeat(20));
+        Files.writeString(root.resolve("README.md"), "x".repeat(1000));
+        Files.createDirectories(root.resolve("target"));
+        LongAdder forwardedFiles = new LongAdder();
+        ProcessingMetrics sink = new ProcessingMetrics() {
+            @Override
+            public void recordPhase(Phase phase, long nanos) {
+            }
+
+            @Override
+            public void addFiles(long count) {
+                forwardedFiles.add(count);
+            }
+
+            @Override
+            public void addBytes(long bytes) {
+            }
+
+            @Override
+            public void addSkipped(long count) {
+            }
+        };
+        DirectoryProcessorService metered = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).withMetrics(sink).build());
+
+        // Act
+        TransformationResult result = metered.processDirectory(root);
+
+        // Assert
+        MetricsSummary metrics = result.getMetrics();
+        assertTrue(result.isSuccess());
+        assertEquals(2, metrics.getFiles());
+        assertEquals(520, metrics.getBytes());
+        assertEquals(2, metrics.getSkipped());
+        assertEquals(2, forwardedFiles.sum());
+        assertTrue(metrics.getPhaseNanos(Phase.LIST) > 0);
+        assertTrue(metrics.getPhaseNanos(Phase.READ) > 0);
+        assertTrue(ManagementFactory.getPlatformMBeanServer()
+            .isRegistered(new ObjectName(JmxProcessingMetrics.OBJECT_NAME)));
+        assertEquals(2, JmxProcessingMetrics.getInstance().getFiles());
+    }
+
+    @Test
+    void scanDirectory_WithoutTransformation_ShouldNotCountAStartedTransformation(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = tempDir.resolve("project");
+        Files.createDirectories(root);
+        Files.writeString(root.resolve("Main.java"), "class Main {}");
+        JmxProcessingMetrics jmx = JmxProcessingMetrics.getInstance();
+        long started = jmx.getTransformationsStarted();
+        long finished = jmx.getTransformationsFinished();
+
+        // Act
+        processor.scanDirectory(root);
+        processor.processDirectory(root);
+
+        // Assert
+        assertEquals(started + 1, jmx.getTransformationsStarted());
+        assertEquals(finished + 1, jmx.getTransformationsFinished());
+    }
+
+    @Test
+    void processDirectory_WithListener_ShouldPublishCoalescedProgress(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        for (int i = 0; i < 300; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("pkg" + i % 10));
+            Files.writeString(dir.resolve("File" + i + ".java"), "class File" + i + " {}");
+        }
+        List<ProgressEvent> events = new CopyOnWriteArrayList<>();
+        ScanResult scan = processor.scanDirectory(tempDir);
+
+        // Act
+        TransformationResult result = processor.processDirectory(scan, events::add);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(events.size() < 300);
+        ProgressEvent last = events.get(events.size() - 1);
+        assertTrue(last.isComplete());
+        assertEquals(300, last.getFilesDone());
+        assertEquals(scan.getTotalBytes(), last.getBytesDone());
+        assertEquals(0, last.getEstimatedRemainingMillis());
+        assertNotNull(last.getCurrentPath());
+    }
+
+    @Test
+    void processDirectory_WhenCancelled_ShouldStopAndDeletePartialOutput(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        for (int i = 0; i < 50; i++) {
+            Files.writeString(root.resolve("File" + i + ".java"), "class File" + i + " {}");
+        }
+        DirectoryProcessorService streaming = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).build());
+        CancellationToken token = new CancellationToken();
+        List<ProgressEvent> events = new CopyOnWriteArrayList<>();
+
+        // Act
+        TransformationResult result = streaming.processDirectory(root, event -> {
+            events.add(event);
+            token.cancel();
+        }, token);
+
+        // Assert
+        assertTrue(result.isCancelled());
+        assertFalse(result.isSuccess());
+        assertEquals(1, events.size());
+        assertFalse(Files.exists(tempDir.resolve("project_code_only.txt")));
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertThrows(CancellationException.class, () -> streaming.scanDirectory(root, token));
+    }
+
+    @Test
+    void processDirectory_WithFlightRecording_ShouldRecordReadsAndListings(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        Files.writeString(root.resolve("Main.java"), "class Main {}");
+        Files.writeString(root.resolve("notes.txt"), "notes");
+        Path recording = tempDir.resolve("run.jfr");
+        DirectoryProcessorService recorded = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withFlightRecording(recording).build());
+
+        // Act
+        TransformationResult result = recorded.processDirectory(root);
+        recorded.close();
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(FlightRecorder.getFlightRecorder().getRecordings().stream()
+            .noneMatch(running -> running.getName().equals("code-transformer")));
+        Map<String, String> outcomes = new HashMap<>();
+        boolean listed = false;
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+            String name = event.getEventType().getName();
+            if (name.equals("com.codetransformer.FileRead")) {
+                outcomes.put(Path.of(event.getString("path")).getFileName().toString(), event.getString("outcome"));
+            } else if (name.equals("com.codetransformer.DirectoryList")) {
+                listed |= event.getInt("codeFiles") == 1 && event.getInt("skipped") == 1;
+            }
+        }
+        assertEquals(FileReadEvent.READ, outcomes.get("Main.java"));
+        assertEquals(FileReadEvent.SKIPPED, outcomes.get("notes.txt"));
+        assertTrue(listed);
+    }
+
+    @Test
+    void processDirectory_WithPacking_ShouldFitTokenBudgetAndRememberCounts(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        Files.writeString(root.resolve("Huge.java"), "int value = 1;\n".repeat(2_000));
+        Files.writeString(root.resolve("Small.java"), "class Small {}");
+        Files.writeString(root.resolve("Tiny.py"), "pass");
+        DirectoryProcessorService packing = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).withTokenBudget(500).withPacking(true).build());
+        long before = packing.scanDirectory(root).getEstimatedTokens();
+
+        // Act
+        TransformationResult result = packing.processDirectory(root);
+        ScanResult rescanned = packing.scanDirectory(root);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertFalse(result.getContent().contains("Huge.java"));
+        assertTrue(result.getContent().contains("class Small {}"));
+        assertTrue(result.getContent().contains("pass"));
+        assertTrue(result.getEstimatedTokens() <= 500);
+        assertTrue(before > 500);
+        assertEquals(ScanResult.estimateTokens(rescanned.getRoot()), rescanned.getEstimatedTokens());
+        assertEquals(rescanned.packInto(500).getEstimatedTokens(), result.getEstimatedTokens());
+        for (FileNode file : rescanned.getLargestFiles()) {
+            assertEquals(!file.getPath().endsWith("Huge.java"), file.getTokenCount().isPresent());
+        }
+    }
+
+    @Test
+    void processDirectory_WithPartBytes_ShouldWriteNumberedPartsThatRebuildTheOutput(@TempDir Path tempDir)
+            throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        for (String dir : List.of("api", "core", "web")) {
+            Path sub = Files.createDirectories(root.resolve(dir));
+            for (int i = 0; i < 3; i++) {
+                Files.writeString(sub.resolve("File" + i + ".java"), ("// " + dir + " " + i + "\n").repeat(40));
+            }
+        }
+        Files.writeString(root.resolve("core/Huge.java"), "int value = 1;\n".repeat(700));
+        Path output = tempDir.resolve("out.txt");
+        Files.writeString(tempDir.resolve("out.part-99.txt"), "stale");
+        DirectoryProcessorService splitting = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withIncrementalCache(true).withStreaming(true)
+                .withOutputPath(output).withPartBytes(2_000).build());
+
+        // Act
+        TransformationResult first = splitting.processDirectory(root);
+        List<String> firstParts = new ArrayList<>();
+        for (String part : first.getParts()) {
+            firstParts.add(Files.readString(Path.of(part)));
+        }
+        TransformationResult second = splitting.processDirectory(root);
+
+        // Assert
+        assertTrue(first.isSuccess());
+        assertEquals(0, second.getCacheMisses());
+        assertFalse(Files.exists(tempDir.resolve("out.part-99.txt")));
+        int count = first.getParts().size();
+        assertTrue(count > 6);
+        assertEquals(first.getParts(), second.getParts());
+        StringBuilder rebuilt = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String part = Files.readString(Path.of(second.getParts().get(i)));
+            assertEquals(firstParts.get(i), part);
+            assertTrue(part.getBytes(StandardCharsets.UTF_8).length <= 2_000);
+            String header = part.substring(0, part.indexOf(System.lineSeparator()));
+            assertTrue(header.startsWith("part " + (i + 1) + "/" + count + " — file"), header);
+            assertFalse(header.endsWith(" "), header);
+            rebuilt.append(part.substring(header.length() + System.lineSeparator().length()));
+        }
+        assertEquals(Files.readString(output), rebuilt.toString());
+        assertTrue(firstParts.stream().anyMatch(part -> part.contains(", piece 2 of ")));
+    }
+
+    @Test
+    void processDirectory_WithPartBytesAndTruncatedMultibyteFile_ShouldKeepEveryPartWithinTheLimit(@TempDir Path tempDir)
+            throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        // Two bytes per character, so the truncated body is twice the character limit in bytes
+        Files.writeString(root.resolve("Accents.java"), ("é".repeat(99) + "\n").repeat(11_000));
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(root.resolve("Small" + i + ".java"), "// naïve café " + i + "\n");
+        }
+        Path output = tempDir.resolve("out.txt");
+        DirectoryProcessorService splitting = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).withOutputPath(output).withPartBytes(300_000).build());
+
+        // Act
+        TransformationResult result = splitting.processDirectory(root);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(Files.readString(output).contains("file truncated due to size limit"));
+        int count = result.getParts().size();
+        assertTrue(count >= 7, "parts: " + count);
+        StringBuilder rebuilt = new StringBuilder();
+        for (String path : result.getParts()) {
+            assertTrue(Files.size(Path.of(path)) <= 300_000, path);
+            String part = Files.readString(Path.of(path));
+            rebuilt.append(part.substring(part.indexOf(System.lineSeparator()) + System.lineSeparator().length()));
+        }
+        assertEquals(Files.readString(output), rebuilt.toString());
+    }
+
+    @Test
+    void processDirectory_WithPartTokens_ShouldKeepEveryPartWithinTheTokenLimit(@TempDir Path tempDir)
+            throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        // Every Greek letter is a token of its own, far more than its size suggests
+        Files.writeString(root.resolve("notes.bat"), ("αβγδε ζηθικ λμνξο πρστυ\n").repeat(400));
+        Path src = Files.createDirectories(root.resolve("src"));
+        for (int i = 0; i < 6; i++) {
+            Files.writeString(src.resolve("Shared" + i % 2 + "x" + i + ".java"),
+                "/** Commented out at length. */\n".repeat(30) + "class Shared {}\n");
+        }
+        Path output = tempDir.resolve("out.txt");
+        DirectoryProcessorService splitting = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withStreaming(true).withDeduplication(true).withMinification(true)
+                .withOutputPath(output).withPartTokens(1_000).build());
+
+        // Act
+        TransformationResult result = splitting.processDirectory(root);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(result.getParts().size() > 3, "parts: " + result.getParts().size());
+        StringBuilder rebuilt = new StringBuilder();
+        for (String path : result.getParts()) {
+            String part = Files.readString(Path.of(path));
+            assertTrue(TokenEstimator.estimate(part) <= 1_000, path + ": " + TokenEstimator.estimate(part));
+            rebuilt.append(part.substring(part.indexOf(System.lineSeparator()) + System.lineSeparator().length()));
+        }
+        assertEquals(Files.readString(output), rebuilt.toString());
+    }
+
+    @Test
+    void processDirectory_WithDeduplication_ShouldReferenceTheFirstCopy(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        String shared = "public final class Util {}\n".repeat(20);
+        String sameSize = "public final class Uti2 {}\n".repeat(20);
+        Files.writeString(Files.createDirectories(root.resolve("a")).resolve("Util.java"), shared);
+        Files.writeString(Files.createDirectories(root.resolve("b")).resolve("Util.java"), shared);
+        Files.writeString(Files.createDirectories(root.resolve("c")).resolve("Util.java"), sameSize);
+
+        for (boolean streaming : new boolean[] {true, false}) {
+            DirectoryProcessorService deduplicating = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+                new ProcessingOptions.Builder().withStreaming(streaming).withDeduplication(true)
+                    .withOutputPath(tempDir.resolve("out-" + streaming + ".txt")).build());
+
+            // Act
+            TransformationResult result = deduplicating.processDirectory(root);
+
+            // Assert
+            assertTrue(result.isSuccess());
+            String content = Files.readString(Path.of(result.getOutputPath()));
+            assertTrue(content.contains(shared), "streaming=" + streaming);
+            assertEquals(content.indexOf(shared), content.lastIndexOf(shared), "streaming=" + streaming);
+            assertTrue(content.contains("[Same content as: a/Util.java]"), "streaming=" + streaming);
+            assertTrue(content.contains(sameSize), "streaming=" + streaming);
+            assertEquals(1, result.getDuplicateFiles());
+            assertTrue(result.getDeduplicatedBytes() > 0);
+        }
+    }
+
+    @Test
+    void processDirectory_WithMinification_ShouldStripCommentsAndReportEachLanguage(@TempDir Path tempDir)
+            throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        Files.writeString(root.resolve("Main.java"),
+            "/* License */\nclass Main {\n    // entry\n    String s = \"// kept\";\n}\n");
+        Files.writeString(root.resolve("tool.py"), "# Tool\ndef run():\n    return 1  # one\n");
+        Files.writeString(root.resolve("run.bat"), "REM unchanged\n");
+
+        for (boolean streaming : new boolean[] {true, false}) {
+            DirectoryProcessorService minifying = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+                new ProcessingOptions.Builder().withStreaming(streaming).withMinification(true)
+                    .withOutputPath(tempDir.resolve("out-" + streaming + ".txt")).build());
+
+            // Act
+            TransformationResult result = minifying.processDirectory(root);
+
+            // Assert
+            assertTrue(result.isSuccess());
+            String content = Files.readString(Path.of(result.getOutputPath()));
+            assertTrue(content.contains("class Main {\nString s = \"// kept\";\n}\n"), "streaming=" + streaming);
+            assertTrue(content.contains("def run():\n    return 1\n"), "streaming=" + streaming);
+            assertTrue(content.contains("REM unchanged"), "streaming=" + streaming);
+            assertFalse(content.contains("License") || content.contains("entry") || content.contains("# one"));
+            List<TransformationResult.LanguageReduction> reductions = result.getMinification();
+            assertEquals(List.of("java", "py"), reductions.stream()
+                .map(TransformationResult.LanguageReduction::getLanguage).collect(Collectors.toList()));
+            assertTrue(reductions.get(0).getRatio() > 0.3);
+            assertEquals(1, reductions.get(1).getFiles());
+        }
+    }
+
+    @Test
+    void processDirectory_WithDeduplicationAndMinification_ShouldReportTheTokensOfTheOutput(@TempDir Path tempDir)
+            throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        String commented = "/**\n * Shared helpers, documented at length.\n */\npublic final class Util {\n"
+            + "    // a comment that minification removes\n    int twice(int x) { return 2 * x; }\n".repeat(12) + "}\n";
+        Files.writeString(Files.createDirectories(root.resolve("a")).resolve("Util.java"), commented);
+        Files.writeString(Files.createDirectories(root.resolve("b")).resolve("Util.java"), commented);
+        List<Long> tokens = new ArrayList<>();
+        List<Long> deduplicated = new ArrayList<>();
+
+        for (boolean streaming : new boolean[] {true, false}) {
+            DirectoryProcessorService service = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+                new ProcessingOptions.Builder().withStreaming(streaming).withDeduplication(true)
+                    .withMinification(true).withOutputPath(tempDir.resolve("out-" + streaming + ".txt")).build());
+
+            // Act
+            TransformationResult result = service.processDirectory(root);
+
+            // Assert
+            assertTrue(result.isSuccess());
+            String content = Files.readString(Path.of(result.getOutputPath()));
+            assertEquals(1, result.getDuplicateFiles(), "streaming=" + streaming);
+            assertFalse(content.contains("comment that minification removes"), "streaming=" + streaming);
+            long written = TokenEstimator.estimate(content);
+            assertTrue(Math.abs(result.getEstimatedTokens() - written) <= written / 20,
+                "streaming=" + streaming + ": reported " + result.getEstimatedTokens() + ", written " + written);
+            assertEquals(1, result.getMinification().get(0).getFiles(), "streaming=" + streaming);
+            tokens.add(result.getEstimatedTokens());
+            deduplicated.add(result.getDeduplicatedBytes());
+        }
+        assertEquals(tokens.get(0), tokens.get(1));
+        assertEquals(deduplicated.get(0), deduplicated.get(1));
+        assertTrue(deduplicated.get(0) < commented.length() / 2, "deduplicated: " + deduplicated.get(0));
+    }
+
+    @Test
+    void rescan_AfterChanges_ShouldMatchFreshScan(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        Path src = Files.createDirectories(root.resolve("src/main"));
+        Path old = Files.createDirectories(root.resolve("old"));
+        Files.writeString(src.resolve("Main.java"), "class Main {}");
+        Files.writeString(root.resolve("build.gradle"), "apply plugin: 'java'");
+        Files.writeString(old.resolve("Legacy.java"), "class Legacy {}");
+        DirectoryProcessorServiceImpl service = (DirectoryProcessorServiceImpl) processor;
+        ScanResult plan = service.scanDirectory(root);
+        Files.writeString(src.resolve("Main.java"), "class Main { int changed; }");
+        Files.writeString(src.resolve("Added.java"), "class Added {}");
+        Files.delete(old.resolve("Legacy.java"));
+        Files.delete(old);
+
+        // Act
+        ScanResult updated = service.rescan(plan, List.of(src, old, root), new CancellationToken());
+        String rescanned = service.processDirectory(updated).getContent();
+
+        // Assert
+        assertEquals(processor.processDirectory(root).getContent(), rescanned);
+        assertEquals(2, updated.getFileCount());
+        assertTrue(rescanned.contains("int changed"));
+        assertFalse(rescanned.contains("Legacy"));
+    }
+
+    /**
+     * File service whose reads take longer for files with lower numbers.
+     */
+    private static final class SlowFileService implements FileService {
+        private final FileService delegate = FileUtils.getInstance();
+
+        @Override
+        public boolean shouldProcessDirectory(Path path) {
+            return delegate.shouldProcessDirectory(path);
+        }
+
+        @Override
+        public String readFileContent(Path path) throws IOException {
+            delay(path);
+            return delegate.readFileContent(path);
+        }
+
+        @Override
+        public String readFileContent(Path path, int maxSize) throws IOException {
+            return delegate.readFileContent(path, maxSize);
+        }
+
+        @Override
+        public boolean transferFileContent(Path path, ChannelOutputWriter out, ContentHash.Accumulator hash,
+                                           TokenEstimator.Counter tokens) throws IOException {
+            return delegate.transferFileContent(path, out, hash, tokens);
+        }
+
+        @Override
+        public ValidatedFile openValidatedFile(Path path, ContentHash.Accumulator hash,
+                                               TokenEstimator.Counter tokens) throws IOException {
+            delay(path);
+            return delegate.openValidatedFile(path, hash, tokens);
+        }
+
+        @Override
+        public void writeFileContent(Path path, String content) throws IOException {
+            delegate.writeFileContent(path, content);
+        }
+
+        @Override
+        public void writeFileContent(Path path, String content, boolean compressed, Executor executor,
+                                     int parallelism) throws IOException {
+            delegate.writeFileContent(path, content, compressed, executor, parallelism);
+        }
+
+        @Override
+        public ChannelOutputWriter openOutputWriter(Path path) throws IOException {
+            return delegate.openOutputWriter(path);
+        }
+
+        @Override
+        public ChannelOutputWriter openOutputWriter(Path path, boolean compressed, Executor executor,
+                                                    int parallelism) throws IOException {
+            return delegate.openOutputWriter(path, compressed, executor, parallelism);
+        }
+
+        @Override
+        public boolean isCodeFile(Path path) {
+            return delegate.isCodeFile(path);
+        }
+
+        private static void delay(Path path) throws IOException {
+            try {
+                Thread.sleep(8 - Character.getNumericValue(path.getFileName().toString().charAt(4)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + path);
+            }
+        }
+    }
 }
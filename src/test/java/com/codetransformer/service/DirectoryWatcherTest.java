@@ -0,0 +1,74 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.TransformationResult;
+import com.codetransformer.util.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for DirectoryWatcher.
+ */
+class DirectoryWatcherTest {
+    private static final FileTime AN_HOUR_AGO = FileTime.from(Instant.now().minusSeconds(3600));
+
+    @Test
+    void watch_AfterChanges_ShouldRegenerateFromTheCacheAndReturnOnClose(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = Files.createDirectories(tempDir.resolve("project"));
+        Path src = Files.createDirectories(root.resolve("src"));
+        Path lib = Files.createDirectories(root.resolve("lib"));
+        for (Path file : new Path[] {src.resolve("Main.java"), lib.resolve("Util.java"), lib.resolve("Text.java")}) {
+            Files.writeString(file, "class " + file.getFileName().toString().replace(".java", "") + " {}");
+            Files.setLastModifiedTime(file, AN_HOUR_AGO);
+        }
+        BlockingQueue<TransformationResult> results = new LinkedBlockingQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DirectoryWatcher watcher = new DirectoryWatcher(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withOutputPath(tempDir.resolve("out.txt")).build());
+        Thread thread = new Thread(() -> {
+            try {
+                watcher.watch(root, (result, elapsedNanos) -> results.add(result));
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "watcher");
+
+        // Act
+        thread.start();
+        TransformationResult initial = results.poll(30, TimeUnit.SECONDS);
+        Files.writeString(src.resolve("Main.java"), "class Main { int changed; }");
+        Files.writeString(src.resolve("Added.java"), "class Added {}");
+        TransformationResult updated = null;
+        String content = "";
+        while (!(content.contains("int changed") && content.contains("class Added"))) {
+            updated = results.poll(30, TimeUnit.SECONDS);
+            assertNotNull(updated, "no regeneration after the changes; last output: " + content);
+            content = Files.readString(Path.of(updated.getOutputPath()));
+        }
+        watcher.close();
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Assert
+        assertNotNull(initial);
+        assertTrue(initial.isSuccess());
+        assertEquals(3, initial.getCacheMisses());
+        assertTrue(updated.isSuccess());
+        assertTrue(updated.getCacheHits() >= 2, "hits: " + updated.getCacheHits());
+        assertTrue(content.contains("class Util {}"));
+        assertTrue(content.contains("class Text {}"));
+        assertFalse(thread.isAlive());
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,59 @@
+package com.codetransformer.service;
+
+import com.codetransformer.model.DirectoryNode;
+import com.codetransformer.model.FileNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for DuplicateIndex.
+ */
+class DuplicateIndexTest {
+    private static final Path ROOT = Path.of("project");
+
+    @Test
+    void referenceFor_HashCollision_ShouldWriteTheContent() throws Exception {
+        // Arrange
+        FileNode first = file("a/Util.java", 540, "class Util {}");
+        FileNode colliding = file("b/Util.java", 540, "class Other {}");
+        DuplicateIndex index = DuplicateIndex.forTree(new DirectoryNode(ROOT, 0, List.of(first, colliding)), null);
+
+        // Act
+        String firstReference = index.referenceFor(first, 42L, first.loadContent());
+        String collidingReference = index.referenceFor(colliding, 42L, colliding.loadContent());
+
+        // Assert
+        assertNull(firstReference);
+        assertNull(collidingReference);
+        assertEquals(0, index.getDuplicates());
+        assertEquals(0, index.getSavedBytes());
+    }
+
+    @Test
+    void referenceFor_TruncatedDuplicate_ShouldCountTheBytesOfTheWrittenBody() throws Exception {
+        // Arrange
+        String truncated = "class Big {}\n".repeat(10) + "// file truncated due to size limit\n";
+        FileNode first = file("a/Big.java", 5_000_000, truncated);
+        FileNode copy = file("b/Big.java", 5_000_000, truncated);
+        DuplicateIndex index = DuplicateIndex.forTree(new DirectoryNode(ROOT, 0, List.of(first, copy)), null);
+
+        // Act
+        index.referenceFor(first, 7L, truncated);
+        String reference = index.referenceFor(copy, 7L, truncated);
+
+        // Assert
+        assertEquals(OutputFormat.duplicateReference(ROOT, first.getPath()), reference);
+        assertEquals(1, index.getDuplicates());
+        assertEquals(truncated.getBytes(StandardCharsets.UTF_8).length
+            - reference.getBytes(StandardCharsets.UTF_8).length, index.getSavedBytes());
+    }
+
+    private static FileNode file(String path, long size, String content) {
+        return new FileNode(ROOT.resolve(path), 1, size, 0L, ignored -> content);
+    }
+}
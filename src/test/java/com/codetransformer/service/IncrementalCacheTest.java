@@ -0,0 +1,95 @@
+package com.codetransformer.service;
+
+import com.codetransformer.config.ProcessingOptions;
+import com.codetransformer.model.TransformationResult;
+import com.codetransformer.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the incremental cache of DirectoryProcessorServiceImpl.
+ */
+class IncrementalCacheTest {
+    private static final FileTime AN_HOUR_AGO = FileTime.from(Instant.now().minusSeconds(3600));
+
+    private DirectoryProcessorService cached;
+    private DirectoryProcessorService uncached;
+
+    @BeforeEach
+    void setUp() {
+        cached = new DirectoryProcessorServiceImpl(FileUtils.getInstance(),
+            new ProcessingOptions.Builder().withIncrementalCache(true).build());
+        uncached = new DirectoryProcessorServiceImpl();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cached.close();
+        uncached.close();
+    }
+
+    @Test
+    void processDirectory_WhenUnchanged_ShouldReuseEveryFile(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = createProject(tempDir);
+
+        // Act
+        TransformationResult first = cached.processDirectory(root);
+        TransformationResult second = cached.processDirectory(root);
+
+        // Assert
+        assertTrue(first.isSuccess());
+        assertEquals(0, first.getCacheHits());
+        assertEquals(6, first.getCacheMisses());
+        assertEquals(6, second.getCacheHits());
+        assertEquals(0, second.getCacheMisses());
+        assertEquals(first.getContent(), second.getContent());
+        assertEquals(uncached.processDirectory(root).getContent(), second.getContent());
+        assertTrue(Files.exists(Path.of(second.getOutputPath() + ".manifest")));
+    }
+
+    @Test
+    void processDirectory_AfterChanges_ShouldOnlyReadChangedFiles(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path root = createProject(tempDir);
+        cached.processDirectory(root);
+
+        Path changed = root.resolve("core").resolve("Service1.java");
+        Files.writeString(changed, "class Service1 { int changed; }");
+        Files.setLastModifiedTime(changed, FileTime.from(Instant.now().minusSeconds(60)));
+        Path added = root.resolve("api").resolve("Extra.java");
+        Files.writeString(added, "class Extra {}");
+        Files.setLastModifiedTime(added, AN_HOUR_AGO);
+
+        // Act
+        TransformationResult result = cached.processDirectory(root);
+
+        // Assert
+        assertEquals(5, result.getCacheHits());
+        assertEquals(2, result.getCacheMisses());
+        assertEquals(uncached.processDirectory(root).getContent(), result.getContent());
+        assertTrue(result.getContent().contains("int changed;"));
+    }
+
+    private static Path createProject(Path tempDir) throws Exception {
+        Path root = tempDir.resolve("project");
+        for (String module : new String[] {"api", "core"}) {
+            Path dir = Files.createDirectories(root.resolve(module));
+            for (int i = 0; i < 3; i++) {
+                Path file = dir.resolve("Service" + i + ".java");
+                Files.writeString(file, "class Service" + i + " { /* " + module + " é */ }");
+                Files.setLastModifiedTime(file, AN_HOUR_AGO);
+            }
+        }
+        return root;
+    }
+}
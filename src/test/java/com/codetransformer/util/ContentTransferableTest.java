@@ -0,0 +1,43 @@
+package com.codetransformer.util;
+
+import com.codetransformer.model.ContentHandle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ContentTransferable.
+ */
+class ContentTransferableTest {
+
+    @Test
+    void getTransferData_ShouldReadOutputOnlyWhenRequested(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path output = tempDir.resolve("project_code_only.txt");
+        ContentTransferable transferable = new ContentTransferable(ContentHandle.ofFile(output));
+        String content = "[File: Main.java]\nclass Main {\n\n    int value = 1;\n}\n";
+        Files.writeString(output, content);
+
+        // Act
+        Object text = transferable.getTransferData(DataFlavor.stringFlavor);
+
+        // Assert
+        assertEquals(content, text);
+        DataFlavor readerFlavor = transferable.getTransferDataFlavors()[1];
+        try (Reader reader = (Reader) transferable.getTransferData(readerFlavor)) {
+            assertEquals(content.lines().collect(Collectors.toList()),
+                new BufferedReader(reader).lines().collect(Collectors.toList()));
+        }
+        assertThrows(UnsupportedFlavorException.class,
+            () -> transferable.getTransferData(DataFlavor.javaFileListFlavor));
+    }
+}
@@ -0,0 +1,142 @@
+package com.codetransformer.util;
+
+import com.codetransformer.model.ContentHandle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for FileUtils and the bounded reader behind it.
+ */
+class FileUtilsTest {
+    private final FileService fileService = FileUtils.getInstance();
+
+    @Test
+    void readFileContent_WithinLimit_ShouldReturnWholeFile(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Small.java");
+        String content = "class Small { String s = \"café 🚀\"; }";
+        Files.writeString(file, content);
+
+        // Act & Assert
+        assertEquals(content, fileService.readFileContent(file, content.length()));
+    }
+
+    @Test
+    void readFileContent_OverLimit_ShouldTruncateToCharacterBudget(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Big.sql");
+        String content = "é中-".repeat(10_000);
+        Files.writeString(file, content);
+
+        // Act
+        String result = fileService.readFileContent(file, 1000);
+
+        // Assert
+        assertEquals(content.substring(0, 1000)
+            + "\n... (file truncated due to size limit of 1000 characters) ...", result);
+    }
+
+    @Test
+    void read_MappedAndHeap_ShouldReturnSamePrefix(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Mixed.js");
+        Files.writeString(file, "const a = '🚀é';\n".repeat(5_000));
+
+        // Act
+        BoundedFileReader.ReadResult heap = BoundedFileReader.read(file, 12_345, false);
+        BoundedFileReader.ReadResult mapped = BoundedFileReader.read(file, 12_345, true);
+
+        // Assert
+        assertTrue(heap.isTruncated());
+        assertEquals(heap.getText(), mapped.getText());
+        assertTrue(heap.getBytesRead() < Files.size(file));
+    }
+
+    @Test
+    void readFileContent_WithInvalidUtf8_ShouldFail(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Broken.c");
+        Files.write(file, new byte[] {'i', 'n', 't', (byte) 0xC3});
+
+        // Act & Assert
+        assertThrows(MalformedInputException.class, () -> fileService.readFileContent(file));
+    }
+
+    @Test
+    void transferFileContent_WithValidUtf8_ShouldCopyBytesAndHashAndCountChars(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Copy.py");
+        String content = "print('naïve 🚀')\n".repeat(3_000);
+        Files.writeString(file, content);
+        Path output = tempDir.resolve("out.txt");
+        ContentHash.Accumulator hash = new ContentHash.Accumulator();
+        TokenEstimator.Counter tokens = new TokenEstimator.Counter();
+
+        // Act
+        boolean copied;
+        try (ChannelOutputWriter out = fileService.openOutputWriter(output)) {
+            out.write("header\n");
+            copied = fileService.transferFileContent(file, out, hash, tokens);
+        }
+
+        // Assert
+        assertTrue(copied);
+        assertEquals("header\n" + content, Files.readString(output));
+        assertEquals(ContentHash.of(content), hash.finish());
+        assertEquals(TokenEstimator.estimate(content), tokens.finish());
+    }
+
+    @Test
+    void transferFileContent_WithInvalidUtf8_ShouldFailBeforeWriting(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Broken.c");
+        Files.write(file, new byte[] {'i', 'n', 't', (byte) 0xFF, ';'});
+        Path output = tempDir.resolve("out.txt");
+
+        // Act & Assert
+        try (ChannelOutputWriter out = fileService.openOutputWriter(output)) {
+            assertThrows(MalformedInputException.class, () -> fileService.transferFileContent(file, out, null, null));
+        }
+        assertEquals(0, Files.size(output));
+    }
+
+    @Test
+    void openOutputWriter_Compressed_ShouldWriteConcatenatedGzipMembers(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("Copy.py");
+        String content = "print('naïve 🚀')\n".repeat(30_000);
+        Files.writeString(file, content);
+        Path output = tempDir.resolve("out.txt.gz");
+        Path empty = tempDir.resolve("empty.txt.gz");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        try (ChannelOutputWriter out = fileService.openOutputWriter(output, true, executor, 4)) {
+            out.write("header\n");
+            fileService.transferFileContent(file, out, null, null);
+        }
+        fileService.writeFileContent(empty, "", true, executor, 4);
+        executor.shutdown();
+
+        // Assert
+        byte[] compressed = Files.readAllBytes(output);
+        int members = 0;
+        for (int i = 0; i + 2 < compressed.length; i++) {
+            if (compressed[i] == 0x1f && compressed[i + 1] == (byte) 0x8b && compressed[i + 2] == 8) {
+                members++;
+            }
+        }
+        assertTrue(members > 1);
+        assertTrue(compressed.length < content.length() / 10);
+        assertEquals("header\n" + content, ContentHandle.ofGzipFile(output).load());
+        assertEquals("", ContentHandle.ofGzipFile(empty).load());
+    }
+}
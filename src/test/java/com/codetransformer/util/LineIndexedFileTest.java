@@ -0,0 +1,56 @@
+package com.codetransformer.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for LineIndexedFile.
+ */
+class LineIndexedFileTest {
+
+    @Test
+    void getLine_ShouldServeLinesWithoutTerminators(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("out.txt");
+        StringBuilder content = new StringBuilder("first\r\n\nthird é🚀\n");
+        for (int i = 0; i < 100_000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        content.append("last without newline");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        // Act
+        try (LineIndexedFile lines = LineIndexedFile.open(file)) {
+            // Assert
+            assertEquals(100_004, lines.getLineCount());
+            assertEquals("first", lines.getLine(0, 1024));
+            assertEquals("", lines.getLine(1, 1024));
+            assertEquals("third é🚀", lines.getLine(2, 1024));
+            assertEquals("line 99999", lines.getLine(100_002, 1024));
+            assertEquals("last without newline", lines.getLine(100_003, 1024));
+            assertEquals("last", lines.getLine(100_003, 4));
+            assertThrows(IndexOutOfBoundsException.class, () -> lines.getLine(100_004, 1024));
+        }
+    }
+
+    @Test
+    void open_WithEmptyFileOrTrailingNewline_ShouldNotCountExtraLine(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        Path empty = Files.writeString(tempDir.resolve("empty.txt"), "");
+        Path single = Files.writeString(tempDir.resolve("single.txt"), "only\n");
+
+        // Act & Assert
+        try (LineIndexedFile emptyLines = LineIndexedFile.open(empty);
+             LineIndexedFile singleLines = LineIndexedFile.open(single)) {
+            assertEquals(0, emptyLines.getLineCount());
+            assertEquals(1, singleLines.getLineCount());
+            assertEquals("only", singleLines.getLine(0, 1024));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.codetransformer.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for SourceMinifier.
+ */
+class SourceMinifierTest {
+
+    @Test
+    void minify_CLike_ShouldStripCommentsAndKeepLiterals() {
+        // Arrange
+        String source = String.join("\n",
+            "/*",
+            " * Licensed under the Apache License.",
+            " */",
+            "package demo;",
+            "",
+            "/** Greets. */",
+            "public class Greeter {",
+            "    private static final String URL = \"http://example.com/*not*/\"; // the site",
+            "    private final char slash = '/', quote = '\\'';",
+            "",
+            "    int add(int a,   int b) { return a/*plus*/+b; }",
+            "}",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("JAVA"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "package demo;",
+            "public class Greeter {",
+            "private static final String URL = \"http://example.com/*not*/\";",
+            "private final char slash = '/', quote = '\\'';",
+            "int add(int a, int b) { return a +b; }",
+            "}",
+            ""), minified);
+    }
+
+    @Test
+    void minify_Rust_ShouldTreatLifetimesAsCodeAndRawStringsAsLiterals() {
+        // Arrange
+        String source = "fn f<'a>(s: &'a str) -> &'a str { r#\"// \"quoted\"\"# } // done\n";
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("rs"));
+
+        // Assert
+        assertEquals("fn f<'a>(s: &'a str) -> &'a str { r#\"// \"quoted\"\"# }\n", minified);
+    }
+
+    @Test
+    void minify_JavaScript_ShouldKeepRegularExpressionsAndTemplates() {
+        // Arrange
+        String source = "const re = /[/*]+/g; // slashes\nconst t = `a // b`;   const half = x / 2; // half\n";
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("js"));
+
+        // Assert
+        assertEquals("const re = /[/*]+/g;\nconst t = `a // b`; const half = x / 2;\n", minified);
+    }
+
+    @Test
+    void minify_Python_ShouldKeepIndentationAndDocstrings() {
+        // Arrange
+        String source = String.join("\n",
+            "#!/usr/bin/env python3",
+            "# Copyright",
+            "def f(x):  # square",
+            "    \"\"\"Returns x # squared.\"\"\"",
+            "",
+            "    return x  *  x",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("py"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "#!/usr/bin/env python3",
+            "def f(x):",
+            "    \"\"\"Returns x # squared.\"\"\"",
+            "    return x * x",
+            ""), minified);
+    }
+
+    @Test
+    void minify_Shell_ShouldOnlyStripCommentsAtWordStart() {
+        // Arrange
+        String source = "echo ${#items} $# 'it # stays' \\# # comment\n";
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("sh"));
+
+        // Assert
+        assertEquals("echo ${#items} $# 'it # stays' \\#\n", minified);
+    }
+
+    @Test
+    void minify_ShellHeredocs_ShouldCopyBodiesUpToTheirTerminator() {
+        // Arrange
+        String source = String.join("\n",
+            "cat <<EOF  # usage",
+            "# keep me",
+            "    indented   line",
+            "",
+            "EOF",
+            "if true; then",
+            "\tcat <<-'END' | sed 's/^/> /'",
+            "\t  it's $HOME # literally",
+            "\tEND",
+            "fi",
+            "echo $(( 1 << 2 ))   # shift",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("bash"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "cat <<EOF",
+            "# keep me",
+            "    indented   line",
+            "",
+            "EOF",
+            "if true; then",
+            "cat <<-'END' | sed 's/^/> /'",
+            "\t  it's $HOME # literally",
+            "\tEND",
+            "fi",
+            "echo $(( 1 << 2 ))",
+            ""), minified);
+    }
+
+    @Test
+    void minify_RubyHeredocs_ShouldCopyBodiesUpToTheirTerminator() {
+        // Arrange
+        String source = String.join("\n",
+            "text = <<~EOS   # squiggly",
+            "  keep   # this",
+            "  EOS",
+            "sql = <<-'SQL'",
+            "  SELECT 1 # not a comment",
+            "    SQL",
+            "items << value   # append",
+            "class << self",
+            "end",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("rb"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "text = <<~EOS",
+            "  keep   # this",
+            "  EOS",
+            "sql = <<-'SQL'",
+            "  SELECT 1 # not a comment",
+            "    SQL",
+            "items << value",
+            "class << self",
+            "end",
+            ""), minified);
+    }
+
+    @Test
+    void minify_PerlHeredocs_ShouldCopyBodiesUpToTheirTerminator() {
+        // Arrange
+        String source = String.join("\n",
+            "print <<\"EOF\";   # usage",
+            "a   # b",
+            "EOF",
+            "my $text = <<~EOT;",
+            "    indented   # text",
+            "    EOT",
+            "my $n = $x<<2;   # shift",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("pl"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "print <<\"EOF\";",
+            "a   # b",
+            "EOF",
+            "my $text = <<~EOT;",
+            "    indented   # text",
+            "    EOT",
+            "my $n = $x<<2;",
+            ""), minified);
+    }
+
+    @Test
+    void minify_PhpHeredocs_ShouldCopyBodiesUpToTheirTerminator() {
+        // Arrange
+        String source = String.join("\n",
+            "<?php",
+            "$html = <<<EOT",
+            "hello   // world",
+            "  /* not a comment */",
+            "  EOT;   // end",
+            "$raw = <<<'NOW'",
+            "$name   # stays",
+            "NOW;",
+            "echo $html;   // done",
+            "");
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("php"));
+
+        // Assert
+        assertEquals(String.join("\n",
+            "<?php",
+            "$html = <<<EOT",
+            "hello   // world",
+            "  /* not a comment */",
+            "  EOT;   // end",
+            "$raw = <<<'NOW'",
+            "$name   # stays",
+            "NOW;",
+            "echo $html;",
+            ""), minified);
+    }
+
+    @Test
+    void minify_Erlang_ShouldKeepCharacterLiterals() {
+        // Arrange
+        String source = "%% Module\nis_comment($%) -> true; % first\nis_comment(_) -> false.\n";
+
+        // Act
+        String minified = SourceMinifier.minify(source, SourceMinifier.syntaxFor("erl"));
+
+        // Assert
+        assertEquals("is_comment($%) -> true;\nis_comment(_) -> false.\n", minified);
+        assertNull(SourceMinifier.syntaxFor("bat"));
+    }
+}